@@ -0,0 +1,223 @@
+package com.sherrylxf.jucstudy.lock;
+
+import com.sherrylxf.jucstudy.aqs.AQSDemo;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 被各种锁保护的计数器，临界区内额外执行 work 个 token 的CPU工作（Blackhole.consumeCPU）
+ *
+ * 只有读写锁和 StampedLock 区分读和写，其余锁读写都是互斥的
+ */
+abstract class GuardedCounter {
+
+    final long work;
+    long value;
+
+    GuardedCounter(long work) {
+        this.work = work;
+    }
+
+    abstract long read();
+
+    abstract long write();
+
+    static GuardedCounter create(String lockType, long work) {
+        switch (lockType) {
+            case "synchronized":
+                return new SynchronizedCounter(work);
+            case "ReentrantLock":
+                return new ReentrantLockCounter(work);
+            case "ReentrantReadWriteLock":
+                return new ReadWriteLockCounter(work);
+            case "StampedLock":
+                return new StampedLockCounter(work);
+            case "CustomMutex":
+                return new CustomMutexCounter(work);
+            case "CustomReentrantLock":
+                return new CustomReentrantLockCounter(work);
+            default:
+                throw new IllegalArgumentException("未知的锁类型: " + lockType);
+        }
+    }
+
+    static final class SynchronizedCounter extends GuardedCounter {
+        SynchronizedCounter(long work) {
+            super(work);
+        }
+
+        @Override
+        synchronized long read() {
+            Blackhole.consumeCPU(work);
+            return value;
+        }
+
+        @Override
+        synchronized long write() {
+            Blackhole.consumeCPU(work);
+            return ++value;
+        }
+    }
+
+    static final class ReentrantLockCounter extends GuardedCounter {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        ReentrantLockCounter(long work) {
+            super(work);
+        }
+
+        @Override
+        long read() {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        long write() {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return ++value;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static final class ReadWriteLockCounter extends GuardedCounter {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        ReadWriteLockCounter(long work) {
+            super(work);
+        }
+
+        @Override
+        long read() {
+            lock.readLock().lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return value;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        long write() {
+            lock.writeLock().lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return ++value;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 读：先乐观读，验证失败再加读锁
+     */
+    static final class StampedLockCounter extends GuardedCounter {
+        private final StampedLock lock = new StampedLock();
+
+        StampedLockCounter(long work) {
+            super(work);
+        }
+
+        @Override
+        long read() {
+            long stamp = lock.tryOptimisticRead();
+            Blackhole.consumeCPU(work);
+            long v = value;
+            if (lock.validate(stamp)) {
+                return v;
+            }
+            stamp = lock.readLock();
+            try {
+                Blackhole.consumeCPU(work);
+                return value;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        long write() {
+            long stamp = lock.writeLock();
+            try {
+                Blackhole.consumeCPU(work);
+                return ++value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    static final class CustomMutexCounter extends GuardedCounter {
+        private final AQSDemo.CustomMutex lock = new AQSDemo.CustomMutex();
+
+        CustomMutexCounter(long work) {
+            super(work);
+        }
+
+        @Override
+        long read() {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        long write() {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return ++value;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static final class CustomReentrantLockCounter extends GuardedCounter {
+        private final AQSDemo.CustomReentrantLock lock = new AQSDemo.CustomReentrantLock();
+
+        CustomReentrantLockCounter(long work) {
+            super(work);
+        }
+
+        @Override
+        long read() {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        long write() {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(work);
+                return ++value;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
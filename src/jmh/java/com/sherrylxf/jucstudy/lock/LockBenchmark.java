@@ -0,0 +1,58 @@
+package com.sherrylxf.jucstudy.lock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁的吞吐量基准测试
+ *
+ * 每次操作按 writePercent 的概率做写、否则做读，临界区内执行 work 个 token 的CPU工作；
+ * 线程数由 LockBenchmarkRunner 按 1 到 2×核数 逐个传入；
+ * benchmarks.jar 的入口是 LockBenchmarkRunner，要单独运行本类需指定 JMH 自己的入口，例如：
+ *   java -cp target/benchmarks.jar org.openjdk.jmh.Main LockBenchmark -t 4 -p writePercent=10
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LockBenchmark {
+
+    @Param({"synchronized", "ReentrantLock", "ReentrantReadWriteLock", "StampedLock", "CustomMutex", "CustomReentrantLock"})
+    public String lockType;
+
+    @Param({"0", "10", "50", "100"})
+    public int writePercent;
+
+    @Param({"0", "100"})
+    public long work;
+
+    private GuardedCounter counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        counter = GuardedCounter.create(lockType, work);
+    }
+
+    @Benchmark
+    public long operation() {
+        if (ThreadLocalRandom.current().nextInt(100) < writePercent) {
+            return counter.write();
+        }
+        return counter.read();
+    }
+}
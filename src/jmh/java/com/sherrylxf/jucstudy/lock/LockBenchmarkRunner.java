@@ -0,0 +1,118 @@
+package com.sherrylxf.jucstudy.lock;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 按线程数 1 到 2×核数 运行 LockBenchmark，用实测数据生成各场景下的锁排名报告
+ *
+ * 用法：java -jar target/benchmarks.jar [--quick]
+ * 报告写到 target/jmh/lock-ranking.md，每个线程数的原始结果写到 target/jmh/lock-results-t{n}.json；
+ * LockComparisonDemo.printPerformanceComparison 会读取这份报告
+ */
+public class LockBenchmarkRunner {
+
+    static final Path OUTPUT_DIR = Paths.get("target", "jmh");
+    static final Path REPORT = OUTPUT_DIR.resolve("lock-ranking.md");
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        boolean quick = args.length > 0 && "--quick".equals(args[0]);
+        Files.createDirectories(OUTPUT_DIR);
+
+        List<Integer> threadCounts = Arrays.stream(ContentionScalingHarness.threadCounts()).boxed()
+                .collect(Collectors.toList());
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(LockBenchmark.class.getName())
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(OUTPUT_DIR.resolve("lock-results-t" + threads + ".json").toString());
+            if (quick) {
+                options.forks(1)
+                        .warmupIterations(2).warmupTime(TimeValue.milliseconds(500))
+                        .measurementIterations(3).measurementTime(TimeValue.milliseconds(500));
+            }
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        String report = buildReport(results, threadCounts);
+        Files.write(REPORT, report.getBytes(StandardCharsets.UTF_8));
+        System.out.println(report);
+        System.out.println("报告已写入: " + REPORT.toAbsolutePath());
+    }
+
+    /**
+     * 每个场景（写比例, 临界区长度）一张表：行是锁，列是线程数，按最大线程数下的吞吐量排名
+     */
+    static String buildReport(List<RunResult> results, List<Integer> threadCounts) {
+        // 场景 -> 锁 -> 线程数 -> {score, error}
+        Map<String, Map<String, Map<Integer, double[]>>> table = new TreeMap<>(Comparator
+                .comparingInt((String s) -> Integer.parseInt(s.split("/")[0]))
+                .thenComparingLong(s -> Long.parseLong(s.split("/")[1])));
+        for (RunResult result : results) {
+            String scenario = result.getParams().getParam("writePercent") + "/" + result.getParams().getParam("work");
+            String lock = result.getParams().getParam("lockType");
+            double[] score = {result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreError()};
+            table.computeIfAbsent(scenario, k -> new TreeMap<>())
+                    .computeIfAbsent(lock, k -> new TreeMap<>())
+                    .put(result.getParams().getThreads(), score);
+        }
+
+        int maxThreads = threadCounts.get(threadCounts.size() - 1);
+        StringBuilder sb = new StringBuilder();
+        sb.append("# 锁性能排名（JMH实测）\n\n");
+        sb.append(String.format(Locale.ROOT, "CPU核数: %d, JDK: %s, 单位: ops/us（越大越好），± 为99.9%%置信区间%n%n",
+                Runtime.getRuntime().availableProcessors(), System.getProperty("java.version")));
+        for (Map.Entry<String, Map<String, Map<Integer, double[]>>> entry : table.entrySet()) {
+            String[] scenario = entry.getKey().split("/");
+            sb.append("## 写比例 ").append(scenario[0]).append("%, 临界区 ").append(scenario[1]).append(" tokens\n\n");
+            sb.append("| 排名 | 锁 |");
+            for (int threads : threadCounts) {
+                sb.append(' ').append(threads).append("线程 |");
+            }
+            sb.append('\n').append("|---|---|");
+            for (int i = 0; i < threadCounts.size(); i++) {
+                sb.append("---|");
+            }
+            sb.append('\n');
+
+            List<Map.Entry<String, Map<Integer, double[]>>> locks = new ArrayList<>(entry.getValue().entrySet());
+            locks.sort(Comparator.comparingDouble(
+                    (Map.Entry<String, Map<Integer, double[]>> e) -> -e.getValue().getOrDefault(maxThreads, new double[]{0, 0})[0]));
+            int rank = 1;
+            for (Map.Entry<String, Map<Integer, double[]>> lock : locks) {
+                sb.append("| ").append(rank++).append(" | ").append(lock.getKey()).append(" |");
+                for (int threads : threadCounts) {
+                    double[] score = lock.getValue().get(threads);
+                    sb.append(score == null ? " - |" : String.format(Locale.ROOT, " %.2f ± %.2f |", score[0], score[1]));
+                }
+                sb.append('\n');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -17,7 +17,7 @@ public class AQSDemo {
      * 自定义互斥锁（基于AQS实现）
      * 演示如何基于AQS实现一个简单的互斥锁
      */
-    static class CustomMutex {
+    public static class CustomMutex {
         private final Sync sync = new Sync();
 
         /**
@@ -86,7 +86,7 @@ public class AQSDemo {
      * 自定义可重入锁（基于AQS实现）
      * 演示如何实现可重入锁
      */
-    static class CustomReentrantLock {
+    public static class CustomReentrantLock {
         private final Sync sync = new Sync();
 
         static class Sync extends AbstractQueuedSynchronizer {
@@ -1,5 +1,10 @@
 package com.sherrylxf.jucstudy.atomic;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.concurrent.atomic.*;
 
 /**
@@ -146,6 +151,44 @@ public class AtomicClassDemo {
         System.out.println();
     }
 
+    /**
+     * 演示CAS重试埋点：统计每个调用点的CAS失败次数
+     */
+    public static void demonstrateCasTelemetry() {
+        System.out.println("\n========== CAS重试统计演示 ==========");
+        
+        CasTelemetry.Site site = CasTelemetry.site("demo.atomicLong");
+        atomicLong.set(0L);
+        
+        Thread[] threads = new Thread[10];
+        for (int i = 0; i < 10; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    site.updateAndGet(atomicLong, v -> v + 1);
+                }
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        System.out.println("AtomicLong结果: " + atomicLong.get() + " (预期: 100000)");
+        System.out.println("统计: " + site.stats());
+        System.out.println("尝试次数 = 调用次数 + 失败次数 = " + site.stats().getAttempts());
+        System.out.println("✓ compareAndSet只告诉你成功或失败，埋点告诉你循环里浪费了多少次");
+        
+        System.out.println("性能对比见 CasTelemetryBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 演示AtomicReference
      */
@@ -254,6 +297,61 @@ public class AtomicClassDemo {
         System.out.println("✓ 使用版本号可以检测到ABA问题");
     }
 
+    /**
+     * 演示无分配的防ABA栈：下标 + 版本号打包进一个long做CAS
+     */
+    public static void demonstrateIndexedTreiberStack() {
+        System.out.println("\n========== 无分配防ABA栈演示 ==========");
+        
+        IndexedTreiberStack<String> stack = new IndexedTreiberStack<>(4);
+        stack.push("A");
+        stack.push("B");
+        System.out.println("push A, B 后栈顶: " + stack.peek() + ", 版本号: " + stack.version());
+        
+        // A-B-A：弹出B再压回B，栈顶下标不变但版本号已变
+        String top = stack.pop();
+        stack.push(top);
+        System.out.println("pop再push回 " + top + " 后栈顶: " + stack.peek() + ", 版本号: " + stack.version());
+        
+        for (int i = 0; i < 3; i++) {
+            System.out.println("push C" + i + ": " + stack.push("C" + i));
+        }
+        System.out.println("容量: " + stack.capacity() + "，满了之后push返回false");
+        
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    String item = stack.pop();
+                    if (item != null) {
+                        stack.push(item);
+                    }
+                }
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        int remaining = 0;
+        while (stack.pop() != null) {
+            remaining++;
+        }
+        System.out.println("4个线程并发pop/push后剩余元素: " + remaining + " (预期: 4)");
+        System.out.println("✓ 版本号和下标一起CAS，A-B-A之后旧的栈顶快照无法CAS成功");
+        
+        System.out.println("性能对比见 TreiberStackBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 演示AtomicIntegerArray
      */
@@ -296,6 +394,93 @@ public class AtomicClassDemo {
         System.out.println("✓ 每个元素都是原子操作");
     }
 
+    /**
+     * 演示按缓存行填充的原子数组：每个线程更新自己的下标时不再互相干扰
+     */
+    public static void demonstratePaddedAtomicArray() {
+        System.out.println("\n========== PaddedAtomicLongArray演示 ==========");
+        
+        PaddedAtomicLongArray paddedArray = new PaddedAtomicLongArray(5);
+        
+        Thread[] threads = new Thread[5];
+        for (int i = 0; i < 5; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    paddedArray.incrementAndGet(index);
+                }
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        System.out.println("最终数组: " + paddedArray);
+        System.out.println("逻辑长度: " + paddedArray.length() + ", 实际占用long个数: " + paddedArray.physicalLength());
+        System.out.println("✓ 相邻元素相隔一个缓存行，避免伪共享");
+        
+        System.out.println("性能对比见 FalseSharingBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示堆外原子数组：long下标，可持久化到文件
+     */
+    public static void demonstrateOffHeapAtomicArray() {
+        System.out.println("\n========== 堆外原子数组演示 ==========");
+        
+        Path file = null;
+        try {
+            file = Files.createTempFile("offheap-counters", ".bin");
+            try (OffHeapAtomicLongArray counters = OffHeapAtomicLongArray.mapFile(file, 1_000_000)) {
+                Thread[] threads = new Thread[4];
+                for (int i = 0; i < threads.length; i++) {
+                    threads[i] = new Thread(() -> {
+                        for (int j = 0; j < 10000; j++) {
+                            counters.incrementAndGet(999_999L);
+                        }
+                    });
+                }
+                
+                for (Thread thread : threads) {
+                    thread.start();
+                }
+                
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                
+                System.out.println("counters[999999] = " + counters.get(999_999L) + " (预期: 40000)");
+                System.out.println("compareAndSet(42, 0, 7): " + counters.compareAndSet(42, 0, 7));
+                System.out.println("堆外占用: " + counters.offHeapBytes() / 1024 + "KB");
+            }
+            
+            // 重新映射同一个文件，数据还在
+            try (OffHeapAtomicLongArray reopened = OffHeapAtomicLongArray.mapFile(file, 1_000_000)) {
+                System.out.println("重新映射后 counters[999999] = " + reopened.get(999_999L) + ", counters[42] = " + reopened.get(42));
+                reopened.reset();
+                System.out.println("reset()后 counters[999999] = " + reopened.get(999_999L));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (file != null) {
+                file.toFile().delete();
+            }
+        }
+        System.out.println("✓ 数据不在堆上，GC不扫描；文件模式下重启后可以恢复");
+        
+        System.out.println("性能对比见 OffHeapArrayBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 演示其他原子类
      */
@@ -326,6 +511,260 @@ public class AtomicClassDemo {
         System.out.println("- AtomicReferenceArray: 引用类型数组原子类");
     }
 
+    /**
+     * 用volatile字段 + FieldAtomics代替每个字段一个原子对象
+     */
+    static class Account {
+        static final VarHandle BALANCE = FieldAtomics.longField(MethodHandles.lookup(), Account.class, "balance");
+        static final VarHandle FROZEN = FieldAtomics.booleanField(MethodHandles.lookup(), Account.class, "frozen");
+        
+        volatile long balance;
+        volatile boolean frozen;
+    }
+
+    /**
+     * 演示基于VarHandle的字段级原子操作
+     */
+    public static void demonstrateFieldAtomics() {
+        System.out.println("\n========== 字段级原子操作(VarHandle)演示 ==========");
+        
+        Account account = new Account();
+        
+        Thread[] threads = new Thread[10];
+        for (int i = 0; i < 10; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    FieldAtomics.Longs.incrementAndGet(Account.BALANCE, account);
+                }
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        System.out.println("balance: " + FieldAtomics.Longs.get(Account.BALANCE, account) + " (预期: 10000)");
+        System.out.println("compareAndSet(10000, 0): " + FieldAtomics.Longs.compareAndSet(Account.BALANCE, account, 10000, 0));
+        FieldAtomics.Booleans.setRelease(Account.FROZEN, account, true);
+        System.out.println("frozen(getAcquire): " + FieldAtomics.Booleans.getAcquire(Account.FROZEN, account));
+        
+        try {
+            FieldAtomics.longField(MethodHandles.lookup(), AtomicClassDemo.class, "normalInt");
+        } catch (IllegalArgumentException e) {
+            System.out.println("static/非volatile/类型不符的字段会被拒绝: " + e.getMessage());
+        }
+        System.out.println("✓ 没有额外的原子对象，每个字段省掉一个对象头和一个引用");
+        
+        System.out.println("性能对比见 FieldAtomicsBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示自适应分段计数器：竞争出现后才拆分成多个cell
+     */
+    public static void demonstrateStripedCounter() {
+        System.out.println("\n========== 自适应分段计数器演示 ==========");
+        
+        StripedCounter counter = new StripedCounter();
+        counter.increment();
+        System.out.println("单线程递增后分段数: " + counter.cellCount() + " (只用base)");
+        
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    counter.increment();
+                }
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        System.out.println("sum(): " + counter.sum() + " (预期: 400001)");
+        System.out.println("多线程递增后分段数: " + counter.cellCount());
+        System.out.println("✓ 无竞争时等同AtomicLong，有竞争时等同LongAdder");
+        
+        System.out.println("性能对比见 StripedCounterBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示double累加器和一致性统计快照
+     */
+    public static void demonstrateDoubleAccumulators() {
+        System.out.println("\n========== double累加器与统计快照演示 ==========");
+        
+        StripedDoubleAccumulator maxLatency = StripedDoubleAccumulator.max();
+        StripedDoubleAccumulator totalLatency = StripedDoubleAccumulator.sum();
+        ConcurrentStatsAccumulator stats = new ConcurrentStatsAccumulator();
+        
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int id = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 1; j <= 1000; j++) {
+                    double latency = j * 0.5 + id;
+                    maxLatency.accumulate(latency);
+                    totalLatency.accumulate(latency);
+                    stats.record(latency);
+                }
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        System.out.println("最大延迟: " + maxLatency.get() + " (预期: 503.0)");
+        System.out.println("延迟总和: " + totalLatency.get() + " (预期: 1007000.0)");
+        System.out.println("统计快照: " + stats.snapshot());
+        System.out.println("取出并清零: " + stats.snapshotThenReset().getCount() + ", 清零后: " + stats.snapshot().getCount());
+        System.out.println("✓ double以原始位模式存在long里做CAS；统计快照中count/sum/min/max相互一致");
+        
+        System.out.println("性能对比见 DoubleAccumulatorBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示顺序锁：多个字段一起更新，读端无锁地读到一致快照
+     */
+    public static void demonstrateSeqLockRecord() {
+        System.out.println("\n========== SeqLock一致快照演示 ==========");
+        
+        final int requests = 0;
+        final int bytes = 1;
+        final int healthy = 2;
+        SeqLockRecord record = new SeqLockRecord(3);
+        record.writeLock();
+        try {
+            record.set(healthy, 1); // 初始状态: requests=0, healthy=true
+        } finally {
+            record.writeUnlock();
+        }
+        
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 100000; i++) {
+                record.writeLock();
+                try {
+                    record.set(requests, i);
+                    record.set(bytes, i * 100L);
+                    record.set(healthy, i % 2 == 0 ? 1 : 0);
+                } finally {
+                    record.writeUnlock();
+                }
+            }
+        });
+        
+        Thread reader = new Thread(() -> {
+            long[] snapshot = new long[3];
+            int torn = 0;
+            long retries = 0;
+            for (int i = 0; i < 100000; i++) {
+                retries += record.readInto(snapshot);
+                if (snapshot[bytes] != snapshot[requests] * 100 || (snapshot[healthy] == 1) != (snapshot[requests] % 2 == 0)) {
+                    torn++;
+                }
+            }
+            System.out.println("读线程: 撕裂快照 " + torn + " 次, 重试 " + retries + " 次");
+        });
+        
+        writer.start();
+        reader.start();
+        
+        try {
+            writer.join();
+            reader.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        long[] last = record.snapshot();
+        System.out.println("最终快照: requests=" + last[requests] + ", bytes=" + last[bytes] +
+            ", healthy=" + (last[healthy] == 1) + ", 版本号=" + record.version());
+        System.out.println("✓ 读端不加锁不CAS，序列号前后一致才采用读到的值");
+        
+        System.out.println("性能对比见 SeqLockBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示基于单个AtomicLong的时间有序ID生成器
+     */
+    public static void demonstrateIdGenerator() {
+        System.out.println("\n========== 时间有序ID生成器演示 ==========");
+
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7);
+        long id = generator.nextId();
+        System.out.println("ID: " + id + " -> 时间戳=" + generator.timestampOf(id) +
+            ", 节点=" + generator.nodeOf(id) + ", 序列号=" + generator.sequenceOf(id));
+
+        // 多线程混用单个发号和批量发号，检查唯一性
+        int threads = 4;
+        int perThread = 10000;
+        long[] ids = new long[threads * perThread];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * perThread;
+            final boolean batched = t % 2 == 0;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids[offset + i] = batched ? generator.nextIdBatched() : generator.nextId();
+                }
+            });
+            workers[t].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        long distinct = Arrays.stream(ids).distinct().count();
+        System.out.println(threads + "个线程生成 " + ids.length + " 个ID, 不重复: " + distinct);
+
+        // 注入可回拨的时钟
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        TimeOrderedIdGenerator manual = new TimeOrderedIdGenerator(7, 10, TimeOrderedIdGenerator.DEFAULT_EPOCH,
+            1000, 5000, 64, clock::get);
+        long before = manual.nextId();
+        clock.addAndGet(-500);
+        long afterRegression = manual.nextId();
+        System.out.println("时钟回拨500ms: " + before + " -> " + afterRegression + ", 仍然递增: " + (afterRegression > before) +
+            ", 借用时间: " + manual.borrowedMillis() + "ms");
+        clock.addAndGet(-10000);
+        try {
+            manual.nextId();
+        } catch (IllegalStateException e) {
+            System.out.println("时钟再回拨10s: " + e.getMessage());
+        }
+        System.out.println("✓ 一个long保存逻辑时间和序列号，一次CAS发号；小幅回拨借用逻辑时间，大幅回拨报错");
+
+        System.out.println("性能对比见 IdGeneratorBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 综合演示原子类
      */
@@ -335,10 +774,19 @@ public class AtomicClassDemo {
         demonstrateAtomicInteger();
         demonstrateAtomicIntegerMethods();
         demonstrateCAS();
+        demonstrateCasTelemetry();
         demonstrateAtomicReference();
         demonstrateABAProblem();
+        demonstrateIndexedTreiberStack();
         demonstrateAtomicArray();
+        demonstratePaddedAtomicArray();
+        demonstrateOffHeapAtomicArray();
         demonstrateOtherAtomicClasses();
+        demonstrateFieldAtomics();
+        demonstrateStripedCounter();
+        demonstrateDoubleAccumulators();
+        demonstrateSeqLockRecord();
+        demonstrateIdGenerator();
     }
 }
 
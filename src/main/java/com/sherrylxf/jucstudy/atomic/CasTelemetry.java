@@ -0,0 +1,303 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * CAS重试次数统计：带埋点的 updateAndGet / accumulateAndGet 循环 + 轻量级注册表
+ *
+ * AtomicLong.updateAndGet 等方法内部的CAS重试对调用方不可见，线上无法知道哪个原子变量竞争最激烈。
+ * 用法：每个调用点声明一个 static final 的 Site，用它代替原子类自带的方法
+ *
+ * <pre>
+ * private static final CasTelemetry.Site BALANCE_SITE = CasTelemetry.site("account.balance");
+ * BALANCE_SITE.accumulateAndGet(balance, amount, Long::sum);
+ * </pre>
+ *
+ * 每个调用点统计：调用次数、CAS失败次数（尝试次数 = 调用 + 失败）、单次调用的最长连续失败；
+ * 计数器用 StripedCounter，热点调用点上的统计本身不会成为新的竞争点。
+ * 无失败的调用只多一次计数；setEnabled(false) 后直接委托给原子类自带的方法，只多一次volatile读和分支。
+ * 循环里用强CAS而不是weakCompareAndSet，避免把LL/SC架构上的伪失败也统计成竞争。
+ */
+public final class CasTelemetry {
+
+    private static final ConcurrentMap<String, Site> SITES = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("jucstudy.cas.telemetry"));
+
+    private CasTelemetry() {
+    }
+
+    /**
+     * 获取（不存在则创建）指定名称的调用点，建议保存为 static final 常量
+     */
+    public static Site site(String name) {
+        return SITES.computeIfAbsent(name, Site::new);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 全局开关，也可以用 -Djucstudy.cas.telemetry=false 在启动时关闭
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * 所有调用点的统计快照，按CAS失败次数从多到少排序
+     */
+    public static List<SiteStats> snapshot() {
+        List<SiteStats> result = new ArrayList<>();
+        for (Site site : SITES.values()) {
+            result.add(site.stats());
+        }
+        result.sort(Comparator.comparingLong(SiteStats::getFailures).reversed());
+        return result;
+    }
+
+    /**
+     * 最热的前n个调用点，格式化为文本表格
+     */
+    public static String report(int n) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %14s %14s %10s %10s%n", "调用点", "调用次数", "CAS失败", "失败率", "最长连败"));
+        List<SiteStats> stats = snapshot();
+        for (int i = 0; i < Math.min(n, stats.size()); i++) {
+            SiteStats s = stats.get(i);
+            sb.append(String.format("%-28s %14d %14d %9.2f%% %10d%n",
+                    s.getName(), s.getCalls(), s.getFailures(), s.getFailureRate() * 100, s.getMaxRetryStreak()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 清零所有调用点的统计（调用点本身保留）
+     */
+    public static void reset() {
+        for (Site site : SITES.values()) {
+            site.reset();
+        }
+    }
+
+    /**
+     * 一个埋点调用点
+     */
+    public static final class Site {
+        private final String name;
+        private final StripedCounter calls = new StripedCounter();
+        private final StripedCounter failures = new StripedCounter();
+        private final AtomicLong maxRetryStreak = new AtomicLong();
+
+        Site(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long updateAndGet(AtomicLong target, LongUnaryOperator function) {
+            if (!enabled) {
+                return target.updateAndGet(function);
+            }
+            long prev = target.get();
+            int failed = 0;
+            for (;;) {
+                long next = function.applyAsLong(prev);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return next;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        public long getAndUpdate(AtomicLong target, LongUnaryOperator function) {
+            if (!enabled) {
+                return target.getAndUpdate(function);
+            }
+            long prev = target.get();
+            int failed = 0;
+            for (;;) {
+                long next = function.applyAsLong(prev);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return prev;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        public long accumulateAndGet(AtomicLong target, long x, LongBinaryOperator function) {
+            if (!enabled) {
+                return target.accumulateAndGet(x, function);
+            }
+            long prev = target.get();
+            int failed = 0;
+            for (;;) {
+                long next = function.applyAsLong(prev, x);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return next;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        public int updateAndGet(AtomicInteger target, IntUnaryOperator function) {
+            if (!enabled) {
+                return target.updateAndGet(function);
+            }
+            int prev = target.get();
+            int failed = 0;
+            for (;;) {
+                int next = function.applyAsInt(prev);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return next;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        public int accumulateAndGet(AtomicInteger target, int x, IntBinaryOperator function) {
+            if (!enabled) {
+                return target.accumulateAndGet(x, function);
+            }
+            int prev = target.get();
+            int failed = 0;
+            for (;;) {
+                int next = function.applyAsInt(prev, x);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return next;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        public <V> V updateAndGet(AtomicReference<V> target, UnaryOperator<V> function) {
+            if (!enabled) {
+                return target.updateAndGet(function);
+            }
+            V prev = target.get();
+            int failed = 0;
+            for (;;) {
+                V next = function.apply(prev);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return next;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        public <V> V getAndUpdate(AtomicReference<V> target, UnaryOperator<V> function) {
+            if (!enabled) {
+                return target.getAndUpdate(function);
+            }
+            V prev = target.get();
+            int failed = 0;
+            for (;;) {
+                V next = function.apply(prev);
+                if (target.compareAndSet(prev, next)) {
+                    record(failed);
+                    return prev;
+                }
+                failed++;
+                prev = target.get();
+            }
+        }
+
+        private void record(int failed) {
+            calls.increment();
+            if (failed > 0) {
+                failures.add(failed);
+                long max = maxRetryStreak.get();
+                // 只有刷新最大值时才写，绝大多数调用不碰这个共享变量
+                while (failed > max && !maxRetryStreak.compareAndSet(max, failed)) {
+                    max = maxRetryStreak.get();
+                }
+            }
+        }
+
+        public SiteStats stats() {
+            return new SiteStats(name, calls.sum(), failures.sum(), maxRetryStreak.get());
+        }
+
+        void reset() {
+            calls.reset();
+            failures.reset();
+            maxRetryStreak.set(0);
+        }
+    }
+
+    /**
+     * 调用点统计快照
+     */
+    public static final class SiteStats {
+        private final String name;
+        private final long calls;
+        private final long failures;
+        private final long maxRetryStreak;
+
+        SiteStats(String name, long calls, long failures, long maxRetryStreak) {
+            this.name = name;
+            this.calls = calls;
+            this.failures = failures;
+            this.maxRetryStreak = maxRetryStreak;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getAttempts() {
+            return calls + failures;
+        }
+
+        /**
+         * 失败次数 / 尝试次数
+         */
+        public double getFailureRate() {
+            long attempts = getAttempts();
+            return attempts == 0 ? 0.0 : (double) failures / attempts;
+        }
+
+        public long getMaxRetryStreak() {
+            return maxRetryStreak;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{calls=" + calls + ", failures=" + failures + ", maxRetryStreak=" + maxRetryStreak + "}";
+        }
+    }
+}
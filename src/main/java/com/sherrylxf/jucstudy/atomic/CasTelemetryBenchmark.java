@@ -0,0 +1,114 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CasTelemetry 的开销：AtomicLong.accumulateAndGet 原生调用 vs 埋点（开启/关闭），1 到 2×CPU核数个线程
+ * 最后打印注册表，演示如何从统计里找出最热的原子变量
+ */
+public class CasTelemetryBenchmark {
+
+    private static final int OPS_PER_THREAD = 2_000_000;
+
+    private static final CasTelemetry.Site HOT_SITE = CasTelemetry.site("benchmark.hotCounter");
+    private static final CasTelemetry.Site COLD_SITE = CasTelemetry.site("benchmark.perThreadMax");
+
+    /**
+     * threads个线程各执行OPS_PER_THREAD次op，返回耗时（纳秒）
+     */
+    static long run(int threads, Runnable op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    public static void demonstrateOverhead() {
+        System.out.println("\n========== CAS埋点开销：原生 vs 埋点开启 vs 埋点关闭 ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean wasEnabled = CasTelemetry.isEnabled();
+        System.out.println("CPU核数: " + cores + ", 每线程accumulateAndGet次数: " + OPS_PER_THREAD);
+        System.out.printf("%-6s %14s %14s %14s %12s%n", "线程数", "原生", "埋点开启", "埋点关闭", "CAS失败率");
+        System.out.println("       (单位: 百万次/秒)");
+
+        try {
+            AtomicLong warm = new AtomicLong();
+            run(2, () -> warm.accumulateAndGet(1, Long::sum));
+            run(2, () -> HOT_SITE.accumulateAndGet(warm, 1, Long::sum));
+
+            for (int threads : ContentionScalingHarness.threadCounts()) {
+                AtomicLong counter = new AtomicLong();
+                long nativeNanos = run(threads, () -> counter.accumulateAndGet(1, Long::sum));
+
+                CasTelemetry.setEnabled(true);
+                CasTelemetry.reset();
+                long enabledNanos = run(threads, () -> HOT_SITE.accumulateAndGet(counter, 1, Long::sum));
+                CasTelemetry.SiteStats stats = HOT_SITE.stats();
+
+                CasTelemetry.setEnabled(false);
+                long disabledNanos = run(threads, () -> HOT_SITE.accumulateAndGet(counter, 1, Long::sum));
+                CasTelemetry.setEnabled(true);
+
+                if (counter.get() != 3L * threads * OPS_PER_THREAD) {
+                    throw new IllegalStateException("计数错误: " + counter.get());
+                }
+                double ops = (double) threads * OPS_PER_THREAD * 1000.0;
+                System.out.printf("%-6d %14.2f %14.2f %14.2f %11.2f%%%n", threads,
+                        ops / nativeNanos, ops / enabledNanos, ops / disabledNanos, stats.getFailureRate() * 100);
+            }
+
+            // 注册表：一个所有线程共享的热点，一个每线程各自的冷点
+            CasTelemetry.reset();
+            AtomicLong shared = new AtomicLong();
+            int threads = Math.max(2, cores * 2);
+            AtomicLong[] perThread = new AtomicLong[threads];
+            for (int i = 0; i < threads; i++) {
+                perThread[i] = new AtomicLong();
+            }
+            AtomicLong nextIndex = new AtomicLong();
+            ThreadLocal<AtomicLong> own = ThreadLocal.withInitial(() -> perThread[(int) nextIndex.getAndIncrement()]);
+            run(threads, () -> {
+                HOT_SITE.updateAndGet(shared, v -> v + 1);
+                COLD_SITE.accumulateAndGet(own.get(), 1, Math::max);
+            });
+            System.out.println();
+            System.out.println("注册表（按CAS失败次数排序）:");
+            System.out.print(CasTelemetry.report(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            CasTelemetry.setEnabled(wasEnabled);
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 埋点只在CAS成功后记一次分段计数，失败时才多记失败数，开启后的开销与一次无竞争的CAS相当");
+        System.out.println("  - 关闭后直接委托原子类自带的方法，只多一次volatile读，可以常驻在生产代码里按需打开");
+        System.out.println("  - 失败率高、最长连败大的调用点，就是该换成LongAdder/分段结构的热点原子变量");
+    }
+
+    public static void main(String[] args) {
+        demonstrateOverhead();
+    }
+}
@@ -0,0 +1,222 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 并发统计累加器：count、sum、min、max、平方和，快照内部一致
+ *
+ * 用 LongAdder + DoubleAdder + DoubleAccumulator 各管一项时，读取是分别读的，
+ * 可能读到 count 已加、sum 还没加的状态，算出的均值甚至会落在 [min, max] 之外。
+ *
+ * 这里按线程探针哈希分成多个分段，每个分段带一个序列号（偶数空闲、奇数正在写）：
+ * - 写：CAS把序列号从偶数改成奇数，普通写5个字段，再release写回偶数；
+ *   抢不到就换一个分段，写线程之间不会互相等待
+ * - 读：先读序列号、再读字段、再确认序列号没变（与 StampedLock 的乐观读相同），
+ *   每个分段读到的都是某次完整更新之后的状态，合并后的快照满足 sum/count/min/max 之间的一致性
+ */
+public class ConcurrentStatsAccumulator {
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+    private static final VarHandle SEQ;
+
+    static {
+        try {
+            SEQ = MethodHandles.lookup().findVarHandle(StripeSeq.class, "seq", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class StripePadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class StripeSeq extends StripePadding {
+        volatile long seq;
+    }
+
+    /**
+     * 一个分段：字段由序列号保护，只在持有奇数序列号时写
+     */
+    @SuppressWarnings("unused")
+    static final class Stripe extends StripeSeq {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sumOfSquares;
+        long p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ConcurrentStatsAccumulator() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void record(double value) {
+        int probe = ThreadProbe.get();
+        for (;;) {
+            Stripe stripe = stripes[probe & (STRIPES - 1)];
+            long seq = stripe.seq;
+            if ((seq & 1) == 0 && SEQ.compareAndSet(stripe, seq, seq + 1)) {
+                stripe.count++;
+                stripe.sum += value;
+                if (value < stripe.min) {
+                    stripe.min = value;
+                }
+                if (value > stripe.max) {
+                    stripe.max = value;
+                }
+                stripe.sumOfSquares += value * value;
+                SEQ.setRelease(stripe, seq + 2);
+                return;
+            }
+            probe = ThreadProbe.advance();
+        }
+    }
+
+    /**
+     * 一致性快照，不阻塞写线程；某个分段正在被写时只对该分段短暂自旋重读
+     */
+    public Snapshot snapshot() {
+        Snapshot.Builder builder = new Snapshot.Builder();
+        for (Stripe stripe : stripes) {
+            for (;;) {
+                long seq = (long) SEQ.getAcquire(stripe);
+                if ((seq & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long count = stripe.count;
+                double sum = stripe.sum;
+                double min = stripe.min;
+                double max = stripe.max;
+                double sumOfSquares = stripe.sumOfSquares;
+                // 保证上面的字段读取不会被重排到下面的序列号校验之后
+                VarHandle.acquireFence();
+                if (stripe.seq == seq) {
+                    builder.merge(count, sum, min, max, sumOfSquares);
+                    break;
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 取出快照并清零：逐个分段获取写权限后读取、重置，期间的并发更新会计入下一个周期
+     */
+    public Snapshot snapshotThenReset() {
+        Snapshot.Builder builder = new Snapshot.Builder();
+        for (Stripe stripe : stripes) {
+            for (;;) {
+                long seq = stripe.seq;
+                if ((seq & 1) == 0 && SEQ.compareAndSet(stripe, seq, seq + 1)) {
+                    builder.merge(stripe.count, stripe.sum, stripe.min, stripe.max, stripe.sumOfSquares);
+                    stripe.count = 0;
+                    stripe.sum = 0;
+                    stripe.min = Double.POSITIVE_INFINITY;
+                    stripe.max = Double.NEGATIVE_INFINITY;
+                    stripe.sumOfSquares = 0;
+                    SEQ.setRelease(stripe, seq + 2);
+                    break;
+                }
+                Thread.onSpinWait();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 不可变的统计快照
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final double sum;
+        private final double min;
+        private final double max;
+        private final double sumOfSquares;
+
+        Snapshot(long count, double sum, double min, double max, double sumOfSquares) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.sumOfSquares = sumOfSquares;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * 没有数据时为 NaN
+         */
+        public double getMin() {
+            return count == 0 ? Double.NaN : min;
+        }
+
+        public double getMax() {
+            return count == 0 ? Double.NaN : max;
+        }
+
+        public double getSumOfSquares() {
+            return sumOfSquares;
+        }
+
+        public double getMean() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        /**
+         * 总体方差 E[x²] - E[x]²
+         */
+        public double getVariance() {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            double mean = sum / count;
+            return Math.max(0.0, sumOfSquares / count - mean * mean);
+        }
+
+        public double getStdDev() {
+            return Math.sqrt(getVariance());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, mean=%.3f, min=%.3f, max=%.3f, stddev=%.3f",
+                    count, getMean(), getMin(), getMax(), getStdDev());
+        }
+
+        static final class Builder {
+            private long count;
+            private double sum;
+            private double min = Double.POSITIVE_INFINITY;
+            private double max = Double.NEGATIVE_INFINITY;
+            private double sumOfSquares;
+
+            void merge(long count, double sum, double min, double max, double sumOfSquares) {
+                this.count += count;
+                this.sum += sum;
+                this.min = Math.min(this.min, min);
+                this.max = Math.max(this.max, max);
+                this.sumOfSquares += sumOfSquares;
+            }
+
+            Snapshot build() {
+                return new Snapshot(count, sum, min, max, sumOfSquares);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * 伪共享对比：每个线程只递增自己下标的元素，线程之间没有逻辑上的共享，
+ * 比较紧凑存放的 AtomicIntegerArray / AtomicLongArray 与按缓存行隔开的 PaddedAtomicLongArray
+ */
+public class FalseSharingBenchmark {
+
+    private static final int OPS_PER_THREAD = 10_000_000;
+
+    /**
+     * 第t个线程执行OPS_PER_THREAD次op(t)，返回耗时（纳秒）
+     */
+    static long run(int threads, IntConsumer op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.accept(index);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    public static void demonstrateFalseSharing() {
+        System.out.println("\n========== 伪共享：AtomicLongArray vs PaddedAtomicLongArray ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("CPU核数: " + cores + ", 每线程递增次数: " + OPS_PER_THREAD);
+        System.out.printf("%-6s %16s %16s %16s %16s%n", "线程数",
+                "IntegerArray", "LongArray", "Padded(8)", "Padded(16)");
+        System.out.println("       (单位: 百万次/秒，越大越好)");
+
+        try {
+            // 预热
+            AtomicLongArray warm = new AtomicLongArray(2);
+            run(2, warm::incrementAndGet);
+            PaddedAtomicLongArray warmPadded = new PaddedAtomicLongArray(2);
+            run(2, warmPadded::incrementAndGet);
+
+            for (int threads : ContentionScalingHarness.threadCounts(Math.max(2, cores))) {
+                AtomicIntegerArray ints = new AtomicIntegerArray(threads);
+                AtomicLongArray longs = new AtomicLongArray(threads);
+                PaddedAtomicLongArray padded = new PaddedAtomicLongArray(threads);
+                PaddedAtomicLongArray padded16 = new PaddedAtomicLongArray(threads, 16);
+
+                long intNanos = run(threads, ints::incrementAndGet);
+                long longNanos = run(threads, longs::incrementAndGet);
+                long paddedNanos = run(threads, padded::incrementAndGet);
+                long padded16Nanos = run(threads, padded16::incrementAndGet);
+
+                for (int i = 0; i < threads; i++) {
+                    if (ints.get(i) != OPS_PER_THREAD || longs.get(i) != OPS_PER_THREAD
+                            || padded.get(i) != OPS_PER_THREAD || padded16.get(i) != OPS_PER_THREAD) {
+                        throw new IllegalStateException("计数错误, index=" + i);
+                    }
+                }
+
+                double ops = (double) threads * OPS_PER_THREAD * 1000.0;
+                System.out.printf("%-6d %16.2f %16.2f %16.2f %16.2f%n", threads,
+                        ops / intNanos, ops / longNanos, ops / paddedNanos, ops / padded16Nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 单线程时四者相近；线程数增加后，紧凑数组的\"独立\"计数器在同一缓存行上来回失效");
+        System.out.println("  - 按缓存行隔开后每个线程独占自己的缓存行，多核机器上吞吐量随线程数近似线性增长");
+        System.out.println("  - 代价是内存：stride=8时每个元素占64字节，只适合数量少、写入频繁的槽位（如每线程计数器）");
+    }
+
+    public static void main(String[] args) {
+        demonstrateFalseSharing();
+    }
+}
@@ -0,0 +1,367 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基于 VarHandle 的字段级原子操作
+ *
+ * 对象里每个状态都用 AtomicLong / AtomicInteger / AtomicBoolean / AtomicReference 包一层，
+ * 每个字段要多一个对象头（12~16字节）加一个引用（4~8字节），对象数量一大就很可观。
+ * 这里改为直接在用户类的 volatile 字段上做原子操作：xxxField() 校验字段后返回 VarHandle，
+ * 调用方把它存进自己的 static final 字段，再交给 Longs / Ints / Booleans / References 里的静态方法：
+ *
+ * <pre>
+ * class Session {
+ *     private static final VarHandle HITS = FieldAtomics.longField(MethodHandles.lookup(), Session.class, "hits");
+ *     private volatile long hits;
+ *
+ *     long hit() { return FieldAtomics.Longs.incrementAndGet(HITS, this); }
+ * }
+ * </pre>
+ *
+ * VarHandle 必须放在调用方的 static final 字段里：JIT只把 static final 当常量折叠，
+ * 放在访问器对象的实例字段里时每次调用都走不内联的通用路径（实测比 AtomicLong 慢约1.5倍）。
+ * 静态方法本身很小，会被内联到调用方，VarHandle 随之成为常量，生成的指令与 AtomicLong 相同。
+ *
+ * 与 AtomicXxxFieldUpdater 相比：没有每次调用的接收者类型检查，
+ * 并且提供 acquire/release 和 opaque 等更弱的内存模式：
+ * - volatile（get/set/CAS）：顺序一致，最强
+ * - acquire/release：单向屏障，足够用于"发布-订阅"式的单写者场景
+ * - opaque：只保证对单个变量的访问不被优化掉、按程序顺序可见，不建立 happens-before
+ * - plain：普通读写，只在确定没有并发时使用（如构造期间初始化）
+ */
+public final class FieldAtomics {
+
+    private FieldAtomics() {
+    }
+
+    public static VarHandle longField(MethodHandles.Lookup lookup, Class<?> owner, String name) {
+        return find(lookup, owner, name, long.class);
+    }
+
+    public static VarHandle intField(MethodHandles.Lookup lookup, Class<?> owner, String name) {
+        return find(lookup, owner, name, int.class);
+    }
+
+    public static VarHandle booleanField(MethodHandles.Lookup lookup, Class<?> owner, String name) {
+        return find(lookup, owner, name, boolean.class);
+    }
+
+    public static VarHandle referenceField(MethodHandles.Lookup lookup, Class<?> owner, String name, Class<?> type) {
+        return find(lookup, owner, name, type);
+    }
+
+    /**
+     * 查找字段并校验：必须是实例字段、必须声明为 volatile、类型必须匹配
+     * lookup 需要对该字段有访问权限，私有字段请在所属类中传入 MethodHandles.lookup()
+     */
+    private static VarHandle find(MethodHandles.Lookup lookup, Class<?> owner, String name, Class<?> type) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers)) {
+                throw new IllegalArgumentException("字段不能是static: " + owner.getName() + "." + name);
+            }
+            if (!Modifier.isVolatile(modifiers)) {
+                throw new IllegalArgumentException("字段必须声明为volatile: " + owner.getName() + "." + name);
+            }
+            if (field.getType() != type) {
+                throw new IllegalArgumentException("字段类型不匹配: " + owner.getName() + "." + name
+                        + " 是 " + field.getType().getName() + "，期望 " + type.getName());
+            }
+            return lookup.findVarHandle(owner, name, type);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("字段不存在: " + owner.getName() + "." + name, e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("无权访问字段: " + owner.getName() + "." + name, e);
+        }
+    }
+
+    /**
+     * volatile long 字段的原子操作，handle 来自 longField()
+     */
+    public static final class Longs {
+        private Longs() {
+        }
+
+        public static long get(VarHandle handle, Object obj) {
+            return (long) handle.getVolatile(obj);
+        }
+
+        public static void set(VarHandle handle, Object obj, long value) {
+            handle.setVolatile(obj, value);
+        }
+
+        public static long getAcquire(VarHandle handle, Object obj) {
+            return (long) handle.getAcquire(obj);
+        }
+
+        public static void setRelease(VarHandle handle, Object obj, long value) {
+            handle.setRelease(obj, value);
+        }
+
+        public static long getOpaque(VarHandle handle, Object obj) {
+            return (long) handle.getOpaque(obj);
+        }
+
+        public static void setOpaque(VarHandle handle, Object obj, long value) {
+            handle.setOpaque(obj, value);
+        }
+
+        public static long getPlain(VarHandle handle, Object obj) {
+            return (long) handle.get(obj);
+        }
+
+        public static void setPlain(VarHandle handle, Object obj, long value) {
+            handle.set(obj, value);
+        }
+
+        public static boolean compareAndSet(VarHandle handle, Object obj, long expected, long update) {
+            return handle.compareAndSet(obj, expected, update);
+        }
+
+        /**
+         * plain语义的弱CAS：可能伪失败（即使值等于expected也返回false），只能用在重试循环里，
+         * 也不建立happens-before；在LL/SC架构上比compareAndSet便宜
+         */
+        public static boolean weakCompareAndSet(VarHandle handle, Object obj, long expected, long update) {
+            return handle.weakCompareAndSetPlain(obj, expected, update);
+        }
+
+        public static long compareAndExchange(VarHandle handle, Object obj, long expected, long update) {
+            return (long) handle.compareAndExchange(obj, expected, update);
+        }
+
+        public static long getAndSet(VarHandle handle, Object obj, long value) {
+            return (long) handle.getAndSet(obj, value);
+        }
+
+        public static long getAndAdd(VarHandle handle, Object obj, long delta) {
+            return (long) handle.getAndAdd(obj, delta);
+        }
+
+        public static long addAndGet(VarHandle handle, Object obj, long delta) {
+            return (long) handle.getAndAdd(obj, delta) + delta;
+        }
+
+        public static long getAndIncrement(VarHandle handle, Object obj) {
+            return (long) handle.getAndAdd(obj, 1L);
+        }
+
+        public static long incrementAndGet(VarHandle handle, Object obj) {
+            return (long) handle.getAndAdd(obj, 1L) + 1L;
+        }
+
+        public static long decrementAndGet(VarHandle handle, Object obj) {
+            return (long) handle.getAndAdd(obj, -1L) - 1L;
+        }
+
+        /**
+         * 写端只带release语义的累加，比getAndAdd弱（x86上两者相同，ARM上可省掉一个屏障）
+         */
+        public static long getAndAddRelease(VarHandle handle, Object obj, long delta) {
+            return (long) handle.getAndAddRelease(obj, delta);
+        }
+
+        public static long updateAndGet(VarHandle handle, Object obj, LongUnaryOperator function) {
+            long prev = (long) handle.getVolatile(obj);
+            for (;;) {
+                long next = function.applyAsLong(prev);
+                long witness = (long) handle.compareAndExchange(obj, prev, next);
+                if (witness == prev) {
+                    return next;
+                }
+                prev = witness;
+            }
+        }
+    }
+
+    /**
+     * volatile int 字段的原子操作，handle 来自 intField()
+     */
+    public static final class Ints {
+        private Ints() {
+        }
+
+        public static int get(VarHandle handle, Object obj) {
+            return (int) handle.getVolatile(obj);
+        }
+
+        public static void set(VarHandle handle, Object obj, int value) {
+            handle.setVolatile(obj, value);
+        }
+
+        public static int getAcquire(VarHandle handle, Object obj) {
+            return (int) handle.getAcquire(obj);
+        }
+
+        public static void setRelease(VarHandle handle, Object obj, int value) {
+            handle.setRelease(obj, value);
+        }
+
+        public static int getOpaque(VarHandle handle, Object obj) {
+            return (int) handle.getOpaque(obj);
+        }
+
+        public static void setOpaque(VarHandle handle, Object obj, int value) {
+            handle.setOpaque(obj, value);
+        }
+
+        public static int getPlain(VarHandle handle, Object obj) {
+            return (int) handle.get(obj);
+        }
+
+        public static void setPlain(VarHandle handle, Object obj, int value) {
+            handle.set(obj, value);
+        }
+
+        public static boolean compareAndSet(VarHandle handle, Object obj, int expected, int update) {
+            return handle.compareAndSet(obj, expected, update);
+        }
+
+        public static boolean weakCompareAndSet(VarHandle handle, Object obj, int expected, int update) {
+            return handle.weakCompareAndSetPlain(obj, expected, update);
+        }
+
+        public static int compareAndExchange(VarHandle handle, Object obj, int expected, int update) {
+            return (int) handle.compareAndExchange(obj, expected, update);
+        }
+
+        public static int getAndSet(VarHandle handle, Object obj, int value) {
+            return (int) handle.getAndSet(obj, value);
+        }
+
+        public static int getAndAdd(VarHandle handle, Object obj, int delta) {
+            return (int) handle.getAndAdd(obj, delta);
+        }
+
+        public static int addAndGet(VarHandle handle, Object obj, int delta) {
+            return (int) handle.getAndAdd(obj, delta) + delta;
+        }
+
+        public static int incrementAndGet(VarHandle handle, Object obj) {
+            return (int) handle.getAndAdd(obj, 1) + 1;
+        }
+
+        public static int decrementAndGet(VarHandle handle, Object obj) {
+            return (int) handle.getAndAdd(obj, -1) - 1;
+        }
+
+        /**
+         * 原子地置位，返回置位前的值；常用于状态位标记
+         */
+        public static int getAndBitwiseOr(VarHandle handle, Object obj, int mask) {
+            return (int) handle.getAndBitwiseOr(obj, mask);
+        }
+
+        public static int getAndBitwiseAnd(VarHandle handle, Object obj, int mask) {
+            return (int) handle.getAndBitwiseAnd(obj, mask);
+        }
+    }
+
+    /**
+     * volatile boolean 字段的原子操作，handle 来自 booleanField()
+     */
+    public static final class Booleans {
+        private Booleans() {
+        }
+
+        public static boolean get(VarHandle handle, Object obj) {
+            return (boolean) handle.getVolatile(obj);
+        }
+
+        public static void set(VarHandle handle, Object obj, boolean value) {
+            handle.setVolatile(obj, value);
+        }
+
+        public static boolean getAcquire(VarHandle handle, Object obj) {
+            return (boolean) handle.getAcquire(obj);
+        }
+
+        public static void setRelease(VarHandle handle, Object obj, boolean value) {
+            handle.setRelease(obj, value);
+        }
+
+        public static boolean getOpaque(VarHandle handle, Object obj) {
+            return (boolean) handle.getOpaque(obj);
+        }
+
+        public static void setOpaque(VarHandle handle, Object obj, boolean value) {
+            handle.setOpaque(obj, value);
+        }
+
+        public static boolean compareAndSet(VarHandle handle, Object obj, boolean expected, boolean update) {
+            return handle.compareAndSet(obj, expected, update);
+        }
+
+        public static boolean getAndSet(VarHandle handle, Object obj, boolean value) {
+            return (boolean) handle.getAndSet(obj, value);
+        }
+    }
+
+    /**
+     * volatile 引用字段的原子操作，handle 来自 referenceField()；V 由调用方保证与字段类型一致
+     */
+    public static final class References {
+        private References() {
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <V> V get(VarHandle handle, Object obj) {
+            return (V) handle.getVolatile(obj);
+        }
+
+        public static void set(VarHandle handle, Object obj, Object value) {
+            handle.setVolatile(obj, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <V> V getAcquire(VarHandle handle, Object obj) {
+            return (V) handle.getAcquire(obj);
+        }
+
+        public static void setRelease(VarHandle handle, Object obj, Object value) {
+            handle.setRelease(obj, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <V> V getOpaque(VarHandle handle, Object obj) {
+            return (V) handle.getOpaque(obj);
+        }
+
+        public static void setOpaque(VarHandle handle, Object obj, Object value) {
+            handle.setOpaque(obj, value);
+        }
+
+        public static boolean compareAndSet(VarHandle handle, Object obj, Object expected, Object update) {
+            return handle.compareAndSet(obj, expected, update);
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <V> V compareAndExchange(VarHandle handle, Object obj, V expected, V update) {
+            return (V) handle.compareAndExchange(obj, expected, update);
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <V> V getAndSet(VarHandle handle, Object obj, V value) {
+            return (V) handle.getAndSet(obj, value);
+        }
+
+        public static <V> V updateAndGet(VarHandle handle, Object obj, UnaryOperator<V> function) {
+            V prev = get(handle, obj);
+            for (;;) {
+                V next = function.apply(prev);
+                V witness = compareAndExchange(handle, obj, prev, next);
+                if (witness == prev) {
+                    return next;
+                }
+                prev = witness;
+            }
+        }
+    }
+}
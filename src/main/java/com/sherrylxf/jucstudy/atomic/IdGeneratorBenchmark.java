@@ -0,0 +1,148 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * ID生成吞吐量和分配量对比：synchronized 版 Snowflake / TimeOrderedIdGenerator / 线程本地批量预留 / AtomicLong自增
+ *
+ * 默认布局（10位节点ID、12位序列号）每毫秒只能发4096个ID，单节点上限约409.6万/秒，
+ * 超过后会借用未来时间再等待时钟；这里用4位节点ID、18位序列号，测的是生成路径本身的开销
+ */
+public class IdGeneratorBenchmark {
+
+    private static final int OPS_PER_THREAD = 2_000_000;
+    private static final int NODE_BITS = 4;
+    private static final int SEQUENCE_BITS = 22 - NODE_BITS;
+
+    /**
+     * 经典实现：synchronized + lastTimestamp + sequence，序列号用完自旋到下一毫秒，时钟回拨直接报错
+     */
+    static final class SynchronizedSnowflake {
+        private final long nodeId;
+        private long lastTimestamp = -1;
+        private long sequence;
+
+        SynchronizedSnowflake(long nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        synchronized long nextId() {
+            long now = System.currentTimeMillis() - TimeOrderedIdGenerator.DEFAULT_EPOCH;
+            if (now < lastTimestamp) {
+                throw new IllegalStateException("时钟回拨: " + (lastTimestamp - now) + "ms");
+            }
+            if (now == lastTimestamp) {
+                sequence = (sequence + 1) & ((1L << SEQUENCE_BITS) - 1);
+                if (sequence == 0) {
+                    while (now <= lastTimestamp) {
+                        now = System.currentTimeMillis() - TimeOrderedIdGenerator.DEFAULT_EPOCH;
+                    }
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = now;
+            return (now << 22) | (nodeId << SEQUENCE_BITS) | sequence;
+        }
+    }
+
+    /**
+     * 返回 {耗时纳秒, 工作线程分配的字节数, 所有ID的异或（校验和）}
+     */
+    static long[] run(int threads, LongSupplier generator) throws InterruptedException {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LongAdder allocated = new LongAdder();
+        AtomicLong checksum = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long before = threadBean.getCurrentThreadAllocatedBytes();
+                    long sink = 0;
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        sink ^= generator.getAsLong();
+                    }
+                    allocated.add(threadBean.getCurrentThreadAllocatedBytes() - before);
+                    checksum.accumulateAndGet(sink, (a, b) -> a ^ b);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return new long[]{System.nanoTime() - begin, allocated.sum(), checksum.get()};
+    }
+
+    public static void demonstrateThroughput() {
+        System.out.println("\n========== ID生成器吞吐量对比 ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        String[] names = {"synchronized Snowflake", "TimeOrderedIdGenerator", "nextIdBatched(64)", "AtomicLong自增(下限)"};
+        System.out.println("CPU核数: " + cores + ", 每线程生成: " + OPS_PER_THREAD + ", 布局: 41位时间戳 + "
+                + NODE_BITS + "位节点 + " + SEQUENCE_BITS + "位序列号");
+        System.out.printf("%-6s %-24s %14s %16s %12s%n", "线程", "实现", "百万个/秒", "每线程百万个/秒", "字节/个");
+
+        long checksum = 0;
+        try {
+            for (int threads : ContentionScalingHarness.threadCounts()) {
+                for (int k = 0; k < names.length; k++) {
+                    LongSupplier generator = newGenerator(k);
+                    // 预热一轮，JIT编译和ThreadLocal初始化不计入结果
+                    run(threads, generator);
+                    long[] result = run(threads, generator);
+                    checksum ^= result[2];
+                    long ids = (long) threads * OPS_PER_THREAD;
+                    double millionsPerSecond = ids * 1000.0 / result[0];
+                    System.out.printf("%-6d %-24s %14.2f %16.2f %12.3f%n", threads, names[k],
+                            millionsPerSecond, millionsPerSecond / threads, (double) result[1] / ids);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.println("(校验和: " + checksum + ")");
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 整个状态是一个long，生成一个ID只需一次CAS，不分配对象；竞争时只重试，不挂起线程");
+        System.out.println("  - 线程本地批量预留把CAS次数降到1/64，接近AtomicLong自增的下限，代价是跨线程只按毫秒大致有序");
+        System.out.println("  - synchronized版在竞争下会膨胀为重量级锁，时钟回拨时直接失败；无锁版借用逻辑时间继续发号");
+        System.out.println("  - 默认12位序列号每毫秒4096个，吞吐量高于此的节点要减少节点位数或使用多个nodeId");
+    }
+
+    private static LongSupplier newGenerator(int kind) {
+        switch (kind) {
+            case 0:
+                return new SynchronizedSnowflake(1)::nextId;
+            case 1:
+                return newLockFree()::nextId;
+            case 2:
+                return newLockFree()::nextIdBatched;
+            default:
+                return new AtomicLong()::incrementAndGet;
+        }
+    }
+
+    private static TimeOrderedIdGenerator newLockFree() {
+        return new TimeOrderedIdGenerator(1, NODE_BITS, TimeOrderedIdGenerator.DEFAULT_EPOCH,
+                1000, 5000, 64, System::currentTimeMillis);
+    }
+
+    public static void main(String[] args) {
+        demonstrateThroughput();
+    }
+}
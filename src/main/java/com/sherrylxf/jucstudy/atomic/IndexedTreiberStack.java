@@ -0,0 +1,153 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无分配、防ABA的有界Treiber栈
+ *
+ * 普通Treiber栈每次push都要new一个节点；用AtomicStampedReference防ABA时，每次CAS成功还要再new一个Pair。
+ * 这里改为：
+ * - 所有节点预先分配在数组里，节点用下标表示，next 指针是一个 int 数组
+ * - 栈顶是一个 long：高32位是版本号，低32位是"下标+1"（0表示空栈），每次CAS成功版本号加一
+ * - 空闲槽位本身也组成一个同样结构的栈（free list），push从free list取槽位，pop后把槽位还回去
+ *
+ * 这样稳定状态下 push/pop 不分配任何对象；版本号和下标在同一个CAS字里一起比较，
+ * 即使同一个下标被弹出又压回（A→B→A），版本号也已经变了，CAS会失败，不会出现ABA问题。
+ * 32位版本号要在一次读-CAS之间回绕40多亿次才会误判，实际不可能发生。
+ */
+public class IndexedTreiberStack<E> {
+
+    private static final long INDEX_MASK = 0xFFFF_FFFFL;
+
+    private final Object[] items;
+    private final AtomicIntegerArray next;
+    /** 数据栈栈顶：版本号 << 32 | (下标 + 1) */
+    private final AtomicLong head = new AtomicLong();
+    /** 空闲槽位栈栈顶 */
+    private final AtomicLong freeHead = new AtomicLong();
+
+    public IndexedTreiberStack(int capacity) {
+        if (capacity <= 0 || capacity == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity非法: " + capacity);
+        }
+        items = new Object[capacity];
+        next = new AtomicIntegerArray(capacity);
+        // 初始时所有槽位都在free list上：0 -> 1 -> ... -> capacity-1
+        for (int i = 0; i < capacity - 1; i++) {
+            next.set(i, i + 2);
+        }
+        next.set(capacity - 1, 0);
+        freeHead.set(1);
+    }
+
+    /**
+     * 压栈
+     *
+     * @return false表示容量已满
+     */
+    public boolean push(E item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        int slot = popIndex(freeHead);
+        if (slot < 0) {
+            return false;
+        }
+        // 槽位此时只属于当前线程，普通写即可；后面的CAS会把它发布出去
+        items[slot] = item;
+        pushIndex(head, slot);
+        return true;
+    }
+
+    /**
+     * 弹栈
+     *
+     * @return 栈顶元素，栈为空返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E pop() {
+        int slot = popIndex(head);
+        if (slot < 0) {
+            return null;
+        }
+        E item = (E) items[slot];
+        items[slot] = null;
+        pushIndex(freeHead, slot);
+        return item;
+    }
+
+    /**
+     * 栈顶元素（不弹出）；并发下只是某一时刻的快照
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (;;) {
+            long h = head.get();
+            int slot = index(h);
+            if (slot < 0) {
+                return null;
+            }
+            Object item = items[slot];
+            // 普通读不能被重排到下面的复查之后，否则复查通过时读到的可能是复用后的元素
+            VarHandle.acquireFence();
+            // 读元素期间栈顶没变，说明槽位没有被弹出复用
+            if (head.get() == h) {
+                return (E) item;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return index(head.get()) < 0;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * 从 top 指向的栈弹出一个下标，空栈返回-1
+     */
+    private int popIndex(AtomicLong top) {
+        for (;;) {
+            long h = top.get();
+            int slot = index(h);
+            if (slot < 0) {
+                return -1;
+            }
+            // 这里读到的next可能已经过期（槽位被别人弹出又压回），但那样版本号必然变了，下面的CAS会失败
+            long update = nextVersion(h) | next.getOpaque(slot);
+            if (top.compareAndSet(h, update)) {
+                return slot;
+            }
+        }
+    }
+
+    private void pushIndex(AtomicLong top, int slot) {
+        for (;;) {
+            long h = top.get();
+            // 普通写即可：CAS成功时会把它一起发布，失败则下一轮覆盖
+            next.setPlain(slot, (int) (h & INDEX_MASK));
+            if (top.compareAndSet(h, nextVersion(h) | (slot + 1))) {
+                return;
+            }
+        }
+    }
+
+    private static int index(long word) {
+        return (int) (word & INDEX_MASK) - 1;
+    }
+
+    private static long nextVersion(long word) {
+        return ((word >>> 32) + 1) << 32;
+    }
+
+    /**
+     * 当前版本号（每次成功的push/pop各加一），用于观察
+     */
+    public int version() {
+        return (int) (head.get() >>> 32);
+    }
+}
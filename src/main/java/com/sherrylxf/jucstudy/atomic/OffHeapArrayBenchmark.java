@@ -0,0 +1,185 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * AtomicLongArray 与 OffHeapAtomicLongArray（direct / 内存映射文件）对比：
+ * 堆占用、堆外占用、Full GC耗时、多线程随机递增吞吐量
+ */
+public class OffHeapArrayBenchmark {
+
+    private static final int SLOTS = 32 * 1024 * 1024;
+    private static final int OPS_PER_THREAD = 5_000_000;
+
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static long bufferPoolBytes(String name) {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals(name)) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 执行几次 System.gc()，返回GC收集器报告的平均耗时（毫秒）
+     */
+    static double fullGcMillis() {
+        long before = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            before += gc.getCollectionTime();
+        }
+        int rounds = 5;
+        for (int i = 0; i < rounds; i++) {
+            System.gc();
+        }
+        long after = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            after += gc.getCollectionTime();
+        }
+        return (after - before) / (double) rounds;
+    }
+
+    /**
+     * threads个线程各对随机下标执行OPS_PER_THREAD次op，返回耗时（纳秒）
+     */
+    static long run(int threads, LongConsumer op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.accept(random.nextInt(SLOTS));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== AtomicLongArray vs OffHeapAtomicLongArray ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = Math.max(2, cores);
+        System.out.println("槽位数: " + SLOTS + " (" + (SLOTS * 8L >> 20) + "MB), 线程数: " + threads
+                + ", 每线程随机递增: " + OPS_PER_THREAD);
+        System.out.printf("%-22s %10s %10s %12s %14s%n", "实现", "堆(MB)", "堆外(MB)", "Full GC(ms)", "百万次/秒");
+
+        Path dir = null;
+        try {
+            double baselineGc = fullGcMillis();
+            measureOnHeap(threads);
+            measureDirect(threads);
+            dir = Files.createTempDirectory("offheap-array");
+            measureMapped(threads, dir.resolve("counters.bin"));
+            System.out.printf("(空堆时Full GC基线: %.1fms)%n", baselineGc);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            deleteQuietly(dir);
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 堆外数组只在堆上留几个ByteBuffer对象，堆可以按业务对象配置，不用为计数器预留几个GB");
+        System.out.println("  - G1把大数组当作humongous对象不复制，Full GC差别不大；Serial/Parallel等压缩式GC下差别更明显");
+        System.out.println("  - VarHandle直接对堆外地址做原子加，吞吐量略低于AtomicLongArray（多一次分块寻址），随机访问主要受缓存未命中限制");
+        System.out.println("  - 分块存放后下标是long，5亿个槽位(4GB)也只是30个buffer；文件模式下重启后数据还在");
+    }
+
+    /**
+     * 每种实现单独一个方法，返回后数组不可达，不影响下一种实现的GC测量
+     */
+    private static void measureOnHeap(int threads) throws InterruptedException {
+        long heapBefore = usedHeap();
+        AtomicLongArray onHeap = new AtomicLongArray(SLOTS);
+        long heap = usedHeap() - heapBefore;
+        double gc = fullGcMillis();
+        run(threads, i -> onHeap.incrementAndGet((int) i));
+        long nanos = run(threads, i -> onHeap.incrementAndGet((int) i));
+        print("AtomicLongArray", heap, 0, gc, threads, nanos);
+    }
+
+    private static void measureDirect(int threads) throws InterruptedException {
+        long directBefore = bufferPoolBytes("direct");
+        long heapBefore = usedHeap();
+        try (OffHeapAtomicLongArray direct = OffHeapAtomicLongArray.allocateDirect(SLOTS)) {
+            long heap = usedHeap() - heapBefore;
+            long offHeap = bufferPoolBytes("direct") - directBefore;
+            double gc = fullGcMillis();
+            run(threads, direct::incrementAndGet);
+            long nanos = run(threads, direct::incrementAndGet);
+            print("OffHeap(direct)", heap, offHeap, gc, threads, nanos);
+
+            long begin = System.nanoTime();
+            direct.reset();
+            System.out.printf("%-22s 批量清零 %dMB 耗时 %.1fms%n", "", SLOTS * 8L >> 20, (System.nanoTime() - begin) / 1e6);
+        }
+    }
+
+    private static void measureMapped(int threads, Path file) throws InterruptedException, IOException {
+        long mappedBefore = bufferPoolBytes("mapped");
+        long heapBefore = usedHeap();
+        try (OffHeapAtomicLongArray mapped = OffHeapAtomicLongArray.mapFile(file, SLOTS)) {
+            long heap = usedHeap() - heapBefore;
+            long offHeap = bufferPoolBytes("mapped") - mappedBefore;
+            double gc = fullGcMillis();
+            run(threads, mapped::incrementAndGet);
+            long nanos = run(threads, mapped::incrementAndGet);
+            print("OffHeap(mapped file)", heap, offHeap, gc, threads, nanos);
+        }
+    }
+
+    private static void print(String name, long heap, long offHeap, double gcMillis, int threads, long nanos) {
+        System.out.printf("%-22s %10.1f %10.1f %12.1f %14.2f%n", name, heap / 1024.0 / 1024.0,
+                offHeap / 1024.0 / 1024.0, gcMillis, (double) threads * OPS_PER_THREAD * 1000.0 / nanos);
+    }
+
+    private static void deleteQuietly(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
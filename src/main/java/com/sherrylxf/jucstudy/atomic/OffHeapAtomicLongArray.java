@@ -0,0 +1,206 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 堆外原子long数组，支持long下标，可选持久化到文件
+ *
+ * AtomicLongArray 在堆上、下标是int，最多21亿个元素；几亿个计数器放在堆上会拉长Full GC的复制/标记时间，
+ * 堆也要跟着配大。这里把数据放在 direct ByteBuffer 或内存映射文件里：
+ * - 每个 ByteBuffer 存 2^24 个long（128MB），多个 buffer 拼起来支持 long 下标
+ * - 原子操作用 MethodHandles.byteBufferViewVarHandle，direct/mapped buffer 上8字节对齐的位置支持CAS、getAndAdd
+ * - 文件模式下数据在页缓存里，进程重启后重新映射即可恢复；force() 刷盘防掉电
+ *
+ * direct/mapped 内存在 buffer 对象被GC回收时才释放（JDK没有公开的unmap），close() 之后不要再访问。
+ */
+public class OffHeapAtomicLongArray implements Closeable {
+
+    private static final int CHUNK_SHIFT = 24;
+    private static final long CHUNK_LONGS = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_LONGS - 1;
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private final ByteBuffer[] chunks;
+    private final long length;
+    private final Path file;
+    private volatile boolean closed;
+
+    private OffHeapAtomicLongArray(ByteBuffer[] chunks, long length, Path file) {
+        this.chunks = chunks;
+        this.length = length;
+        this.file = file;
+    }
+
+    /**
+     * 在 direct 内存中分配，初始全为0（受 -XX:MaxDirectMemorySize 限制）
+     */
+    public static OffHeapAtomicLongArray allocateDirect(long length) {
+        checkLength(length);
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkBytes(length, i));
+        }
+        return new OffHeapAtomicLongArray(chunks, length, null);
+    }
+
+    /**
+     * 映射文件；文件已存在时保留原有内容，不足的部分补0
+     */
+    public static OffHeapAtomicLongArray mapFile(Path file, long length) throws IOException {
+        checkLength(length);
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(length)];
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < chunks.length; i++) {
+                // 映射建立后即使关闭channel也依然有效
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << (CHUNK_SHIFT + 3), chunkBytes(length, i));
+            }
+        }
+        return new OffHeapAtomicLongArray(chunks, length, file);
+    }
+
+    private static void checkLength(long length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("length必须大于0: " + length);
+        }
+        if (((length + CHUNK_MASK) >>> CHUNK_SHIFT) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("length过大: " + length);
+        }
+    }
+
+    private static int chunkCount(long length) {
+        return (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    private static int chunkBytes(long length, int chunk) {
+        long remaining = length - ((long) chunk << CHUNK_SHIFT);
+        return (int) (Math.min(remaining, CHUNK_LONGS) << 3);
+    }
+
+    private ByteBuffer chunk(long index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for length " + length);
+        }
+        if (closed) {
+            throw new IllegalStateException("数组已关闭");
+        }
+        return chunks[(int) (index >>> CHUNK_SHIFT)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index & CHUNK_MASK) << 3;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long get(long index) {
+        return (long) LONG_VIEW.getVolatile(chunk(index), offset(index));
+    }
+
+    public void set(long index, long value) {
+        LONG_VIEW.setVolatile(chunk(index), offset(index), value);
+    }
+
+    public long getOpaque(long index) {
+        return (long) LONG_VIEW.getOpaque(chunk(index), offset(index));
+    }
+
+    public boolean compareAndSet(long index, long expected, long update) {
+        return LONG_VIEW.compareAndSet(chunk(index), offset(index), expected, update);
+    }
+
+    public long getAndSet(long index, long value) {
+        return (long) LONG_VIEW.getAndSet(chunk(index), offset(index), value);
+    }
+
+    public long getAndAdd(long index, long delta) {
+        return (long) LONG_VIEW.getAndAdd(chunk(index), offset(index), delta);
+    }
+
+    public long addAndGet(long index, long delta) {
+        return getAndAdd(index, delta) + delta;
+    }
+
+    public long incrementAndGet(long index) {
+        return addAndGet(index, 1L);
+    }
+
+    public long getAndIncrement(long index) {
+        return getAndAdd(index, 1L);
+    }
+
+    /**
+     * 把 [from, to) 批量清零；用普通的批量写入，与同一区间上的并发更新之间没有原子性保证
+     */
+    public void reset(long from, long to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") out of bounds for length " + length);
+        }
+        long i = from;
+        while (i < to) {
+            ByteBuffer buffer = chunk(i);
+            int start = offset(i);
+            long chunkEnd = Math.min(to, ((i >>> CHUNK_SHIFT) + 1) << CHUNK_SHIFT);
+            int end = start + (int) ((chunkEnd - i) << 3);
+            for (int pos = start; pos < end; pos += ZEROS.length) {
+                buffer.put(pos, ZEROS, 0, Math.min(ZEROS.length, end - pos));
+            }
+            i = chunkEnd;
+        }
+        // 批量写入是普通写，加一个屏障让之后的volatile读一定能看到清零结果
+        VarHandle.fullFence();
+    }
+
+    public void reset() {
+        reset(0, length);
+    }
+
+    /**
+     * 文件模式下把修改刷到磁盘；direct 模式下什么也不做
+     */
+    public void force() {
+        if (file == null) {
+            return;
+        }
+        for (ByteBuffer buffer : chunks) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    public boolean isPersistent() {
+        return file != null;
+    }
+
+    /**
+     * 堆外占用的字节数
+     */
+    public long offHeapBytes() {
+        return length << 3;
+    }
+
+    /**
+     * 文件模式下先刷盘；之后的访问会抛出 IllegalStateException
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+    }
+}
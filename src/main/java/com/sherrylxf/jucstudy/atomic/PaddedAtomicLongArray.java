@@ -0,0 +1,126 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按缓存行间隔存放元素的原子long数组，API与 AtomicLongArray 相同
+ *
+ * AtomicIntegerArray / AtomicLongArray 的相邻元素紧挨着存放，一个64字节缓存行能装16个int或8个long。
+ * 多个线程各自更新"自己的"下标时，只要这些下标落在同一缓存行，每次写都会让其他核上的该行失效，
+ * 也就是伪共享（false sharing）。
+ *
+ * 这里把逻辑下标 i 映射到底层数组的 (i + 1) * stride，相邻元素之间隔开 stride 个long；
+ * 开头多留一个 stride，避免第0个元素和数组对象头或前面的对象共享缓存行。
+ * 默认 stride=8（64字节）；部分Intel处理器会成对预取相邻缓存行，此时用16（128字节）效果更好。
+ */
+public class PaddedAtomicLongArray {
+
+    /** 默认间隔：8个long = 64字节 */
+    public static final int DEFAULT_STRIDE = 8;
+
+    private final AtomicLongArray array;
+    private final int length;
+    private final int stride;
+
+    public PaddedAtomicLongArray(int length) {
+        this(length, DEFAULT_STRIDE);
+    }
+
+    /**
+     * @param length 逻辑长度
+     * @param stride 相邻元素在底层数组中的间隔（以long为单位），必须大于0
+     */
+    public PaddedAtomicLongArray(int length, int stride) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length不能为负数: " + length);
+        }
+        if (stride <= 0) {
+            throw new IllegalArgumentException("stride必须大于0: " + stride);
+        }
+        long physical = ((long) length + 2) * stride;
+        if (physical > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("数组过大: length=" + length + ", stride=" + stride);
+        }
+        this.array = new AtomicLongArray((int) physical);
+        this.length = length;
+        this.stride = stride;
+    }
+
+    private int offset(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("index " + i + " out of bounds for length " + length);
+        }
+        return (i + 1) * stride;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int stride() {
+        return stride;
+    }
+
+    public long get(int i) {
+        return array.get(offset(i));
+    }
+
+    public void set(int i, long newValue) {
+        array.set(offset(i), newValue);
+    }
+
+    public void lazySet(int i, long newValue) {
+        array.lazySet(offset(i), newValue);
+    }
+
+    public long getAndSet(int i, long newValue) {
+        return array.getAndSet(offset(i), newValue);
+    }
+
+    public boolean compareAndSet(int i, long expectedValue, long newValue) {
+        return array.compareAndSet(offset(i), expectedValue, newValue);
+    }
+
+    public long getAndIncrement(int i) {
+        return array.getAndIncrement(offset(i));
+    }
+
+    public long getAndDecrement(int i) {
+        return array.getAndDecrement(offset(i));
+    }
+
+    public long getAndAdd(int i, long delta) {
+        return array.getAndAdd(offset(i), delta);
+    }
+
+    public long incrementAndGet(int i) {
+        return array.incrementAndGet(offset(i));
+    }
+
+    public long decrementAndGet(int i) {
+        return array.decrementAndGet(offset(i));
+    }
+
+    public long addAndGet(int i, long delta) {
+        return array.addAndGet(offset(i), delta);
+    }
+
+    /**
+     * 实际占用的元素个数（含填充），用于估算内存开销
+     */
+    public int physicalLength() {
+        return array.length();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,210 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 写负载下多字段一致读的对比：分别读三个原子变量 / ReentrantReadWriteLock / SeqLockRecord
+ *
+ * 写线程持续更新三个字段并保持不变式：bytes == requests * 100，healthy == (requests 是偶数)
+ * 读线程在固定时间内不断读快照，统计读吞吐量和违反不变式的撕裂读次数
+ */
+public class SeqLockBenchmark {
+
+    private static final long DURATION_MILLIS = 1000;
+
+    interface Snapshotter {
+        void write();
+
+        /**
+         * 读一次快照，返回是否满足不变式
+         */
+        boolean readConsistent();
+    }
+
+    /**
+     * 三个独立的原子变量，像 AtomicClassDemo 那样一个个读
+     */
+    static final class SeparateAtomics implements Snapshotter {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+        @Override
+        public void write() {
+            int r = requests.incrementAndGet();
+            bytes.set(r * 100L);
+            healthy.set((r & 1) == 0);
+        }
+
+        @Override
+        public boolean readConsistent() {
+            int r = requests.get();
+            long b = bytes.get();
+            boolean h = healthy.get();
+            return b == r * 100L && h == ((r & 1) == 0);
+        }
+    }
+
+    static final class ReadWriteLockRecord implements Snapshotter {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private int requests;
+        private long bytes;
+        private boolean healthy = true;
+
+        @Override
+        public void write() {
+            lock.writeLock().lock();
+            try {
+                requests++;
+                bytes = requests * 100L;
+                healthy = (requests & 1) == 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean readConsistent() {
+            lock.readLock().lock();
+            try {
+                return bytes == requests * 100L && healthy == ((requests & 1) == 0);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    static final class SeqLockSnapshotter implements Snapshotter {
+        static final int REQUESTS = 0;
+        static final int BYTES = 1;
+        static final int HEALTHY = 2;
+
+        private final SeqLockRecord record = new SeqLockRecord(3);
+        private final ThreadLocal<long[]> buffers = ThreadLocal.withInitial(() -> new long[3]);
+
+        SeqLockSnapshotter() {
+            record.writeLock();
+            try {
+                record.set(HEALTHY, 1);
+            } finally {
+                record.writeUnlock();
+            }
+        }
+
+        @Override
+        public void write() {
+            record.writeLock();
+            try {
+                long r = record.getForUpdate(REQUESTS) + 1;
+                record.set(REQUESTS, r);
+                record.set(BYTES, r * 100L);
+                record.set(HEALTHY, (r & 1) == 0 ? 1 : 0);
+            } finally {
+                record.writeUnlock();
+            }
+        }
+
+        @Override
+        public boolean readConsistent() {
+            long[] s = buffers.get();
+            record.readInto(s);
+            return s[BYTES] == s[REQUESTS] * 100L && (s[HEALTHY] == 1) == ((s[REQUESTS] & 1) == 0);
+        }
+    }
+
+    /**
+     * @return {读次数, 撕裂读次数, 写次数}
+     */
+    static long[] run(Snapshotter target, int readers, int writers) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder torn = new LongAdder();
+        LongAdder writes = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(readers + writers);
+        for (int i = 0; i < writers; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long n = 0;
+                    while (running.get()) {
+                        target.write();
+                        n++;
+                    }
+                    writes.add(n);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int i = 0; i < readers; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long n = 0;
+                    long bad = 0;
+                    while (running.get()) {
+                        if (!target.readConsistent()) {
+                            bad++;
+                        }
+                        n++;
+                    }
+                    reads.add(n);
+                    torn.add(bad);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        done.await();
+        return new long[]{reads.sum(), torn.sum(), writes.sum()};
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== 多字段一致读：原子变量 vs ReentrantReadWriteLock vs SeqLock ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        String[] names = {"分别读三个原子变量", "ReentrantReadWriteLock", "SeqLockRecord"};
+        System.out.println("CPU核数: " + cores + ", 写线程: 1, 每组运行 " + DURATION_MILLIS + "ms");
+        System.out.printf("%-6s %-24s %14s %14s %12s%n", "读线程", "实现", "读(百万次/秒)", "写(百万次/秒)", "撕裂读");
+
+        try {
+            for (int readers : ContentionScalingHarness.threadCounts()) {
+                for (int k = 0; k < names.length; k++) {
+                    Snapshotter target = k == 0 ? new SeparateAtomics()
+                            : k == 1 ? new ReadWriteLockRecord() : new SeqLockSnapshotter();
+                    long[] result = run(target, readers, 1);
+                    System.out.printf("%-6d %-24s %14.2f %14.2f %12d%n", readers, names[k],
+                            result[0] / 1000.0 / DURATION_MILLIS, result[2] / 1000.0 / DURATION_MILLIS, result[1]);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 三个原子变量各自原子，但组合起来不原子，写入期间会读到撕裂的视图");
+        System.out.println("  - 读写锁的读锁也要CAS修改同一个state，读线程之间互相争缓存行，还会和写线程互相阻塞");
+        System.out.println("  - SeqLock读端只读不写，读线程越多优势越明显；写线程不会被读线程阻塞");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
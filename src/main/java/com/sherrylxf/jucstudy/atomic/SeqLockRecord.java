@@ -0,0 +1,164 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 顺序锁（seqlock）保护的多字段记录，字段均为long（boolean、int等可编码成long）
+ *
+ * 几个原子变量分别读取，可能读到"一半是旧值一半是新值"的撕裂视图。这里用一个序列号保护一组字段：
+ * - 写：序列号从偶数CAS成奇数（多个写线程之间互斥），修改字段，再把序列号加到下一个偶数
+ * - 读：读序列号（奇数说明正在写，稍后重试），读字段，再读一次序列号；两次相同说明期间没有写入，
+ *   读到的字段是某次完整写入之后的状态，否则重读
+ *
+ * 读端没有CAS、不加锁、不写任何共享内存，读线程再多也不会互相干扰，也不会阻塞写线程；
+ * 代价是写入非常频繁时读端可能反复重试。适合"写少读多、字段少、读端要一致快照"的场景，
+ * 比如监控指标导出。Linux内核的 jiffies/时钟源就是这样读的。
+ *
+ * <pre>
+ * record.writeLock();
+ * try {
+ *     record.add(REQUESTS, 1);
+ *     record.add(BYTES, size);
+ * } finally {
+ *     record.writeUnlock();
+ * }
+ * </pre>
+ */
+public class SeqLockRecord {
+
+    private static final VarHandle SEQ;
+    private static final VarHandle FIELDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            SEQ = MethodHandles.lookup().findVarHandle(SeqLockRecord.class, "seq", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 偶数：空闲；奇数：有写线程正在修改 */
+    private volatile long seq;
+    private final long[] fields;
+
+    public SeqLockRecord(int fieldCount) {
+        if (fieldCount <= 0) {
+            throw new IllegalArgumentException("fieldCount必须大于0: " + fieldCount);
+        }
+        this.fields = new long[fieldCount];
+    }
+
+    // ========== 写端 ==========
+
+    /**
+     * 获取写权限（自旋等待其他写线程）；必须与 writeUnlock() 成对使用
+     */
+    public void writeLock() {
+        for (;;) {
+            long s = seq;
+            if ((s & 1) == 0 && SEQ.compareAndSet(this, s, s + 1)) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public void writeUnlock() {
+        long s = seq;
+        if ((s & 1) == 0) {
+            throw new IllegalMonitorStateException("当前没有持有写权限");
+        }
+        // release：上面对字段的写入一定先于新的偶数序列号对读线程可见
+        SEQ.setRelease(this, s + 1);
+    }
+
+    /**
+     * 只能在持有写权限时调用
+     */
+    public void set(int field, long value) {
+        FIELDS.setOpaque(fields, field, value);
+    }
+
+    /**
+     * 只能在持有写权限时调用
+     */
+    public void add(int field, long delta) {
+        FIELDS.setOpaque(fields, field, (long) FIELDS.getOpaque(fields, field) + delta);
+    }
+
+    /**
+     * 持有写权限时读取当前值
+     */
+    public long getForUpdate(int field) {
+        return (long) FIELDS.getOpaque(fields, field);
+    }
+
+    // ========== 读端 ==========
+
+    /**
+     * 开始一次乐观读，返回的stamp为奇数表示正在写，此次读取一定无效
+     */
+    public long tryOptimisticRead() {
+        return (long) SEQ.getAcquire(this);
+    }
+
+    /**
+     * 乐观读字段，结果只有在 validate(stamp) 返回true时才可信
+     */
+    public long get(int field) {
+        return (long) FIELDS.getOpaque(fields, field);
+    }
+
+    /**
+     * 校验乐观读期间是否没有写入
+     */
+    public boolean validate(long stamp) {
+        // 保证前面的字段读取不会被重排到序列号校验之后
+        VarHandle.acquireFence();
+        return (stamp & 1) == 0 && seq == stamp;
+    }
+
+    /**
+     * 把所有字段的一致快照读入dest
+     *
+     * @return 重试次数
+     */
+    public int readInto(long[] dest) {
+        if (dest.length < fields.length) {
+            throw new IllegalArgumentException("dest长度不足: " + dest.length + " < " + fields.length);
+        }
+        int retries = 0;
+        for (;;) {
+            long stamp = tryOptimisticRead();
+            if ((stamp & 1) == 0) {
+                for (int i = 0; i < fields.length; i++) {
+                    dest[i] = (long) FIELDS.getOpaque(fields, i);
+                }
+                if (validate(stamp)) {
+                    return retries;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+            retries++;
+        }
+    }
+
+    public long[] snapshot() {
+        long[] dest = new long[fields.length];
+        readInto(dest);
+        return dest;
+    }
+
+    public int fieldCount() {
+        return fields.length;
+    }
+
+    /**
+     * 已完成的写入次数
+     */
+    public long version() {
+        return seq >>> 1;
+    }
+}
@@ -0,0 +1,249 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 自适应分段计数器（思路同 LongAdder / Striped64）
+ *
+ * - 无竞争时只有一个 base，increment 就是一次CAS，和 AtomicLong 一样
+ * - base 上出现CAS失败后才创建 cells，之后每个线程按自己的探针哈希选一个 cell 累加
+ * - cell 上仍然CAS失败：先换一个探针重试，再失败就把 cells 扩容一倍（上限为不小于CPU核数的2的幂）
+ * - 每个 cell 前后填充到独占缓存行，避免不同 cell 之间的伪共享
+ *
+ * 读取：
+ * - sum()：遍历 base + 所有 cell，没有并发写时是精确值
+ * - approximate()：返回最近一次 sum 的缓存，超过 refreshNanos 才重新遍历，适合高频轮询的监控读取
+ */
+public class StripedCounter {
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_CELLS = Integer.highestOneBit(Math.max(1, NCPU - 1)) << 1;
+
+    private static final VarHandle BASE;
+    private static final VarHandle CELLS_BUSY;
+    private static final VarHandle CELL_VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BASE = lookup.findVarHandle(StripedCounter.class, "base", long.class);
+            CELLS_BUSY = lookup.findVarHandle(StripedCounter.class, "cellsBusy", int.class);
+            CELL_VALUE = lookup.findVarHandle(CellValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 缓存行填充：value 前后各 7 个 long，保证两个 cell 的 value 不落在同一缓存行
+     */
+    @SuppressWarnings("unused")
+    static class LhsPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class CellValue extends LhsPadding {
+        volatile long value;
+    }
+
+    @SuppressWarnings("unused")
+    static final class Cell extends CellValue {
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        Cell(long initial) {
+            value = initial;
+        }
+
+        boolean cas(long expected, long update) {
+            return CELL_VALUE.compareAndSet(this, expected, update);
+        }
+    }
+
+    private volatile long base;
+    private volatile Cell[] cells;
+    /** 创建/扩容 cells 时使用的自旋锁 */
+    private volatile int cellsBusy;
+
+    private final long refreshNanos;
+    private volatile long cachedSum;
+    private volatile long cachedAt = System.nanoTime();
+
+    public StripedCounter() {
+        this(1_000_000L);
+    }
+
+    /**
+     * @param refreshNanos approximate() 缓存的最长有效期
+     */
+    public StripedCounter(long refreshNanos) {
+        if (refreshNanos < 0) {
+            throw new IllegalArgumentException("refreshNanos不能为负数: " + refreshNanos);
+        }
+        this.refreshNanos = refreshNanos;
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void decrement() {
+        add(-1L);
+    }
+
+    public void add(long x) {
+        Cell[] cs = cells;
+        if (cs == null) {
+            long b = base;
+            if (BASE.compareAndSet(this, b, b + x)) {
+                return;
+            }
+            // base上出现竞争，进入分段模式
+        } else {
+            Cell c = cs[ThreadProbe.get() & (cs.length - 1)];
+            if (c != null) {
+                long v = c.value;
+                if (c.cas(v, v + x)) {
+                    return;
+                }
+            }
+        }
+        addContended(x);
+    }
+
+    /**
+     * 慢路径：创建 cells、填充空槽、换探针或扩容
+     */
+    private void addContended(long x) {
+        int probe = ThreadProbe.get();
+        boolean collided = false;
+        for (;;) {
+            Cell[] cs = cells;
+            if (cs == null) {
+                if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                    try {
+                        if (cells == null) {
+                            Cell[] created = new Cell[2];
+                            created[probe & 1] = new Cell(x);
+                            cells = created;
+                            return;
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    continue;
+                }
+                // 别的线程正在创建，先试一下base
+                long b = base;
+                if (BASE.compareAndSet(this, b, b + x)) {
+                    return;
+                }
+                continue;
+            }
+
+            int n = cs.length;
+            int index = probe & (n - 1);
+            Cell c = cs[index];
+            if (c == null) {
+                if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                    try {
+                        Cell[] current = cells;
+                        if (current == cs && current[index] == null) {
+                            current[index] = new Cell(x);
+                            return;
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    continue;
+                }
+                collided = false;
+            } else {
+                long v = c.value;
+                if (c.cas(v, v + x)) {
+                    return;
+                }
+                if (n >= MAX_CELLS || cells != cs) {
+                    // 已到上限或已被别人扩容，只换探针
+                    collided = false;
+                } else if (!collided) {
+                    // 第一次冲突先换探针，再冲突才扩容
+                    collided = true;
+                } else if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                    try {
+                        if (cells == cs) {
+                            Cell[] expanded = new Cell[n << 1];
+                            System.arraycopy(cs, 0, expanded, 0, n);
+                            cells = expanded;
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    collided = false;
+                    continue;
+                }
+            }
+            probe = ThreadProbe.advance();
+        }
+    }
+
+    /**
+     * 精确求和：没有并发更新时等于所有 add 的总和；并发更新时是遍历过程中某个中间状态的和
+     */
+    public long sum() {
+        long sum = base;
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    sum += c.value;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 快速近似读：缓存未过期时直接返回缓存，不遍历 cells
+     */
+    public long approximate() {
+        long now = System.nanoTime();
+        if (now - cachedAt < refreshNanos) {
+            return cachedSum;
+        }
+        long sum = sum();
+        cachedSum = sum;
+        cachedAt = now;
+        return sum;
+    }
+
+    /**
+     * 归零；应在没有并发更新时调用，否则期间的增量可能丢失
+     */
+    public void reset() {
+        base = 0L;
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    c.value = 0L;
+                }
+            }
+        }
+        cachedSum = 0L;
+        cachedAt = System.nanoTime();
+    }
+
+    /**
+     * 当前分段数，0表示仍处于单一 base 模式
+     */
+    public int cellCount() {
+        Cell[] cs = cells;
+        return cs == null ? 0 : cs.length;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+}
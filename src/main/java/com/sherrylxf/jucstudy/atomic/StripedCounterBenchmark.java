@@ -0,0 +1,112 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StripedCounter 与 AtomicInteger、LongAdder 的吞吐量对比：1 到 2×CPU核数个线程同时递增同一个计数器
+ */
+public class StripedCounterBenchmark {
+
+    private static final int OPS_PER_THREAD = 2_000_000;
+
+    /**
+     * threads个线程各执行OPS_PER_THREAD次op，返回耗时（纳秒）
+     */
+    static long run(int threads, Runnable op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    public static void demonstrateThroughput() {
+        System.out.println("\n========== StripedCounter vs AtomicInteger vs LongAdder ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = ContentionScalingHarness.threadCounts();
+
+        System.out.println("CPU核数: " + cores + ", 每线程递增次数: " + OPS_PER_THREAD);
+        System.out.printf("%-6s %14s %14s %14s %8s%n", "线程数",
+                "AtomicInteger", "LongAdder", "StripedCounter", "分段数");
+        System.out.println("       (单位: 百万次/秒)");
+
+        try {
+            // 预热
+            run(2, new AtomicInteger()::incrementAndGet);
+            run(2, new LongAdder()::increment);
+            run(2, new StripedCounter()::increment);
+
+            for (int threads : threadCounts) {
+                AtomicInteger atomic = new AtomicInteger();
+                LongAdder adder = new LongAdder();
+                StripedCounter striped = new StripedCounter();
+
+                long atomicNanos = run(threads, atomic::incrementAndGet);
+                long adderNanos = run(threads, adder::increment);
+                long stripedNanos = run(threads, striped::increment);
+
+                long expected = (long) threads * OPS_PER_THREAD;
+                if (atomic.get() != expected || adder.sum() != expected || striped.sum() != expected) {
+                    throw new IllegalStateException("计数错误: " + atomic.get() + ", " + adder.sum() + ", " + striped.sum());
+                }
+
+                double ops = expected * 1000.0;
+                System.out.printf("%-6d %14.2f %14.2f %14.2f %8d%n", threads,
+                        ops / atomicNanos, ops / adderNanos, ops / stripedNanos, striped.cellCount());
+            }
+
+            // 读取开销
+            StripedCounter counter = new StripedCounter();
+            run(Math.max(2, cores), counter::increment);
+            int reads = 10_000_000;
+            long sink = 0;
+            long begin = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                sink += counter.sum();
+            }
+            long sumNanos = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                sink += counter.approximate();
+            }
+            long approxNanos = System.nanoTime() - begin;
+            System.out.println();
+            System.out.printf("读取: sum() %.1f ns/次, approximate() %.1f ns/次 (%d个分段, 校验值%d)%n",
+                    (double) sumNanos / reads, (double) approxNanos / reads, counter.cellCount(), sink & 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 单线程时三者相近，StripedCounter此时只有base，没有额外开销");
+        System.out.println("  - 线程数上来后AtomicInteger所有线程争一个缓存行，CAS失败重试，吞吐量反而下降");
+        System.out.println("  - 分段计数器只在检测到CAS失败后才扩容，分段数最多到CPU核数，写入基本不再冲突");
+        System.out.println("  - 代价是sum()要遍历所有分段，分段多时每个都是被频繁写的缓存行；高频读取用approximate()摊薄");
+    }
+
+    public static void main(String[] args) {
+        demonstrateThroughput();
+    }
+}
@@ -0,0 +1,106 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * 分段的double累加器，支持 sum / min / max 或任意满足结合律、交换律的运算
+ *
+ * 没有 AtomicDouble，double 只能以 Double.doubleToRawLongBits 的形式存在 long 里做CAS。
+ * 单个 long 在多线程下会成为热点，这里按线程探针哈希分散到多个按缓存行隔开的槽位（PaddedAtomicLongArray），
+ * 读取时把所有槽位按同一个运算合并。
+ *
+ * - 运算结果与当前值的位模式相同时不写（如 max 遇到更小的值），热点上大部分更新只是一次读
+ * - sum 的合并顺序与累加顺序不同，浮点舍入误差可能与串行求和略有差别
+ */
+public class StripedDoubleAccumulator {
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+    private final DoubleBinaryOperator function;
+    private final double identity;
+    private final long identityBits;
+    private final PaddedAtomicLongArray cells;
+    private final int mask;
+
+    public static StripedDoubleAccumulator sum() {
+        return new StripedDoubleAccumulator(Double::sum, 0.0);
+    }
+
+    public static StripedDoubleAccumulator min() {
+        return new StripedDoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    }
+
+    public static StripedDoubleAccumulator max() {
+        return new StripedDoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * @param function 满足结合律、交换律的运算
+     * @param identity 运算的单位元，同时是初始值和reset后的值
+     */
+    public StripedDoubleAccumulator(DoubleBinaryOperator function, double identity) {
+        this.function = function;
+        this.identity = identity;
+        this.identityBits = Double.doubleToRawLongBits(identity);
+        this.cells = new PaddedAtomicLongArray(STRIPES);
+        this.mask = STRIPES - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i, identityBits);
+        }
+    }
+
+    public void accumulate(double x) {
+        int probe = ThreadProbe.get();
+        for (;;) {
+            int index = probe & mask;
+            long currentBits = cells.get(index);
+            long nextBits = Double.doubleToRawLongBits(
+                    function.applyAsDouble(Double.longBitsToDouble(currentBits), x));
+            if (nextBits == currentBits || cells.compareAndSet(index, currentBits, nextBits)) {
+                return;
+            }
+            // CAS失败说明这个槽位有别的线程在写，换一个槽位
+            probe = ThreadProbe.advance();
+        }
+    }
+
+    /**
+     * 合并所有槽位；没有并发更新时是精确结果
+     */
+    public double get() {
+        double result = identity;
+        for (int i = 0; i < STRIPES; i++) {
+            result = function.applyAsDouble(result, Double.longBitsToDouble(cells.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * 逐个槽位原子地取出并重置，适合按周期导出后清零；并发更新不会丢失，只会计入本次或下一次
+     */
+    public double getThenReset() {
+        double result = identity;
+        for (int i = 0; i < STRIPES; i++) {
+            result = function.applyAsDouble(result, Double.longBitsToDouble(cells.getAndSet(i, identityBits)));
+        }
+        return result;
+    }
+
+    /**
+     * 重置为单位元；应在没有并发更新时调用
+     */
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i, identityBits);
+        }
+    }
+
+    public int stripes() {
+        return STRIPES;
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(get());
+    }
+}
@@ -0,0 +1,33 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 每个线程的探针哈希，分段结构用它选择槽位；发生CAS冲突时调用 advance() 换一个槽位
+ * （作用同 ThreadLocalRandom 内部的 probe，那个字段不对外开放）
+ */
+final class ThreadProbe {
+
+    private static final ThreadLocal<int[]> PROBE =
+            ThreadLocal.withInitial(() -> new int[]{ThreadLocalRandom.current().nextInt() | 1});
+
+    private ThreadProbe() {
+    }
+
+    static int get() {
+        return PROBE.get()[0];
+    }
+
+    /**
+     * 用xorshift生成当前线程的下一个探针值并返回
+     */
+    static int advance() {
+        int[] holder = PROBE.get();
+        int probe = holder[0];
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        holder[0] = probe;
+        return probe;
+    }
+}
@@ -0,0 +1,205 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 无锁、无分配的64位时间有序ID生成器（Snowflake布局）
+ *
+ * <pre>
+ * | 0 | 41位 毫秒时间戳(自定义纪元起) | nodeBits位 节点ID | (22-nodeBits)位 序列号 |
+ * </pre>
+ *
+ * 全部状态只有一个 AtomicLong：state = 逻辑时间戳 << 序列号位数 | 最后发出的序列号。
+ * - 当前毫秒大于逻辑时间戳：CAS成 (now, 0)
+ * - 同一毫秒内：state + 1；序列号用完时自然进位到下一毫秒，相当于向未来"借"1毫秒
+ * - 时钟回拨：逻辑时间戳不跟着回退，继续在原逻辑时间上递增，ID依然单调
+ * 逻辑时间最多领先墙上时钟 maxBorrowMillis，超过后等待时钟追上；
+ * 领先超过 maxWaitMillis（时钟大幅回拨）直接抛出 IllegalStateException，交给上层处理。
+ *
+ * 批量：reserve() 一次CAS预留一段连续的 state，nextIdBatched() 用线程本地的预留段发号，
+ * 大部分调用不碰共享的 AtomicLong。预留段的末尾同样不能超出借用窗口，
+ * 所以一次CAS最多预留 idsPerMillis × (maxBorrowMillis + 1) 个，reserve() 超过时分段预留。
+ */
+public class TimeOrderedIdGenerator {
+
+    /** 2024-01-01T00:00:00Z */
+    public static final long DEFAULT_EPOCH = 1704067200000L;
+    private static final int TIMESTAMP_AND_SEQUENCE_BITS = 63 - 41;
+
+    private final long epoch;
+    private final long nodeId;
+    private final int nodeBits;
+    private final int sequenceBits;
+    private final long sequenceMask;
+    private final long maxBorrowMillis;
+    private final long maxWaitMillis;
+    private final LongSupplier clock;
+    private final int batchSize;
+    private final int maxReservation;
+
+    private final AtomicLong state = new AtomicLong();
+    private final ThreadLocal<Batch> batches = ThreadLocal.withInitial(Batch::new);
+
+    /**
+     * 线程本地预留段：[next, end] 内的 state 已属于当前线程
+     */
+    private static final class Batch {
+        long next = 1;
+        long end;
+    }
+
+    public TimeOrderedIdGenerator(long nodeId) {
+        this(nodeId, 10, DEFAULT_EPOCH, 1000, 5000, 64, System::currentTimeMillis);
+    }
+
+    /**
+     * @param nodeId          节点ID，取值 [0, 2^nodeBits)
+     * @param nodeBits        节点ID位数，剩下的 22-nodeBits 位是序列号，决定每毫秒能发多少个ID
+     * @param epoch           时间戳起点（毫秒）
+     * @param maxBorrowMillis 逻辑时间最多领先墙上时钟多少毫秒，超过则等待
+     * @param maxWaitMillis   领先超过多少毫秒视为时钟大幅回拨，抛出异常
+     * @param batchSize       nextIdBatched() 每次预留的ID个数
+     * @param clock           毫秒时钟，测试时可以注入
+     */
+    public TimeOrderedIdGenerator(long nodeId, int nodeBits, long epoch, long maxBorrowMillis,
+                                  long maxWaitMillis, int batchSize, LongSupplier clock) {
+        if (nodeBits < 0 || nodeBits > TIMESTAMP_AND_SEQUENCE_BITS - 1) {
+            throw new IllegalArgumentException("nodeBits必须在[0, 21]之间: " + nodeBits);
+        }
+        if (nodeId < 0 || nodeId >= (1L << nodeBits)) {
+            throw new IllegalArgumentException("nodeId超出范围[0, " + (1L << nodeBits) + "): " + nodeId);
+        }
+        if (maxBorrowMillis < 0 || maxWaitMillis < maxBorrowMillis) {
+            throw new IllegalArgumentException("需要 0 <= maxBorrowMillis <= maxWaitMillis");
+        }
+        this.nodeId = nodeId;
+        this.nodeBits = nodeBits;
+        this.sequenceBits = TIMESTAMP_AND_SEQUENCE_BITS - nodeBits;
+        this.sequenceMask = (1L << sequenceBits) - 1;
+        long window = maxBorrowMillis >= Integer.MAX_VALUE >>> sequenceBits
+                ? Integer.MAX_VALUE : (maxBorrowMillis + 1) << sequenceBits;
+        this.maxReservation = (int) Math.min(Integer.MAX_VALUE, window);
+        if (batchSize <= 0 || batchSize > maxReservation) {
+            throw new IllegalArgumentException("batchSize必须在[1, " + maxReservation + "]之间: " + batchSize);
+        }
+        this.epoch = epoch;
+        this.maxBorrowMillis = maxBorrowMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成一个ID
+     */
+    public long nextId() {
+        return compose(reserveStates(1));
+    }
+
+    /**
+     * 从当前线程的预留段中取一个ID，预留段用完时一次CAS再预留 batchSize 个
+     * 同一线程得到的ID单调递增；不同线程之间只保证唯一，按毫秒大致有序
+     */
+    public long nextIdBatched() {
+        Batch batch = batches.get();
+        if (batch.next > batch.end) {
+            long first = reserveStates(batchSize);
+            batch.next = first;
+            batch.end = first + batchSize - 1;
+        }
+        return compose(batch.next++);
+    }
+
+    /**
+     * 预留 dest.length 个ID并写入dest（调用方复用数组即可做到零分配）
+     *
+     * 超过一次能预留的上限时分段预留，后面的段要等时钟前进，总速率仍受 idsPerMillis 限制
+     */
+    public void reserve(long[] dest) {
+        for (int from = 0; from < dest.length; from += maxReservation) {
+            int count = Math.min(maxReservation, dest.length - from);
+            long first = reserveStates(count);
+            for (int i = 0; i < count; i++) {
+                dest[from + i] = compose(first + i);
+            }
+        }
+    }
+
+    /**
+     * 一次CAS预留 count 个连续的 state（count 不超过 maxReservation），返回第一个
+     */
+    private long reserveStates(int count) {
+        for (;;) {
+            long current = state.get();
+            long now = clock.getAsLong() - epoch;
+            long logical = current >>> sequenceBits;
+            long ahead = logical - now;
+            if (ahead > maxBorrowMillis) {
+                awaitClock(ahead);
+                continue;
+            }
+            long first = now > logical ? now << sequenceBits : current + 1;
+            long last = first + count - 1;
+            long lastAhead = (last >>> sequenceBits) - now;
+            if (lastAhead > maxBorrowMillis) {
+                // 预留段的末尾会越出借用窗口：等时钟前进，而不是把逻辑时间推得更远
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(lastAhead - maxBorrowMillis));
+                continue;
+            }
+            if (state.compareAndSet(current, last)) {
+                return first;
+            }
+        }
+    }
+
+    /**
+     * 逻辑时间领先太多：小幅领先（发号太快或轻微回拨）就等时钟追上，大幅回拨直接报错
+     */
+    private void awaitClock(long ahead) {
+        if (ahead > maxWaitMillis) {
+            throw new IllegalStateException("时钟回拨过大: 逻辑时间领先墙上时钟 " + ahead + "ms");
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, ahead - maxBorrowMillis)));
+    }
+
+    private long compose(long stateValue) {
+        long timestamp = stateValue >>> sequenceBits;
+        long sequence = stateValue & sequenceMask;
+        return (timestamp << TIMESTAMP_AND_SEQUENCE_BITS) | (nodeId << sequenceBits) | sequence;
+    }
+
+    // ========== 解析 ==========
+
+    /**
+     * ID中的毫秒时间戳（已加上纪元）
+     */
+    public long timestampOf(long id) {
+        return (id >>> TIMESTAMP_AND_SEQUENCE_BITS) + epoch;
+    }
+
+    public long nodeOf(long id) {
+        return (id >>> sequenceBits) & ((1L << nodeBits) - 1);
+    }
+
+    public long sequenceOf(long id) {
+        return id & sequenceMask;
+    }
+
+    /**
+     * 逻辑时间领先墙上时钟的毫秒数（借用的未来时间），0表示没有借用
+     */
+    public long borrowedMillis() {
+        long ahead = (state.get() >>> sequenceBits) - (clock.getAsLong() - epoch);
+        return Math.max(0, ahead);
+    }
+
+    /**
+     * 每毫秒最多能发出的ID个数
+     */
+    public long idsPerMillis() {
+        return sequenceMask + 1;
+    }
+}
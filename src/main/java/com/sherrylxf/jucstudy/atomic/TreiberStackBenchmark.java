@@ -0,0 +1,178 @@
+package com.sherrylxf.jucstudy.atomic;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicStampedReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IndexedTreiberStack 与基于 AtomicStampedReference 的Treiber栈对比：
+ * 每个线程循环"pop一个再push回去"（对象池/free list的典型用法），统计吞吐量、分配量和GC次数
+ */
+public class TreiberStackBenchmark {
+
+    private static final int OPS_PER_THREAD = 2_000_000;
+
+    /**
+     * 对比基线：链表节点 + AtomicStampedReference 防ABA
+     * 每次push分配一个Node，每次成功的compareAndSet再分配一个内部Pair
+     */
+    static final class StampedReferenceStack<E> {
+        private static final class Node<E> {
+            final E item;
+            Node<E> next;
+
+            Node(E item) {
+                this.item = item;
+            }
+        }
+
+        private final AtomicStampedReference<Node<E>> head = new AtomicStampedReference<>(null, 0);
+
+        void push(E item) {
+            Node<E> node = new Node<>(item);
+            int[] stampHolder = new int[1];
+            for (;;) {
+                Node<E> h = head.get(stampHolder);
+                node.next = h;
+                if (head.compareAndSet(h, node, stampHolder[0], stampHolder[0] + 1)) {
+                    return;
+                }
+            }
+        }
+
+        E pop() {
+            int[] stampHolder = new int[1];
+            for (;;) {
+                Node<E> h = head.get(stampHolder);
+                if (h == null) {
+                    return null;
+                }
+                if (head.compareAndSet(h, h.next, stampHolder[0], stampHolder[0] + 1)) {
+                    return h.item;
+                }
+            }
+        }
+    }
+
+    interface StackOps {
+        Object pop();
+
+        void push(Object item);
+    }
+
+    /**
+     * 返回 {耗时纳秒, 工作线程分配的字节数}
+     */
+    static long[] run(int threads, StackOps stack) throws InterruptedException {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LongAdder allocated = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long before = threadBean.getCurrentThreadAllocatedBytes();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        Object item = stack.pop();
+                        if (item != null) {
+                            stack.push(item);
+                        }
+                    }
+                    allocated.add(threadBean.getCurrentThreadAllocatedBytes() - before);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return new long[]{System.nanoTime() - begin, allocated.sum()};
+    }
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== IndexedTreiberStack vs AtomicStampedReference栈 ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int poolSize = 1024;
+        System.out.println("CPU核数: " + cores + ", 池大小: " + poolSize + ", 每线程pop+push次数: " + OPS_PER_THREAD);
+        System.out.printf("%-6s %-22s %12s %14s %10s%n", "线程数", "实现", "百万次/秒", "分配(字节/次)", "GC次数");
+
+        try {
+            for (int threads : ContentionScalingHarness.threadCounts()) {
+                IndexedTreiberStack<Object> indexed = new IndexedTreiberStack<>(poolSize);
+                StampedReferenceStack<Object> stamped = new StampedReferenceStack<>();
+                for (int i = 0; i < poolSize; i++) {
+                    Object item = new Object();
+                    indexed.push(item);
+                    stamped.push(item);
+                }
+                StackOps indexedOps = new StackOps() {
+                    public Object pop() {
+                        return indexed.pop();
+                    }
+
+                    public void push(Object item) {
+                        indexed.push(item);
+                    }
+                };
+                StackOps stampedOps = new StackOps() {
+                    public Object pop() {
+                        return stamped.pop();
+                    }
+
+                    public void push(Object item) {
+                        stamped.push(item);
+                    }
+                };
+
+                // 预热
+                run(threads, indexedOps);
+                run(threads, stampedOps);
+
+                long gcBefore = gcCount();
+                long[] indexedResult = run(threads, indexedOps);
+                long indexedGc = gcCount() - gcBefore;
+                gcBefore = gcCount();
+                long[] stampedResult = run(threads, stampedOps);
+                long stampedGc = gcCount() - gcBefore;
+
+                double ops = (double) threads * OPS_PER_THREAD;
+                System.out.printf("%-6d %-22s %12.2f %14.1f %10d%n", threads, "IndexedTreiberStack",
+                        ops * 1000.0 / indexedResult[0], indexedResult[1] / ops, indexedGc);
+                System.out.printf("%-6d %-22s %12.2f %14.1f %10d%n", threads, "StampedReference栈",
+                        ops * 1000.0 / stampedResult[0], stampedResult[1] / ops, stampedGc);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - AtomicStampedReference每次成功CAS都分配一个Pair，再加上每次push的Node和版本号数组，持续产生垃圾");
+        System.out.println("  - 下标+版本号打包进一个long后，一次普通的long CAS同时完成比较和防ABA，稳定状态零分配");
+        System.out.println("  - 每次push/pop要各CAS一次数据栈和free list，单纯比CAS次数并不占优，收益在于没有分配和GC停顿");
+        System.out.println("  - 代价是容量固定、元素只能放在预分配的槽位里，适合对象池、free list这类有界场景");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
@@ -0,0 +1,117 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 带空闲等待策略的非阻塞队列
+ * 底层仍是 ConcurrentLinkedQueue（无锁CAS），但消费者在队列为空时不再裸循环 poll()，
+ * 而是交给 IdleStrategy 逐级退避：spin -> onSpinWait -> yield -> parkNanos
+ *
+ * 唤醒机制：
+ * 1. 消费者真正 park 前先在 WaiterSet 登记，然后再检查一次队列，防止丢失唤醒
+ * 2. 生产者 offer 后只读一次挂起计数，为0时不做任何事，只有确实有消费者挂起时才 unpark
+ *    => 消费者还在自旋阶段时，生产者的快路径没有额外开销
+ */
+public class AdaptiveWaitQueue<E> {
+
+    private final ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<>();
+    private final WaiterSet parkedConsumers = new WaiterSet();
+    private final Supplier<IdleStrategy> idleStrategyFactory;
+    private final ThreadLocal<IdleStrategy> idleStrategy;
+
+    /**
+     * 使用默认的逐级退避策略
+     */
+    public AdaptiveWaitQueue() {
+        this(IdleStrategy::backoff);
+    }
+
+    /**
+     * @param idleStrategyFactory 每个消费者线程各创建一个策略实例（策略有状态）
+     */
+    public AdaptiveWaitQueue(Supplier<IdleStrategy> idleStrategyFactory) {
+        this.idleStrategyFactory = idleStrategyFactory;
+        this.idleStrategy = ThreadLocal.withInitial(idleStrategyFactory);
+    }
+
+    /**
+     * 入队，如有消费者挂起则唤醒一个
+     */
+    public boolean offer(E e) {
+        queue.offer(e);
+        parkedConsumers.signal();
+        return true;
+    }
+
+    /**
+     * 非阻塞出队，队列为空返回null
+     */
+    public E poll() {
+        return queue.poll();
+    }
+
+    /**
+     * 阻塞出队：队列为空时按空闲策略等待
+     */
+    public E take() throws InterruptedException {
+        IdleStrategy strategy = idleStrategy.get();
+        strategy.reset();
+        E e;
+        while ((e = queue.poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            strategy.idle(this::parkConsumer);
+        }
+        return e;
+    }
+
+    /**
+     * 超时出队：超时返回null
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        IdleStrategy strategy = idleStrategy.get();
+        strategy.reset();
+        E e;
+        while ((e = queue.poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            strategy.idle(nanos -> parkConsumer(Math.min(nanos, remaining)));
+        }
+        return e;
+    }
+
+    private void parkConsumer(long nanos) {
+        parkedConsumers.park(this, nanos, queue::isEmpty);
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * 注意：和 ConcurrentLinkedQueue 一样是 O(n) 遍历
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * 当前挂起的消费者数量（近似值，用于监控）
+     */
+    public int parkedConsumers() {
+        return parkedConsumers.size();
+    }
+
+    public String strategyName() {
+        return idleStrategyFactory.get().name();
+    }
+}
@@ -0,0 +1,164 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 空闲等待策略对比：消费者CPU时间 vs 端到端延迟
+ *
+ * 场景：生产者以稀疏的节奏（每条间隔约 intervalMicros 微秒）发消息，
+ * 消费者大部分时间都在"等"，此时等待策略决定了CPU消耗与延迟
+ */
+public class AdaptiveWaitQueueBenchmark {
+
+    private static final long POISON = -1L;
+
+    /**
+     * 单个策略的测试结果
+     */
+    static class Result {
+        final String strategy;
+        final long[] latencies;
+        final long consumerCpuNanos;
+        final long wallNanos;
+        final int consumers;
+
+        Result(String strategy, long[] latencies, long consumerCpuNanos, long wallNanos, int consumers) {
+            this.strategy = strategy;
+            this.latencies = latencies;
+            this.consumerCpuNanos = consumerCpuNanos;
+            this.wallNanos = wallNanos;
+            this.consumers = consumers;
+        }
+
+        long percentile(double p) {
+            int index = (int) Math.min(latencies.length - 1, Math.round(p * (latencies.length - 1)));
+            return latencies[index];
+        }
+
+        double average() {
+            return Arrays.stream(latencies).average().orElse(0);
+        }
+
+        /**
+         * 消费者CPU占用率：CPU时间 / (墙钟时间 × 消费者数)
+         */
+        double cpuUsage() {
+            return consumerCpuNanos * 100.0 / ((double) wallNanos * consumers);
+        }
+    }
+
+    /**
+     * 跑一个策略
+     */
+    static Result run(Supplier<IdleStrategy> strategyFactory, int consumers, int messages, long intervalMicros)
+            throws InterruptedException {
+        ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        AdaptiveWaitQueue<Long> queue = new AdaptiveWaitQueue<>(strategyFactory);
+        long[] latencies = new long[messages];
+        AtomicLong latencyIndex = new AtomicLong();
+        AtomicLong cpuNanos = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(consumers);
+
+        for (int i = 0; i < consumers; i++) {
+            Thread consumer = new Thread(() -> {
+                long cpuStart = mxBean.getCurrentThreadCpuTime();
+                try {
+                    while (true) {
+                        long sentAt = queue.take();
+                        if (sentAt == POISON) {
+                            break;
+                        }
+                        latencies[(int) latencyIndex.getAndIncrement()] = System.nanoTime() - sentAt;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    cpuNanos.addAndGet(mxBean.getCurrentThreadCpuTime() - cpuStart);
+                    done.countDown();
+                }
+            }, "consumer-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.MICROSECONDS.toNanos(intervalMicros);
+        for (int i = 0; i < messages; i++) {
+            // 用忙等控制发送节奏，避免生产者自己的park抖动污染延迟数据
+            long next = System.nanoTime() + intervalNanos;
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+            queue.offer(System.nanoTime());
+        }
+        for (int i = 0; i < consumers; i++) {
+            queue.offer(POISON);
+        }
+        done.await();
+        long wall = System.nanoTime() - start;
+
+        long[] recorded = Arrays.copyOf(latencies, (int) latencyIndex.get());
+        Arrays.sort(recorded);
+        return new Result(queue.strategyName(), recorded, cpuNanos.get(), wall, consumers);
+    }
+
+    /**
+     * 对比所有策略并打印表格
+     */
+    public static void demonstrateStrategyComparison() {
+        System.out.println("\n========== 空闲等待策略对比（CPU时间 vs 延迟） ==========");
+
+        int consumers = 2;
+        int messages = 2000;
+        long intervalMicros = 200;
+        System.out.println("场景: " + consumers + "个消费者, " + messages + "条消息, 发送间隔约" + intervalMicros + "us");
+        System.out.println("CPU%为消费者线程CPU时间 / (墙钟时间 × 消费者数)");
+        System.out.println();
+
+        List<Supplier<IdleStrategy>> strategies = List.of(
+                IdleStrategy::busySpin,
+                IdleStrategy::spinWait,
+                IdleStrategy::yielding,
+                () -> IdleStrategy.parking(TimeUnit.MICROSECONDS.toNanos(50)),
+                IdleStrategy::backoff
+        );
+
+        System.out.printf("%-12s %10s %10s %10s %10s %10s%n",
+                "策略", "avg(us)", "p50(us)", "p99(us)", "CPU(ms)", "CPU%");
+        for (Supplier<IdleStrategy> strategy : strategies) {
+            try {
+                Result r = run(strategy, consumers, messages, intervalMicros);
+                System.out.printf("%-12s %10.1f %10.1f %10.1f %10d %9.1f%%%n",
+                        r.strategy,
+                        r.average() / 1000.0,
+                        r.percentile(0.50) / 1000.0,
+                        r.percentile(0.99) / 1000.0,
+                        TimeUnit.NANOSECONDS.toMillis(r.consumerCpuNanos),
+                        r.cpuUsage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - busySpin/onSpinWait: 延迟最低，但空闲时每个消费者占满一个核");
+        System.out.println("  - yield: CPU仍然很高，只是让调度器有机会运行别的线程");
+        System.out.println("  - park: CPU最低，延迟受park粒度（Linux上通常50us量级）影响");
+        System.out.println("  - backoff: 消息密集时停留在自旋阶段，空闲久了退到park，兼顾两者");
+        System.out.println("  - 生产者只在确有消费者挂起时才unpark，快路径只多一次volatile读");
+    }
+
+    public static void main(String[] args) {
+        demonstrateStrategyComparison();
+    }
+}
@@ -0,0 +1,503 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiPredicate;
+
+/**
+ * 基于 java.util.concurrent.Flow 的按需推送处理器
+ *
+ * 与 BlockingQueue 的 put/take 相比：
+ * - 下游通过 request(n) 声明自己还能处理多少条，上游只按需求推送，不再由生产者线程阻塞在 put 上
+ * - 作为 Processor 时，对上游的 request 取决于最慢的下游缓冲区还剩多少空间，
+ *   所以可以直接订阅 SubmissionPublisher，并把背压一路传回去
+ *
+ * 实现要点：
+ * - 每个订阅者一个有界无锁环形缓冲区（多生产者多消费者的序号数组算法，无锁、稳态无分配）
+ * - 每个订阅者一个 wip 计数器，保证 onSubscribe/onNext/onComplete 串行调用，且同一时刻只有一个线程在投递
+ * - 一次投递任务最多连续调用 batchSize 次 onNext，之后把剩余工作重新提交给 executor，避免一个订阅者霸占线程
+ * - 发布（submit/offer/onNext 往缓冲区放数据）持有读锁，close 持有写锁：
+ *   close 之前放进去的数据一定在 onComplete 之前投递，之后的发布抛出 IllegalStateException，不会悄悄丢失；
+ *   等待缓冲区空间时不持有锁
+ */
+public class BackpressureProcessor<T> implements Flow.Processor<T, T>, AutoCloseable {
+
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final int batchSize;
+    private final CopyOnWriteArrayList<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final WaiterSet notFull = new WaiterSet();
+
+    /** 作为Processor时的上游订阅及已请求未到达的数量 */
+    private volatile Flow.Subscription upstream;
+    private final AtomicLong upstreamOutstanding = new AtomicLong();
+
+    private final ReentrantReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+    private volatile Throwable closedException;
+
+    public BackpressureProcessor() {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize(), 64);
+    }
+
+    /**
+     * @param executor       投递onNext的线程池
+     * @param bufferCapacity 每个订阅者的缓冲区容量（向上取整为2的幂）
+     * @param batchSize      一次投递任务最多连续调用多少次onNext
+     */
+    public BackpressureProcessor(Executor executor, int bufferCapacity, int batchSize) {
+        if (bufferCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("bufferCapacity和batchSize必须大于0");
+        }
+        this.executor = Objects.requireNonNull(executor);
+        this.bufferCapacity = bufferCapacity <= 1 ? 2 : Integer.highestOneBit(bufferCapacity - 1) << 1;
+        this.batchSize = batchSize;
+    }
+
+    // ==================== Publisher端 ====================
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        BufferedSubscription s = new BufferedSubscription(subscriber);
+        if (!closed) {
+            subscriptions.add(s);
+        }
+        // 订阅之后才close的情况由drain中的done检查处理
+        s.done = closed;
+        s.signal();
+        replenishUpstream();
+    }
+
+    /**
+     * 发布一条数据，有订阅者缓冲区已满时阻塞等待（与 SubmissionPublisher.submit 语义一致）
+     *
+     * @return 估计的最大积压（所有订阅者中缓冲区最满的那个）
+     * @throws IllegalStateException 已经close
+     */
+    public int submit(T item) throws InterruptedException {
+        Objects.requireNonNull(item);
+        ensureOpen();
+        IdleStrategy strategy = IdleStrategy.backoff();
+        int lag = 0;
+        for (BufferedSubscription s : subscriptions) {
+            while (!publish(s, item)) {
+                if (s.cancelled) {
+                    break;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                strategy.idle(nanos -> notFull.park(this, nanos, s.buffer::isFull));
+            }
+            strategy.reset();
+            lag = Math.max(lag, s.buffer.size());
+        }
+        return lag;
+    }
+
+    /**
+     * 非阻塞发布：缓冲区已满的订阅者交给onDrop决定（返回true则重试一次），否则丢弃
+     *
+     * @return 负数表示丢弃的订阅者数量，否则为估计的最大积压
+     * @throws IllegalStateException 已经close
+     */
+    public int offer(T item, BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+        Objects.requireNonNull(item);
+        ensureOpen();
+        int lag = 0;
+        int drops = 0;
+        for (BufferedSubscription s : subscriptions) {
+            // onDrop 在锁外调用，它可以安全地调用 close
+            boolean accepted = publish(s, item);
+            if (!accepted && onDrop != null && onDrop.test(s.subscriber, item)) {
+                accepted = publish(s, item);
+            }
+            if (accepted) {
+                lag = Math.max(lag, s.buffer.size());
+            } else {
+                drops++;
+            }
+        }
+        return drops > 0 ? -drops : lag;
+    }
+
+    /**
+     * 在读锁下放入一个订阅者的缓冲区
+     *
+     * @return 缓冲区已满返回false
+     * @throws IllegalStateException 已经close
+     */
+    private boolean publish(BufferedSubscription s, T item) {
+        publishLock.readLock().lock();
+        try {
+            ensureOpen();
+            if (!s.buffer.offer(item)) {
+                return false;
+            }
+        } finally {
+            publishLock.readLock().unlock();
+        }
+        s.signal();
+        return true;
+    }
+
+    /**
+     * 正常结束：已缓冲的数据投递完后调用各订阅者的onComplete
+     */
+    @Override
+    public void close() {
+        terminate(null);
+    }
+
+    /**
+     * 异常结束：已缓冲的数据投递完后调用各订阅者的onError
+     */
+    public void closeExceptionally(Throwable error) {
+        terminate(Objects.requireNonNull(error));
+    }
+
+    /**
+     * close 和 closeExceptionally 只有先拿到写锁的那个生效
+     */
+    private void terminate(Throwable error) {
+        publishLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closedException = error;
+            closed = true;
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+        for (BufferedSubscription s : subscriptions) {
+            s.done = true;
+            s.signal();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getNumberOfSubscribers() {
+        return subscriptions.size();
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    /**
+     * 等待直到所有订阅者都已结束（用于演示和测试）
+     */
+    public boolean awaitSubscribersDone(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!subscriptions.isEmpty()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Closed");
+        }
+    }
+
+    // ==================== Subscriber端（作为Processor） ====================
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        if (upstream != null || closed) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        replenishUpstream();
+    }
+
+    @Override
+    public void onNext(T item) {
+        // 上游只会在有空间时推送，正常情况下offer不会失败；已经close的话上游迟到的数据直接丢弃
+        publishLock.readLock().lock();
+        try {
+            if (!closed) {
+                for (BufferedSubscription s : subscriptions) {
+                    if (s.buffer.offer(item)) {
+                        s.signal();
+                    } else {
+                        s.onOverflow();
+                    }
+                }
+            }
+        } finally {
+            publishLock.readLock().unlock();
+        }
+        // 先入缓冲区再扣减，replenishUpstream据此保证不会多请求
+        upstreamOutstanding.decrementAndGet();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+
+    /**
+     * 向上游补充需求：按最慢订阅者的剩余空间计算，扣除已请求未到达的部分
+     * 剩余额度攒够一批再请求，避免每消费一条就调用一次上游request
+     *
+     * 先读outstanding再读缓冲区大小：期间若有数据到达，onNext会扣减outstanding导致CAS失败重来；
+     * 期间若有数据被消费，只会让这次算出的额度偏小，不会超出缓冲区
+     */
+    private void replenishUpstream() {
+        Flow.Subscription up = upstream;
+        if (up == null || closed || subscriptions.isEmpty()) {
+            return;
+        }
+        while (true) {
+            long outstanding = upstreamOutstanding.get();
+            long minFree = Long.MAX_VALUE;
+            for (BufferedSubscription s : subscriptions) {
+                minFree = Math.min(minFree, bufferCapacity - s.buffer.size());
+            }
+            long n = minFree - outstanding;
+            if (n < Math.min(batchSize, bufferCapacity)) {
+                return;
+            }
+            if (upstreamOutstanding.compareAndSet(outstanding, outstanding + n)) {
+                up.request(n);
+                return;
+            }
+        }
+    }
+
+    // ==================== 每个订阅者的缓冲与投递 ====================
+
+    private final class BufferedSubscription implements Flow.Subscription, Runnable {
+        final Flow.Subscriber<? super T> subscriber;
+        final RingBuffer<T> buffer = new RingBuffer<>(bufferCapacity);
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        volatile boolean cancelled;
+        volatile boolean done;
+        volatile Throwable requestError;
+        private boolean started;
+
+        BufferedSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // 规范§3.9：非正数请求需要以onError结束
+                requestError = new IllegalArgumentException("request数量必须为正数: " + n);
+            } else {
+                requested.getAndAccumulate(n, (current, add) -> {
+                    long sum = current + add;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signal();
+        }
+
+        void onOverflow() {
+            requestError = new IllegalStateException("上游推送超过了声明的需求，缓冲区溢出");
+            signal();
+        }
+
+        /**
+         * wip从0变为1的线程负责调度投递任务，其余线程只增加计数
+         */
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (!started) {
+                    started = true;
+                    try {
+                        subscriber.onSubscribe(this);
+                    } catch (Throwable ex) {
+                        cancelled = true;
+                        subscriber.onError(ex);
+                    }
+                }
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                Throwable error = requestError;
+                if (error != null) {
+                    cancelled = true;
+                    terminate();
+                    subscriber.onError(error);
+                    return;
+                }
+
+                long r = requested.get();
+                long emitted = 0;
+                int budget = batchSize;
+                while (emitted != r && budget > 0 && !cancelled) {
+                    T item = buffer.poll();
+                    if (item == null) {
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(item);
+                    } catch (Throwable ex) {
+                        cancelled = true;
+                        terminate();
+                        subscriber.onError(ex);
+                        return;
+                    }
+                    emitted++;
+                    budget--;
+                }
+                if (emitted > 0) {
+                    if (r != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                    notFull.signalAll();
+                    replenishUpstream();
+                }
+
+                if (done && buffer.isEmpty() && !cancelled) {
+                    cancelled = true;
+                    terminate();
+                    Throwable closedError = closedException;
+                    if (closedError != null) {
+                        subscriber.onError(closedError);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+
+                if (budget == 0 && !buffer.isEmpty() && requested.get() > 0) {
+                    // 本批次已用完，重新排队让出线程；wip保持非0，期间的signal只会累加计数
+                    executor.execute(this);
+                    return;
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void terminate() {
+            subscriptions.remove(this);
+            buffer.clear();
+            notFull.signalAll();
+            replenishUpstream();
+        }
+    }
+
+    /**
+     * 有界无锁环形缓冲区（Vyukov的多生产者多消费者算法）
+     * 每个槽位带一个序号，生产者/消费者各自CAS推进自己的位置，通过序号判断槽位是否可写/可读
+     */
+    static final class RingBuffer<E> {
+        private final Object[] items;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong enqueuePos = new AtomicLong();
+        private final AtomicLong dequeuePos = new AtomicLong();
+
+        RingBuffer(int capacity) {
+            items = new Object[capacity];
+            sequences = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(E e) {
+            while (true) {
+                long pos = enqueuePos.get();
+                int index = (int) (pos & mask);
+                long diff = sequences.get(index) - pos;
+                if (diff == 0) {
+                    if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                        items[index] = e;
+                        sequences.set(index, pos + 1);
+                        return true;
+                    }
+                } else if (diff < 0) {
+                    return false;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        E poll() {
+            while (true) {
+                long pos = dequeuePos.get();
+                int index = (int) (pos & mask);
+                long diff = sequences.get(index) - (pos + 1);
+                if (diff == 0) {
+                    if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                        E e = (E) items[index];
+                        items[index] = null;
+                        sequences.set(index, pos + mask + 1);
+                        return e;
+                    }
+                } else if (diff < 0) {
+                    return null;
+                }
+            }
+        }
+
+        int size() {
+            long size = enqueuePos.get() - dequeuePos.get();
+            return (int) Math.max(0, Math.min(size, items.length));
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+
+        boolean isFull() {
+            return size() >= items.length;
+        }
+
+        void clear() {
+            while (poll() != null) {
+                // 丢弃剩余元素，释放引用
+            }
+        }
+    }
+}
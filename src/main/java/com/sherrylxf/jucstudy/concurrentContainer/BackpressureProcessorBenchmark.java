@@ -0,0 +1,276 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flow按需推送 vs BlockingQueue put/take：吞吐量、生产者阻塞时间、堆内存峰值
+ *
+ * 快消费者：每条数据几乎不耗时
+ * 慢消费者：每条数据忙等 slowWorkNanos，模拟下游处理慢
+ */
+public class BackpressureProcessorBenchmark {
+
+    private static final int BUFFER = 256;
+    private static final int BATCH = 64;
+
+    /**
+     * 一次运行的结果
+     */
+    static class Result {
+        long elapsedNanos;
+        long producerBlockedNanos;
+        long peakHeapBytes;
+        long delivered;
+        long dropped;
+    }
+
+    /**
+     * 在后台按1ms采样堆使用量，记录峰值
+     */
+    static class HeapSampler implements AutoCloseable {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private final long baseline;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        HeapSampler() {
+            System.gc();
+            baseline = memory.getHeapMemoryUsage().getUsed();
+            thread = new Thread(() -> {
+                while (running) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long peakGrowth() {
+            return Math.max(0, peak.get() - baseline);
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static void work(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 基线：有界LinkedBlockingQueue，生产者put，消费者take
+     */
+    static Result runBlockingQueue(int items, long slowWorkNanos) throws InterruptedException {
+        Result result = new Result();
+        BlockingQueue<Long> queue = new LinkedBlockingQueue<>(BUFFER);
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < items; i++) {
+                    queue.take();
+                    work(slowWorkNanos);
+                    result.delivered++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try (HeapSampler sampler = new HeapSampler()) {
+            long start = System.nanoTime();
+            consumer.start();
+            long blocked = 0;
+            for (long i = 0; i < items; i++) {
+                long t = System.nanoTime();
+                queue.put(i);
+                blocked += System.nanoTime() - t;
+            }
+            consumer.join();
+            result.elapsedNanos = System.nanoTime() - start;
+            result.producerBlockedNanos = blocked;
+            result.peakHeapBytes = sampler.peakGrowth();
+        }
+        return result;
+    }
+
+    /**
+     * 下游订阅者：每次request一批，消费完一半再补充
+     */
+    static class BatchRequestingSubscriber implements Flow.Subscriber<Long> {
+        private final long slowWorkNanos;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private long received;
+        private long untilRequest;
+
+        BatchRequestingSubscriber(long slowWorkNanos) {
+            this.slowWorkNanos = slowWorkNanos;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            untilRequest = BUFFER / 2;
+            subscription.request(BUFFER);
+        }
+
+        @Override
+        public void onNext(Long item) {
+            work(slowWorkNanos);
+            received++;
+            if (--untilRequest == 0) {
+                untilRequest = BUFFER / 2;
+                subscription.request(BUFFER / 2);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throwable.printStackTrace();
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    /**
+     * SubmissionPublisher -> BackpressureProcessor -> 订阅者
+     * 验证与JDK发布者的组合：处理器对上游的需求由下游缓冲区剩余空间决定
+     */
+    static Result runFlowPipeline(int items, long slowWorkNanos) throws InterruptedException {
+        Result result = new Result();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        BatchRequestingSubscriber subscriber = new BatchRequestingSubscriber(slowWorkNanos);
+        try (HeapSampler sampler = new HeapSampler()) {
+            BackpressureProcessor<Long> processor = new BackpressureProcessor<>(executor, BUFFER, BATCH);
+            long start;
+            long blocked = 0;
+            // 发完就关闭发布者，onComplete 才会沿处理器传到订阅者
+            try (SubmissionPublisher<Long> source = new SubmissionPublisher<>(executor, BUFFER)) {
+                source.subscribe(processor);
+                processor.subscribe(subscriber);
+
+                start = System.nanoTime();
+                for (long i = 0; i < items; i++) {
+                    long t = System.nanoTime();
+                    source.submit(i);
+                    blocked += System.nanoTime() - t;
+                }
+            }
+            subscriber.done.await();
+            result.elapsedNanos = System.nanoTime() - start;
+            result.producerBlockedNanos = blocked;
+            result.peakHeapBytes = sampler.peakGrowth();
+            result.delivered = subscriber.received;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * 直接发布到BackpressureProcessor，缓冲区满时丢弃而不是阻塞生产者
+     */
+    static Result runFlowDropping(int items, long slowWorkNanos) throws InterruptedException {
+        Result result = new Result();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        BatchRequestingSubscriber subscriber = new BatchRequestingSubscriber(slowWorkNanos);
+        try (HeapSampler sampler = new HeapSampler()) {
+            BackpressureProcessor<Long> processor = new BackpressureProcessor<>(executor, BUFFER, BATCH);
+            processor.subscribe(subscriber);
+
+            long start = System.nanoTime();
+            long blocked = 0;
+            for (long i = 0; i < items; i++) {
+                long t = System.nanoTime();
+                if (processor.offer(i, null) < 0) {
+                    result.dropped++;
+                }
+                blocked += System.nanoTime() - t;
+            }
+            processor.close();
+            subscriber.done.await();
+            result.elapsedNanos = System.nanoTime() - start;
+            result.producerBlockedNanos = blocked;
+            result.peakHeapBytes = sampler.peakGrowth();
+            result.delivered = subscriber.received;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        return result;
+    }
+
+    private static void print(String name, Result r) {
+        System.out.printf("%-34s %12.0f %14.1f %12.2f %10d %10d%n", name,
+                r.delivered * 1e9 / r.elapsedNanos,
+                r.producerBlockedNanos / 1_000_000.0,
+                r.peakHeapBytes / 1024.0 / 1024.0,
+                r.delivered,
+                r.dropped);
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== Flow背压 vs BlockingQueue ==========");
+        System.out.println("缓冲区: " + BUFFER + ", 投递批次: " + BATCH);
+
+        try {
+            for (boolean slow : new boolean[]{false, true}) {
+                int items = slow ? 20_000 : 1_000_000;
+                long workNanos = slow ? 20_000 : 0;
+                System.out.println();
+                System.out.println(slow ? "【慢消费者：每条20us】" : "【快消费者】");
+                System.out.printf("%-34s %12s %14s %12s %10s %10s%n",
+                        "方案", "条/秒", "生产者占用ms", "堆峰值MB", "送达", "丢弃");
+                print("LinkedBlockingQueue put/take", runBlockingQueue(items, workNanos));
+                print("SubmissionPublisher->Processor", runFlowPipeline(items, workNanos));
+                print("Processor.offer(丢弃)", runFlowDropping(items, workNanos));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 消费快时三者都受限于线程交接开销，Flow按批request减少了唤醒次数");
+        System.out.println("  - 消费慢时put/submit的生产者都会被拖住，区别在于Flow的需求可以按订阅者分别控制");
+        System.out.println("  - offer+丢弃策略让生产者完全不被慢消费者阻塞，代价是显式的丢弃计数");
+        System.out.println("  - 所有方案的堆占用都被缓冲区容量限制住，不会随积压无限增长");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
@@ -0,0 +1,120 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Chase-Lev 工作窃取双端队列（"Dynamic Circular Work-Stealing Deque", SPAA 2005）
+ *
+ * - 所有者线程在底部 push/pop（LIFO，局部性好，无竞争时不需要CAS）
+ * - 窃取线程在顶部 steal（FIFO，偷走的是最早压入、通常也是粒度最大的任务）
+ * - 只有"所有者pop最后一个元素"和"窃取"这两种情况需要对 top 做CAS
+ *
+ * ForkJoinPool 的 WorkQueue 就是这个算法的变体。
+ * 注意：push/pop 只能由所有者线程调用，steal 可以由任意线程调用。
+ */
+public class ChaseLevDeque<E> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** 窃取端位置，只增不减 */
+    private final AtomicLong top = new AtomicLong();
+    /** 所有者端位置，只有所有者写 */
+    private volatile long bottom;
+    private volatile AtomicReferenceArray<E> array = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    /**
+     * 所有者压入任务，满了则扩容为两倍
+     */
+    public void push(E e) {
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<E> a = array;
+        if (b - t >= a.length() - 1) {
+            a = grow(a, b, t);
+        }
+        a.setRelease(index(a, b), e);
+        // volatile写发布元素，窃取者读到新的bottom后一定能看到这个元素
+        bottom = b + 1;
+    }
+
+    /**
+     * 所有者弹出最近压入的任务，队列为空返回null
+     */
+    public E pop() {
+        long b = bottom - 1;
+        AtomicReferenceArray<E> a = array;
+        // 先写bottom再读top：两次volatile访问之间有StoreLoad屏障，
+        // 保证与窃取者"先读top再读bottom"不会同时拿走同一个元素
+        bottom = b;
+        long t = top.get();
+        if (b < t) {
+            bottom = t;
+            return null;
+        }
+        int i = index(a, b);
+        E e = a.get(i);
+        if (b > t) {
+            // 拿走的槽位清空，不然任务执行完了还被数组引用着，直到这个槽位被覆盖
+            a.setRelease(i, null);
+            return e;
+        }
+        // 只剩最后一个元素，和窃取者竞争；输了由赢的窃取者清空槽位
+        if (top.compareAndSet(t, t + 1)) {
+            a.compareAndSet(i, e, null);
+        } else {
+            e = null;
+        }
+        bottom = t + 1;
+        return e;
+    }
+
+    /**
+     * 从顶部窃取最早压入的任务；队列为空或竞争失败返回null
+     */
+    public E steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        AtomicReferenceArray<E> a = array;
+        int i = index(a, t);
+        E e = a.getAcquire(i);
+        if (!top.compareAndSet(t, t + 1)) {
+            return null;
+        }
+        // 用CAS清空：top已经前移，所有者可能已经往这个槽位压入了新任务，不能覆盖
+        a.compareAndSet(i, e, null);
+        return e;
+    }
+
+    /**
+     * 扩容只由所有者执行：拷贝 [t, b) 到新数组后发布
+     * 窃取者可能仍在读旧数组，但旧数组中 [t, b) 的内容不会再被修改，读到的仍然正确
+     */
+    private AtomicReferenceArray<E> grow(AtomicReferenceArray<E> old, long b, long t) {
+        AtomicReferenceArray<E> bigger = new AtomicReferenceArray<>(old.length() << 1);
+        for (long i = t; i < b; i++) {
+            bigger.setPlain(index(bigger, i), old.get(index(old, i)));
+        }
+        array = bigger;
+        return bigger;
+    }
+
+    private static int index(AtomicReferenceArray<?> a, long i) {
+        return (int) (i & (a.length() - 1));
+    }
+
+    /**
+     * 估计大小（并发下只是近似值）
+     */
+    public int size() {
+        long n = bottom - top.get();
+        return (int) Math.max(0, Math.min(n, Integer.MAX_VALUE));
+    }
+
+    public boolean isEmpty() {
+        return bottom - top.get() <= 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+/**
+ * 无锁并发布隆过滤器
+ *
+ * 用来替代"每个key都放进ConcurrentHashMap"的去重检查：
+ * - ConcurrentHashMap每个key约80字节（Node + key对象 + 数组槽位）
+ * - 布隆过滤器每个key只需约 -ln(p)/(ln2)^2 位，p=1%时约9.6位
+ * 代价：mightContain可能误判（假阳性），但绝不会漏判（没有假阴性）
+ *
+ * 并发：位数组是AtomicLongArray，置位用CAS（位已置上则不写，避免无谓的缓存行失效），
+ * 查询只是volatile读，读写都不需要锁
+ */
+public class ConcurrentBloomFilter<T> {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final ToLongFunction<? super T> hasher;
+
+    /**
+     * 按预期元素数和目标误判率计算位数和哈希函数个数
+     * m = -n·ln(p) / (ln2)^2，k = m/n·ln2
+     */
+    public static <T> ConcurrentBloomFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+        return create(expectedInsertions, falsePositiveRate, Hashing::hash64);
+    }
+
+    public static <T> ConcurrentBloomFilter<T> create(long expectedInsertions, double falsePositiveRate,
+                                                      ToLongFunction<? super T> hasher) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions必须大于0: " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate必须在(0,1)之间: " + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        return new ConcurrentBloomFilter<>(bits, k, hasher);
+    }
+
+    public ConcurrentBloomFilter(long bitSize, int hashFunctions, ToLongFunction<? super T> hasher) {
+        if (bitSize <= 0 || hashFunctions <= 0) {
+            throw new IllegalArgumentException("bitSize和hashFunctions必须大于0");
+        }
+        long wordCount = (bitSize + 63) >>> 6;
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("位数组过大: " + bitSize);
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitSize = wordCount << 6;
+        this.hashFunctions = hashFunctions;
+        this.hasher = hasher;
+    }
+
+    /**
+     * 加入元素
+     *
+     * @return true表示至少有一位是本次新置上的，即该元素此前"一定不存在"；
+     *         false表示所有位此前都已置上（可能重复，也可能是误判）
+     */
+    public boolean put(T item) {
+        long hash = hasher.applyAsLong(item);
+        // Kirsch-Mitzenmacher：用两个哈希的线性组合模拟k个独立哈希
+        long h1 = hash;
+        long h2 = Hashing.mix64(hash) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitSize);
+            changed |= setBit(bit);
+        }
+        return changed;
+    }
+
+    /**
+     * @return false表示一定不存在；true表示可能存在
+     */
+    public boolean mightContain(T item) {
+        long hash = hasher.applyAsLong(item);
+        long h1 = hash;
+        long h2 = Hashing.mix64(hash) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word = words.get(index);
+        while ((word & mask) == 0) {
+            long witness = words.compareAndExchange(index, word, word | mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+        return false;
+    }
+
+    /**
+     * 当前置位的位数
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * 根据置位比例估算已插入的不同元素数：n ≈ -m/k · ln(1 - X/m)
+     */
+    public long approximateElementCount() {
+        double fraction = (double) bitCount() / bitSize;
+        return Math.round(-Math.log1p(-fraction) * bitSize / hashFunctions);
+    }
+
+    /**
+     * 以当前置位比例估算的误判率：(X/m)^k
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) bitCount() / bitSize, hashFunctions);
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * 位数组占用的字节数（不含对象头）
+     */
+    public long memoryBytes() {
+        return bitSize >>> 3;
+    }
+}
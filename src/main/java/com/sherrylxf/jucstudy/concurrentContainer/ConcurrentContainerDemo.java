@@ -1,5 +1,9 @@
 package com.sherrylxf.jucstudy.concurrentContainer;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -68,6 +72,108 @@ public class ConcurrentContainerDemo {
         System.out.println();
     }
 
+    /**
+     * 演示ConcurrentHashMap的并行批量操作
+     */
+    public static void demonstrateConcurrentHashMapBulkAnalytics() {
+        System.out.println("\n========== ConcurrentHashMap并行批量操作演示 ==========");
+        
+        ConcurrentHashMap<String, Integer> map = new ConcurrentHashMap<>();
+        for (int i = 1; i <= 100; i++) {
+            map.put("key" + i, i);
+        }
+        
+        // parallelismThreshold=1: 尽可能并行；在自定义ForkJoinPool中执行
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ConcurrentMapAnalytics<String, Integer> analytics = new ConcurrentMapAnalytics<>(map, pool, 1);
+        
+        System.out.println("sum: " + analytics.sum(v -> v) + " (预期: 5050)");
+        System.out.println("count(偶数): " + analytics.count((k, v) -> v % 2 == 0));
+        System.out.println("search(v > 90): " + (analytics.search((k, v) -> v > 90 ? k : null) != null));
+        System.out.println("groupBy(v % 3): " + analytics.groupBy(v -> v % 3, v -> 1));
+        System.out.println("topN(3): " + analytics.topN(3, v -> v));
+        System.out.println("histogram(<10, <50, >=50): "
+            + Arrays.toString(analytics.histogram(v -> v, new long[]{10, 50})));
+        pool.shutdown();
+        
+        System.out.println("✓ 批量操作遍历期间不阻塞其他线程的写入");
+        
+        System.out.println("性能对比见 ConcurrentMapAnalyticsBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示布隆过滤器与Count-Min Sketch：用概率结构代替ConcurrentHashMap做去重/计数
+     */
+    public static void demonstrateProbabilisticFilters() {
+        System.out.println("\n========== 布隆过滤器 / Count-Min Sketch演示 ==========");
+        
+        ConcurrentBloomFilter<String> bloom = ConcurrentBloomFilter.create(1000, 0.01);
+        ConcurrentCountMinSketch<String> cms = ConcurrentCountMinSketch.create(0.001, 0.99);
+        
+        // 多线程并发写入，key有重复
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < 10; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    bloom.put("key" + j);
+                    cms.add("key" + (j % 10));
+                }
+            });
+        }
+        
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        System.out.println("布隆过滤器: " + bloom.bitSize() + "位, " + bloom.hashFunctions() + "个哈希函数");
+        System.out.println("mightContain(key1): " + bloom.mightContain("key1"));
+        System.out.println("mightContain(key1000): " + bloom.mightContain("key1000") + " (可能误判)");
+        System.out.println("估算元素数: " + bloom.approximateElementCount() + " (实际: 100)");
+        System.out.println("CMS estimate(key1): " + cms.estimate("key1") + " (实际: 100)");
+        System.out.println("✓ 用固定的小内存换取可控的误差");
+        
+        System.out.println("性能对比见 ProbabilisticFilterBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示StripedCountingMap：热点key自动升级为分段计数
+     */
+    public static void demonstrateStripedCountingMap() {
+        System.out.println("\n========== StripedCountingMap演示 ==========");
+        
+        StripedCountingMap<String> map = new StripedCountingMap<>();
+        
+        // 10个线程，都在打同一个热点key，顺带几个冷门key
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < 10; i++) {
+            final int threadId = i;
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    map.increment("hot");
+                }
+                map.add("cold" + threadId, threadId);
+            });
+        }
+        
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        System.out.println("hot计数: " + map.sum("hot") + " (预期: 10000)");
+        System.out.println("总计数: " + map.sum());
+        System.out.println("Top-3: " + map.topK(3));
+        System.out.println("sumThenReset(hot): " + map.sumThenReset("hot") + ", 之后: " + map.sum("hot"));
+        System.out.println("✓ 只有出现竞争的key才会升级为LongAdder");
+        
+        System.out.println("性能对比见 StripedCountingMapBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 演示CopyOnWriteArrayList
      */
@@ -403,6 +509,52 @@ public class ConcurrentContainerDemo {
         System.out.println("✓ ConcurrentLinkedQueue非阻塞、高并发性能好");
     }
 
+    /**
+     * 演示AdaptiveWaitQueue：消费者按空闲策略退避，而不是裸循环poll()
+     */
+    public static void demonstrateAdaptiveWaitQueue() {
+        System.out.println("\n========== AdaptiveWaitQueue演示 ==========");
+        
+        AdaptiveWaitQueue<String> queue = new AdaptiveWaitQueue<>(IdleStrategy::backoff);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        
+        // 生产者
+        for (int i = 0; i < 3; i++) {
+            final int threadId = i;
+            executor.submit(() -> {
+                for (int j = 0; j < 10; j++) {
+                    queue.offer("元素" + threadId + "-" + j);
+                }
+            });
+        }
+        
+        // 消费者：take()在队列为空时 spin -> onSpinWait -> yield -> park
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int count = 0; count < 15; count++) {
+                        queue.take();
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        
+        executor.shutdown();
+        try {
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        System.out.println("剩余队列大小: " + queue.size());
+        System.out.println("✓ 空闲时逐级退避，生产者只在消费者挂起时才唤醒");
+        
+        System.out.println("性能对比见 AdaptiveWaitQueueBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 演示ConcurrentSkipListMap
      */
@@ -508,6 +660,175 @@ public class ConcurrentContainerDemo {
         System.out.println("✓ BlockingQueue完美实现生产者-消费者模式");
     }
 
+    /**
+     * 演示持久化的生产者-消费者模式（使用MappedSegmentQueue）
+     */
+    public static void demonstrateDurableProducerConsumer() {
+        System.out.println("\n========== 持久化生产者-消费者模式演示 ==========");
+        
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("juc-durable-queue");
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        
+        try (TypedMappedQueue<String> queue = new TypedMappedQueue<>(
+                new MappedSegmentQueue(dir, 64 * 1024, 4), TypedMappedQueue.STRING)) {
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 5; i++) {
+                        queue.put("产品" + i);
+                        System.out.println("生产: 产品" + i);
+                    }
+                    queue.put("END");
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+            
+            Thread consumer = new Thread(() -> {
+                try {
+                    while (true) {
+                        String product = queue.take();
+                        if ("END".equals(product)) {
+                            break;
+                        }
+                        System.out.println("消费: " + product);
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+            
+            producer.start();
+            consumer.start();
+            producer.join();
+            consumer.join();
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            MappedSegmentQueueBenchmark.deleteQuietly(dir);
+        }
+        
+        System.out.println("✓ 元素存放在内存映射文件中，进程崩溃后可以恢复");
+        
+        System.out.println("性能对比见 MappedSegmentQueueBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示Flow背压：下游用request(n)控制上游推送速度
+     */
+    public static void demonstrateFlowBackpressure() {
+        System.out.println("\n========== Flow背压演示 ==========");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch done = new CountDownLatch(1);
+        
+        try (SubmissionPublisher<String> source = new SubmissionPublisher<>(executor, 4)) {
+            BackpressureProcessor<String> processor = new BackpressureProcessor<>(executor, 4, 2);
+            source.subscribe(processor);
+            processor.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+                
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1); // 一次只要一条
+                }
+                
+                @Override
+                public void onNext(String item) {
+                    System.out.println("消费: " + item);
+                    subscription.request(1);
+                }
+                
+                @Override
+                public void onError(Throwable throwable) {
+                    throwable.printStackTrace();
+                    done.countDown();
+                }
+                
+                @Override
+                public void onComplete() {
+                    System.out.println("消费者: 收到onComplete");
+                    done.countDown();
+                }
+            });
+            
+            for (int i = 1; i <= 5; i++) {
+                source.submit("产品" + i);
+                System.out.println("生产: 产品" + i);
+            }
+        }
+        
+        try {
+            done.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        executor.shutdown();
+        
+        System.out.println("✓ 上游只按下游的需求推送，背压从订阅者一路传回SubmissionPublisher");
+        
+        System.out.println("性能对比见 BackpressureProcessorBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
+    /**
+     * 演示工作窃取：每个工作线程一个Chase-Lev双端队列，空闲线程从别人的队列顶部窃取
+     */
+    public static void demonstrateWorkStealingDeque() {
+        System.out.println("\n========== 工作窃取演示 ==========");
+        
+        // 单线程下的双端队列语义：所有者LIFO，窃取者FIFO
+        ChaseLevDeque<String> deque = new ChaseLevDeque<>();
+        deque.push("任务1");
+        deque.push("任务2");
+        deque.push("任务3");
+        System.out.println("所有者pop: " + deque.pop());
+        System.out.println("窃取者steal: " + deque.steal());
+        System.out.println("剩余: " + deque.size());
+        
+        try (WorkStealingScheduler scheduler = new WorkStealingScheduler(4)) {
+            long sum = scheduler.invoke(new RangeSumTask(1, 1_000_000));
+            System.out.println("1到1000000求和: " + sum);
+            System.out.println("窃取次数: " + scheduler.getStealCount());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        
+        System.out.println("✓ fork()压入本线程队列，join()时边等边执行其他任务，线程不会阻塞");
+        
+        System.out.println("性能对比见 WorkStealingSchedulerBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+    
+    private static class RangeSumTask extends WorkStealingScheduler.Task<Long> {
+        private final long from;
+        private final long to;
+        
+        RangeSumTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (to - from < 10_000) {
+                long sum = 0;
+                for (long i = from; i <= to; i++) {
+                    sum += i;
+                }
+                return sum;
+            }
+            long mid = (from + to) >>> 1;
+            RangeSumTask left = new RangeSumTask(from, mid);
+            left.fork();
+            long right = new RangeSumTask(mid + 1, to).compute();
+            return left.join() + right;
+        }
+    }
+
     /**
      * 打印并发容器知识点总结
      */
@@ -529,6 +850,9 @@ public class ConcurrentContainerDemo {
         System.out.println("\n========== Map系列 ==========");
         demonstrateConcurrentHashMap();
         demonstrateConcurrentHashMapAdvanced();
+        demonstrateConcurrentHashMapBulkAnalytics();
+        demonstrateStripedCountingMap();
+        demonstrateProbabilisticFilters();
         
         // List/Set系列
         System.out.println("\n========== List/Set系列 ==========");
@@ -546,6 +870,7 @@ public class ConcurrentContainerDemo {
         // Queue系列 - 非阻塞
         System.out.println("\n========== 非阻塞Queue系列 ==========");
         demonstrateConcurrentLinkedQueue();
+        demonstrateAdaptiveWaitQueue();
         
         // SkipList系列
         System.out.println("\n========== SkipList系列 ==========");
@@ -555,6 +880,9 @@ public class ConcurrentContainerDemo {
         // 综合应用
         System.out.println("\n========== 综合应用 ==========");
         demonstrateProducerConsumer();
+        demonstrateDurableProducerConsumer();
+        demonstrateFlowBackpressure();
+        demonstrateWorkStealingDeque();
         
         System.out.println("\n========== 并发容器学习演示完成 ==========");
     }
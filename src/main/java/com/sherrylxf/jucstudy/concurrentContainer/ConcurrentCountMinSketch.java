@@ -0,0 +1,106 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+/**
+ * 无锁并发Count-Min Sketch：用固定内存估算每个key的出现次数
+ *
+ * depth行 × width列的计数器矩阵，每行一个哈希函数：
+ * - add：每行各找一个计数器 getAndAdd
+ * - estimate：取各行计数器的最小值
+ * 估计值只会偏大不会偏小；以 1-δ 的概率，误差不超过 ε·N（N为所有add的总和）
+ * 其中 width = ⌈e/ε⌉，depth = ⌈ln(1/δ)⌉
+ */
+public class ConcurrentCountMinSketch<T> {
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int depth;
+    private final ToLongFunction<? super T> hasher;
+
+    /**
+     * @param epsilon    相对误差（相对于总计数）
+     * @param confidence 误差不超过 ε·N 的概率，例如0.99
+     */
+    public static <T> ConcurrentCountMinSketch<T> create(double epsilon, double confidence) {
+        return create(epsilon, confidence, Hashing::hash64);
+    }
+
+    public static <T> ConcurrentCountMinSketch<T> create(double epsilon, double confidence,
+                                                         ToLongFunction<? super T> hasher) {
+        if (epsilon <= 0 || epsilon >= 1) {
+            throw new IllegalArgumentException("epsilon必须在(0,1)之间: " + epsilon);
+        }
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("confidence必须在(0,1)之间: " + confidence);
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / (1 - confidence)));
+        return new ConcurrentCountMinSketch<>(width, depth, hasher);
+    }
+
+    /**
+     * 按预期总计数和可接受的绝对误差计算尺寸：ε = maxError / expectedTotal
+     */
+    public static <T> ConcurrentCountMinSketch<T> forExpectedTotal(long expectedTotal, long maxError, double confidence) {
+        if (expectedTotal <= 0 || maxError <= 0) {
+            throw new IllegalArgumentException("expectedTotal和maxError必须大于0");
+        }
+        return create(Math.min(0.5, (double) maxError / expectedTotal), confidence);
+    }
+
+    public ConcurrentCountMinSketch(int width, int depth, ToLongFunction<? super T> hasher) {
+        if (width <= 0 || depth <= 0 || (long) width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("width/depth非法: " + width + "x" + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+        this.hasher = hasher;
+    }
+
+    public void add(T item) {
+        add(item, 1L);
+    }
+
+    public void add(T item, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count不能为负数: " + count);
+        }
+        long hash = hasher.applyAsLong(item);
+        long h2 = Hashing.mix64(hash) | 1;
+        for (int row = 0; row < depth; row++) {
+            counters.getAndAdd(row * width + column(hash, h2, row), count);
+        }
+    }
+
+    /**
+     * 估计次数（不小于真实值）
+     */
+    public long estimate(T item) {
+        long hash = hasher.applyAsLong(item);
+        long h2 = Hashing.mix64(hash) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(row * width + column(hash, h2, row)));
+        }
+        return min;
+    }
+
+    private int column(long h1, long h2, int row) {
+        return (int) Long.remainderUnsigned(h1 + row * h2, width);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long memoryBytes() {
+        return (long) width * depth * Long.BYTES;
+    }
+}
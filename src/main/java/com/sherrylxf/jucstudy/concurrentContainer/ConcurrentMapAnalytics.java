@@ -0,0 +1,232 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * ConcurrentHashMap并行批量分析工具
+ *
+ * 基于JDK8引入的并行批量操作（reduceValuesToLong、search、forEach 等带 parallelismThreshold 的重载）：
+ * - parallelismThreshold：元素数估计值超过该阈值才拆分任务并行执行，Long.MAX_VALUE即为串行，1为最大并行
+ * - 这些操作是弱一致的：遍历期间其他线程的put/remove不会被阻塞，结果反映遍历过程中某个时刻附近的状态
+ *
+ * 线程池说明：CHM的批量操作内部是ForkJoinTask，调用时如果当前线程是某个ForkJoinPool的工作线程，
+ * 拆出的子任务就会fork到这个池里；否则使用commonPool。所以这里把每个操作都提交到指定的池中执行。
+ */
+public class ConcurrentMapAnalytics<K, V> {
+
+    private final ConcurrentHashMap<K, V> map;
+    private final ForkJoinPool pool;
+    private final long parallelismThreshold;
+
+    public ConcurrentMapAnalytics(ConcurrentHashMap<K, V> map) {
+        this(map, ForkJoinPool.commonPool(), 10_000);
+    }
+
+    /**
+     * @param pool                 执行并行操作的线程池
+     * @param parallelismThreshold 并行阈值，见类注释
+     */
+    public ConcurrentMapAnalytics(ConcurrentHashMap<K, V> map, ForkJoinPool pool, long parallelismThreshold) {
+        if (parallelismThreshold <= 0) {
+            throw new IllegalArgumentException("parallelismThreshold必须大于0: " + parallelismThreshold);
+        }
+        this.map = Objects.requireNonNull(map);
+        this.pool = Objects.requireNonNull(pool);
+        this.parallelismThreshold = parallelismThreshold;
+    }
+
+    /**
+     * 在指定线程池中执行
+     */
+    private <R> R inPool(Supplier<R> action) {
+        if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+            return action.get();
+        }
+        try {
+            return pool.submit(action::get).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分析任务被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 对所有value的某个数值属性求和
+     */
+    public long sum(ToLongFunction<? super V> valueFn) {
+        return inPool(() -> map.reduceValuesToLong(parallelismThreshold, valueFn::applyAsLong, 0L, Long::sum));
+    }
+
+    /**
+     * 统计满足条件的条目数
+     */
+    public long count(BiPredicate<? super K, ? super V> predicate) {
+        return inPool(() -> map.reduceToLong(parallelismThreshold,
+                (k, v) -> predicate.test(k, v) ? 1L : 0L, 0L, Long::sum));
+    }
+
+    /**
+     * 并行查找：返回任意一个非null的结果，找到后其余子任务尽快停止
+     */
+    public <R> R search(BiFunction<? super K, ? super V, ? extends R> searchFn) {
+        return inPool(() -> map.search(parallelismThreshold, searchFn));
+    }
+
+    /**
+     * 分组求和：group by classifier(value)，对valueFn求和
+     * 各工作线程直接累加到StripedCountingMap，热门分组会自动分段，避免所有线程CAS同一个计数；
+     * 每个出现过的分组都会返回，包括金额正负相抵、合计为0的分组
+     */
+    public <G> Map<G, Long> groupBy(Function<? super V, ? extends G> classifier, ToLongFunction<? super V> valueFn) {
+        StripedCountingMap<G> groups = new StripedCountingMap<>();
+        inPool(() -> {
+            map.forEachValue(parallelismThreshold, v -> groups.add(classifier.apply(v), valueFn.applyAsLong(v)));
+            return null;
+        });
+        return groups.sums();
+    }
+
+    /**
+     * Top-N：按score取最大的n个条目，结果按score降序
+     * 每个子任务维护自己的小顶堆，结束后再合并，遍历过程中没有任何共享写
+     */
+    public List<Map.Entry<K, Long>> topN(int n, ToLongFunction<? super V> score) {
+        if (n <= 0) {
+            return List.of();
+        }
+        Comparator<Map.Entry<K, Long>> byScore = Map.Entry.comparingByValue();
+        List<PriorityQueue<Map.Entry<K, Long>>> heaps = perSubtask(() -> new PriorityQueue<>(n, byScore),
+                (heap, k, v) -> {
+                    long s = score.applyAsLong(v);
+                    if (heap.size() < n) {
+                        heap.offer(Map.entry(k, s));
+                    } else if (s > heap.peek().getValue()) {
+                        heap.poll();
+                        heap.offer(Map.entry(k, s));
+                    }
+                });
+        PriorityQueue<Map.Entry<K, Long>> merged = new PriorityQueue<>(n, byScore);
+        for (PriorityQueue<Map.Entry<K, Long>> heap : heaps) {
+            for (Map.Entry<K, Long> e : heap) {
+                if (merged.size() < n) {
+                    merged.offer(e);
+                } else if (e.getValue() > merged.peek().getValue()) {
+                    merged.poll();
+                    merged.offer(e);
+                }
+            }
+        }
+        List<Map.Entry<K, Long>> result = new ArrayList<>(merged);
+        result.sort(byScore.reversed());
+        return result;
+    }
+
+    /**
+     * 直方图：bounds为升序的桶上界，返回长度为bounds.length+1的计数数组
+     * counts[i]为 bounds[i-1] <= x < bounds[i] 的条目数，最后一个桶为 x >= bounds[bounds.length-1]
+     */
+    public long[] histogram(ToLongFunction<? super V> valueFn, long[] bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds必须严格升序");
+            }
+        }
+        // 复制一份，遍历期间调用方改动传入的数组也不影响分桶
+        long[] frozenBounds = bounds.clone();
+        List<long[]> partials = perSubtask(() -> new long[frozenBounds.length + 1], (counts, k, v) -> {
+            int index = Arrays.binarySearch(frozenBounds, valueFn.applyAsLong(v));
+            counts[index >= 0 ? index + 1 : -index - 1]++;
+        });
+        long[] total = new long[frozenBounds.length + 1];
+        for (long[] counts : partials) {
+            for (int i = 0; i < total.length; i++) {
+                total[i] += counts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 每个子任务一个累加器的并行遍历，返回所有累加器
+     *
+     * 按 entrySet 的 spliterator 拆分成 ForkJoin 子任务，和CHM自己的批量操作一样最多拆到约 4×并行度 份，
+     * 且每份不少于 parallelismThreshold 个元素；累加器随子任务创建、随结果返回，不在工作线程上留下任何状态
+     */
+    private <A> List<A> perSubtask(Supplier<A> init, EntryAccumulator<A, K, V> accumulator) {
+        long leafSize = Math.max(parallelismThreshold, map.mappingCount() / ((long) pool.getParallelism() << 2));
+        return inPool(() -> new AccumulateTask<>(map.entrySet().spliterator(), leafSize, init, accumulator).invoke());
+    }
+
+    private static final class AccumulateTask<A, K, V> extends RecursiveTask<List<A>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<Map.Entry<K, V>> entries;
+        private final long leafSize;
+        private final Supplier<A> init;
+        private final EntryAccumulator<A, K, V> accumulator;
+
+        AccumulateTask(Spliterator<Map.Entry<K, V>> entries, long leafSize, Supplier<A> init,
+                       EntryAccumulator<A, K, V> accumulator) {
+            this.entries = entries;
+            this.leafSize = leafSize;
+            this.init = init;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        protected List<A> compute() {
+            Spliterator<Map.Entry<K, V>> prefix;
+            if (entries.estimateSize() > leafSize && (prefix = entries.trySplit()) != null) {
+                AccumulateTask<A, K, V> left = new AccumulateTask<>(prefix, leafSize, init, accumulator);
+                left.fork();
+                List<A> result = new AccumulateTask<>(entries, leafSize, init, accumulator).compute();
+                result.addAll(left.join());
+                return result;
+            }
+            A a = init.get();
+            entries.forEachRemaining(e -> accumulator.accept(a, e.getKey(), e.getValue()));
+            List<A> result = new ArrayList<>();
+            result.add(a);
+            return result;
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryAccumulator<A, K, V> {
+        void accept(A accumulator, K key, V value);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public long getParallelismThreshold() {
+        return parallelismThreshold;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * ConcurrentMapAnalytics 随并行度增加的加速比
+ * 测量期间有一个写线程持续更新map，验证分析操作不需要暂停写入
+ */
+public class ConcurrentMapAnalyticsBenchmark {
+
+    /**
+     * 模拟对账记录
+     */
+    static class Record {
+        final String account;
+        final long amount;
+
+        Record(String account, long amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+    }
+
+    static ConcurrentHashMap<Long, Record> buildMap(int entries, int accounts) {
+        ConcurrentHashMap<Long, Record> map = new ConcurrentHashMap<>(entries * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long i = 0; i < entries; i++) {
+            map.put(i, new Record("acct" + random.nextInt(accounts), random.nextLong(1, 100_000)));
+        }
+        return map;
+    }
+
+    /**
+     * 取多次运行的最小值，减少JIT和GC的干扰
+     */
+    static long bestOf(int runs, Runnable action) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public static void demonstrateSpeedup() {
+        System.out.println("\n========== ConcurrentHashMap并行批量分析加速比 ==========");
+
+        int entries = 2_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        ConcurrentHashMap<Long, Record> map = buildMap(entries, 1000);
+        long[] bounds = {1_000, 10_000, 50_000, 90_000};
+
+        // 写线程：分析期间持续覆盖已有key
+        AtomicLong writes = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!Thread.currentThread().isInterrupted()) {
+                long key = random.nextLong(entries);
+                map.put(key, new Record("acct" + random.nextInt(1000), random.nextLong(1, 100_000)));
+                writes.incrementAndGet();
+            }
+        });
+        writer.setDaemon(true);
+        writer.start();
+
+        int[] parallelisms = ContentionScalingHarness.threadCounts(cores);
+
+        System.out.println("条目数: " + entries + ", CPU核数: " + cores + ", 写线程持续更新中");
+        System.out.printf("%-8s %12s %12s %12s %12s %12s%n", "并行度", "sum(ms)", "groupBy(ms)", "topN(ms)",
+                "histogram(ms)", "加速比");
+
+        double baseline = 0;
+        for (int parallelism : parallelisms) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                ConcurrentMapAnalytics<Long, Record> analytics = new ConcurrentMapAnalytics<>(map, pool, 10_000);
+                long[] times = new long[4];
+                List<Consumer<ConcurrentMapAnalytics<Long, Record>>> ops = List.of(
+                        a -> a.sum(r -> r.amount),
+                        a -> a.groupBy(r -> r.account, r -> r.amount),
+                        a -> a.topN(10, r -> r.amount),
+                        a -> a.histogram(r -> r.amount, bounds));
+                for (int i = 0; i < ops.size(); i++) {
+                    Consumer<ConcurrentMapAnalytics<Long, Record>> op = ops.get(i);
+                    op.accept(analytics); // 预热
+                    times[i] = bestOf(3, () -> op.accept(analytics));
+                }
+                double total = times[0] + times[1] + times[2] + times[3];
+                if (baseline == 0) {
+                    baseline = total;
+                }
+                System.out.printf("%-8d %12.1f %12.1f %12.1f %12.1f %11.2fx%n", parallelism,
+                        times[0] / 1e6, times[1] / 1e6, times[2] / 1e6, times[3] / 1e6, baseline / total);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        writer.interrupt();
+
+        System.out.println("测量期间写线程完成的更新: " + writes.get());
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 批量操作按parallelismThreshold拆分，内存带宽允许时接近线性加速");
+        System.out.println("  - groupBy按分组分段累加，topN/histogram每个子任务各自累加，合并开销只与分组数/N/桶数有关");
+        System.out.println("  - 遍历是弱一致的，写线程全程没有被阻塞");
+    }
+
+    public static void main(String[] args) {
+        demonstrateSpeedup();
+    }
+}
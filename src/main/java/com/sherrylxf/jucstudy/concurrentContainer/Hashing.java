@@ -0,0 +1,44 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+/**
+ * 概率数据结构用的64位哈希工具
+ * String.hashCode只有32位且分布一般，过滤器位数较多时会显著抬高误判率
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64位finalizer（来自MurmurHash3/SplitMix64），把输入的每一位充分扩散到输出
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * 字符串的64位哈希：逐字符累乘后再整体扩散
+     */
+    static long hash64(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return mix64(h ^ s.length());
+    }
+
+    /**
+     * 任意对象：没有更好的信息时只能基于hashCode
+     */
+    static long hash64(Object o) {
+        if (o instanceof CharSequence) {
+            return hash64((CharSequence) o);
+        }
+        if (o instanceof Long) {
+            return mix64((Long) o);
+        }
+        return mix64(o.hashCode());
+    }
+}
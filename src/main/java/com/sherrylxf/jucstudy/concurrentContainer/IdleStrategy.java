@@ -0,0 +1,207 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费者空闲等待策略
+ * 队列为空时由消费者线程调用，决定"怎么等"：自旋、onSpinWait、yield 还是 park
+ *
+ * 策略对象是有状态的（记录当前退避到了哪一步），每个消费者线程各持有一个，
+ * 拿到元素后调用 reset() 回到最激进的阶段。
+ */
+public interface IdleStrategy {
+
+    /**
+     * 执行一次空闲等待
+     *
+     * @param parker 真正挂起线程时使用的回调，由队列提供，以便生产者能精准唤醒
+     */
+    void idle(Parker parker);
+
+    /**
+     * 拿到数据后重置退避状态
+     */
+    void reset();
+
+    /**
+     * 策略名称（用于输出对比结果）
+     */
+    String name();
+
+    /**
+     * 挂起当前线程的回调
+     * 队列在这里完成"登记为已挂起 -> 再次检查 -> park"，避免丢失唤醒
+     */
+    @FunctionalInterface
+    interface Parker {
+        void park(long nanos);
+    }
+
+    /**
+     * 纯忙等：什么都不做，延迟最低，但空闲时占满一个核
+     */
+    static IdleStrategy busySpin() {
+        return new IdleStrategy() {
+            @Override
+            public void idle(Parker parker) {
+            }
+
+            @Override
+            public void reset() {
+            }
+
+            @Override
+            public String name() {
+                return "busySpin";
+            }
+        };
+    }
+
+    /**
+     * 忙等 + Thread.onSpinWait()：提示CPU当前在自旋（x86上为PAUSE指令），降低功耗和对超线程兄弟的干扰
+     */
+    static IdleStrategy spinWait() {
+        return new IdleStrategy() {
+            @Override
+            public void idle(Parker parker) {
+                Thread.onSpinWait();
+            }
+
+            @Override
+            public void reset() {
+            }
+
+            @Override
+            public String name() {
+                return "onSpinWait";
+            }
+        };
+    }
+
+    /**
+     * Thread.yield()：让出时间片，空闲时CPU占用仍然较高（取决于调度器）
+     */
+    static IdleStrategy yielding() {
+        return new IdleStrategy() {
+            @Override
+            public void idle(Parker parker) {
+                Thread.yield();
+            }
+
+            @Override
+            public void reset() {
+            }
+
+            @Override
+            public String name() {
+                return "yield";
+            }
+        };
+    }
+
+    /**
+     * 固定间隔 parkNanos：几乎不占CPU，但延迟受 park 粒度限制
+     */
+    static IdleStrategy parking(long parkNanos) {
+        return new IdleStrategy() {
+            @Override
+            public void idle(Parker parker) {
+                parker.park(parkNanos);
+            }
+
+            @Override
+            public void reset() {
+            }
+
+            @Override
+            public String name() {
+                return "park(" + TimeUnit.NANOSECONDS.toMicros(parkNanos) + "us)";
+            }
+        };
+    }
+
+    /**
+     * 默认的逐级退避策略：100次自旋 -> 100次onSpinWait -> 10次yield -> park(1us起，翻倍到1ms)
+     */
+    static IdleStrategy backoff() {
+        return new BackoffIdleStrategy(100, 100, 10,
+                TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * 逐级退避策略
+     * spin -> onSpinWait -> yield -> parkNanos（间隔逐次翻倍，直到上限）
+     */
+    class BackoffIdleStrategy implements IdleStrategy {
+        private static final int SPINNING = 0;
+        private static final int SPIN_WAITING = 1;
+        private static final int YIELDING = 2;
+        private static final int PARKING = 3;
+
+        private final long maxSpins;
+        private final long maxSpinWaits;
+        private final long maxYields;
+        private final long minParkNanos;
+        private final long maxParkNanos;
+
+        private int state = SPINNING;
+        private long counter;
+        private long parkNanos;
+
+        public BackoffIdleStrategy(long maxSpins, long maxSpinWaits, long maxYields,
+                                   long minParkNanos, long maxParkNanos) {
+            if (minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+                throw new IllegalArgumentException("park间隔非法: min=" + minParkNanos + ", max=" + maxParkNanos);
+            }
+            this.maxSpins = maxSpins;
+            this.maxSpinWaits = maxSpinWaits;
+            this.maxYields = maxYields;
+            this.minParkNanos = minParkNanos;
+            this.maxParkNanos = maxParkNanos;
+            this.parkNanos = minParkNanos;
+        }
+
+        @Override
+        public void idle(Parker parker) {
+            switch (state) {
+                case SPINNING:
+                    if (++counter > maxSpins) {
+                        state = SPIN_WAITING;
+                        counter = 0;
+                    }
+                    break;
+                case SPIN_WAITING:
+                    Thread.onSpinWait();
+                    if (++counter > maxSpinWaits) {
+                        state = YIELDING;
+                        counter = 0;
+                    }
+                    break;
+                case YIELDING:
+                    Thread.yield();
+                    if (++counter > maxYields) {
+                        state = PARKING;
+                        counter = 0;
+                        parkNanos = minParkNanos;
+                    }
+                    break;
+                default:
+                    parker.park(parkNanos);
+                    parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+                    break;
+            }
+        }
+
+        @Override
+        public void reset() {
+            state = SPINNING;
+            counter = 0;
+            parkNanos = minParkNanos;
+        }
+
+        @Override
+        public String name() {
+            return "backoff";
+        }
+    }
+}
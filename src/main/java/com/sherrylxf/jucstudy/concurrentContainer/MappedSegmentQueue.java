@@ -0,0 +1,696 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于内存映射分段文件的持久化阻塞队列
+ *
+ * 和 LinkedBlockingQueue 的区别：
+ * - 元素存放在 mmap 的段文件里而不是堆里，进程崩溃后数据仍在页缓存/磁盘上，重启可恢复
+ * - 突发流量只会增加段文件，不会撑大堆
+ *
+ * 存储格式：逻辑上是一条无限长的字节流，位置 pos = 段号 × segmentSize + 段内偏移
+ * 每条记录 = 4字节头 + 数据（按4字节对齐），头部取值：
+ * - 0：尚未写入
+ * - len | PENDING：已占位，数据正在写
+ * - len | COMMITTED：已提交，可以消费（带标志位，空记录的头也不会是0）
+ * - len | COMMITTED | CONSUMED：已被消费者确认
+ * - len | CONSUMED：作废的记录（生产者占位后写入失败，或恢复时发现写到一半的PENDING），直接跳过
+ * - END_OF_SEGMENT：本段剩余空间不够，跳到下一段
+ *
+ * 并发协议：
+ * - 生产者先映射好要写的段，再对 writePos 做一次CAS占位（不跨段），然后写数据，最后用 setRelease 写头部提交；
+ *   占位之后写入失败时把头部标记为作废再抛出异常，这个位置不会一直挡住后面的记录
+ * - 消费者用 getAcquire 读头部，对 readPos 做CAS认领记录，拷贝数据后把头部标记为 CONSUMED（确认）
+ * - ackPos 只会按顺序越过已确认的记录，并持久化到 meta 文件；整段都被确认后段文件回收复用
+ *
+ * 投递语义为至少一次：崩溃前已被认领但未确认的记录，恢复后会重新投递
+ * 数据丢失窗口：进程恰好在生产者CAS占位（或换段）成功之后、写 PENDING 头（或段结束标记）这一次写入之前崩溃，
+ * 此处之后的记录恢复时不可见（空洞的长度无从得知，无法跳过）
+ */
+public class MappedSegmentQueue extends AbstractQueue<byte[]> implements BlockingQueue<byte[]>, Closeable {
+
+    private static final int HEADER = 4;
+    private static final int COMMITTED = 0x1000_0000;
+    private static final int PENDING = 0x2000_0000;
+    private static final int CONSUMED = 0x4000_0000;
+    private static final int LENGTH_MASK = 0x0FFF_FFFF;
+    private static final int END_OF_SEGMENT = -1;
+
+    private static final long META_MAGIC = 0x4A55_4351_4D53_5131L;
+    private static final int META_SIZE = 24;
+    private static final int META_MAGIC_OFFSET = 0;
+    private static final int META_SEGMENT_SIZE_OFFSET = 8;
+    private static final int META_ACK_OFFSET = 16;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String FREE_PREFIX = "free-";
+    private static final int MAX_POOLED_SEGMENTS = 2;
+
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final ConcurrentHashMap<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Path> freeSegments = new ConcurrentLinkedQueue<>();
+    private final AtomicLong freeSequence = new AtomicLong();
+    private final MappedByteBuffer meta;
+
+    private final AtomicLong writePos = new AtomicLong();
+    private final AtomicLong readPos = new AtomicLong();
+    private final AtomicLong ackPos = new AtomicLong();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicBoolean acking = new AtomicBoolean(false);
+
+    private final WaiterSet notEmpty = new WaiterSet();
+    private final WaiterSet notFull = new WaiterSet();
+
+    private volatile boolean closed;
+
+    /**
+     * 无界队列（只受磁盘空间限制）
+     */
+    public MappedSegmentQueue(Path directory, int segmentSize) throws IOException {
+        this(directory, segmentSize, 0);
+    }
+
+    /**
+     * @param directory   段文件目录，已有数据时会执行恢复
+     * @param segmentSize 单个段文件大小（字节，4的倍数）
+     * @param maxSegments 最多同时存在多少个未消费完的段（至少2个，写满的段要等消费者越过段结束标记才能回收），0表示不限
+     */
+    public MappedSegmentQueue(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < 64 || (segmentSize & 3) != 0 || segmentSize > LENGTH_MASK) {
+            throw new IllegalArgumentException("segmentSize必须是4的倍数且不小于64: " + segmentSize);
+        }
+        if (maxSegments < 0 || maxSegments == 1) {
+            throw new IllegalArgumentException("maxSegments必须为0或不小于2: " + maxSegments);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.meta = map(directory.resolve("queue.meta"), META_SIZE);
+        recover();
+    }
+
+    // ==================== 生产者 ====================
+
+    @Override
+    public boolean offer(byte[] e) {
+        Objects.requireNonNull(e);
+        return append(e) >= 0;
+    }
+
+    @Override
+    public void put(byte[] e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        IdleStrategy strategy = IdleStrategy.backoff();
+        while (append(e) < 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            strategy.idle(nanos -> notFull.park(this, nanos, this::isFull));
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        IdleStrategy strategy = IdleStrategy.backoff();
+        while (append(e) < 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            strategy.idle(nanos -> notFull.park(this, Math.min(nanos, remaining), this::isFull));
+        }
+        return true;
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录的逻辑位置；队列已满返回-1
+     */
+    private long append(byte[] data) {
+        ensureOpen();
+        int need = recordSize(data.length);
+        if (need > segmentSize) {
+            throw new IllegalArgumentException("记录过大: " + data.length + " 字节，段大小: " + segmentSize);
+        }
+        while (true) {
+            long pos = writePos.get();
+            long segment = pos / segmentSize;
+            int offset = (int) (pos % segmentSize);
+            // 建映射可能失败（IO错误），放在占位之前：失败时什么都还没占，不会留下空洞
+            MappedByteBuffer buffer = readableSegment(segment);
+            if (buffer == null) {
+                continue;
+            }
+            if (offset + need <= segmentSize) {
+                // 一次CAS占位，成功后这段空间只属于当前生产者
+                if (writePos.compareAndSet(pos, pos + need)) {
+                    try {
+                        INT_VIEW.set(buffer, offset, data.length | PENDING);
+                        buffer.put(offset + HEADER, data);
+                    } catch (RuntimeException | Error e) {
+                        // 占位已经生效，标记为作废让消费者和恢复跳过它，否则后面的记录都被堵住
+                        INT_VIEW.setRelease(buffer, offset, data.length | CONSUMED);
+                        throw e;
+                    }
+                    INT_VIEW.setRelease(buffer, offset, data.length | COMMITTED);
+                    count.incrementAndGet();
+                    notEmpty.signal();
+                    return pos;
+                }
+            } else {
+                if (isFull(segment + 1)) {
+                    return -1;
+                }
+                // 下一段同样先建好映射，换段成功后只剩写段结束标记这一步
+                if (readableSegment(segment + 1) == null) {
+                    continue;
+                }
+                // 本段放不下，把写位置推进到下一段开头，并在原位置写段结束标记
+                if (writePos.compareAndSet(pos, (segment + 1) * segmentSize)) {
+                    INT_VIEW.setRelease(buffer, offset, END_OF_SEGMENT);
+                }
+            }
+        }
+    }
+
+    private boolean isFull() {
+        long pos = writePos.get();
+        return isFull(pos / segmentSize + 1);
+    }
+
+    private boolean isFull(long nextSegment) {
+        return maxSegments > 0 && nextSegment - ackPos.get() / segmentSize + 1 > maxSegments;
+    }
+
+    // ==================== 消费者 ====================
+
+    @Override
+    public byte[] poll() {
+        ensureOpen();
+        while (true) {
+            long pos = readPos.get();
+            long segment = pos / segmentSize;
+            int offset = (int) (pos % segmentSize);
+            if (pos >= writePos.get()) {
+                return null;
+            }
+            MappedByteBuffer buffer = readableSegment(segment);
+            if (buffer == null) {
+                continue;
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            if (header == END_OF_SEGMENT) {
+                readPos.compareAndSet(pos, (segment + 1) * segmentSize);
+                continue;
+            }
+            if (header == 0 || (header & PENDING) != 0) {
+                // 已占位但未提交，按FIFO必须等它
+                return null;
+            }
+            int length = header & LENGTH_MASK;
+            long next = pos + recordSize(length);
+            if ((header & CONSUMED) != 0) {
+                // 恢复场景：崩溃前已确认但ackPos尚未推进的记录
+                readPos.compareAndSet(pos, next);
+                continue;
+            }
+            if (readPos.compareAndSet(pos, next)) {
+                count.decrementAndGet();
+                byte[] data = new byte[length];
+                buffer.get(offset + HEADER, data);
+                acknowledge(buffer, offset, header);
+                return data;
+            }
+        }
+    }
+
+    @Override
+    public byte[] take() throws InterruptedException {
+        IdleStrategy strategy = IdleStrategy.backoff();
+        byte[] e;
+        while ((e = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            strategy.idle(nanos -> notEmpty.park(this, nanos, this::nothingToRead));
+        }
+        return e;
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        IdleStrategy strategy = IdleStrategy.backoff();
+        byte[] e;
+        while ((e = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            strategy.idle(nanos -> notEmpty.park(this, Math.min(nanos, remaining), this::nothingToRead));
+        }
+        return e;
+    }
+
+    private boolean nothingToRead() {
+        return count.get() <= 0;
+    }
+
+    /**
+     * 确认：把记录标记为已消费，然后尝试按顺序推进ackPos
+     */
+    private void acknowledge(MappedByteBuffer buffer, int offset, int header) {
+        INT_VIEW.setRelease(buffer, offset, header | CONSUMED);
+        advanceAck();
+    }
+
+    /**
+     * 只有一个线程负责推进ackPos；释放标记后再检查一次，避免别的消费者的确认被漏掉
+     */
+    private void advanceAck() {
+        do {
+            if (!acking.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long pos = ackPos.get();
+                long limit = readPos.get();
+                long firstSegment = pos / segmentSize;
+                while (pos < limit) {
+                    long segment = pos / segmentSize;
+                    int offset = (int) (pos % segmentSize);
+                    int header = (int) INT_VIEW.getAcquire(segment(segment), offset);
+                    if (header == END_OF_SEGMENT) {
+                        pos = (segment + 1) * segmentSize;
+                    } else if ((header & CONSUMED) != 0) {
+                        pos += recordSize(header & LENGTH_MASK);
+                    } else {
+                        break;
+                    }
+                }
+                if (pos != ackPos.get()) {
+                    ackPos.set(pos);
+                    LONG_VIEW.setRelease(meta, META_ACK_OFFSET, pos);
+                    for (long s = firstSegment; s < pos / segmentSize; s++) {
+                        recycle(s);
+                    }
+                    notFull.signalAll();
+                }
+            } finally {
+                acking.set(false);
+            }
+        } while (hasConsumedAtAck());
+    }
+
+    private boolean hasConsumedAtAck() {
+        long pos = ackPos.get();
+        if (pos >= readPos.get()) {
+            return false;
+        }
+        MappedByteBuffer buffer = readableSegment(pos / segmentSize);
+        if (buffer == null) {
+            // 期间ackPos已被别的线程推进，由它负责后续检查
+            return false;
+        }
+        int header = (int) INT_VIEW.getAcquire(buffer, (int) (pos % segmentSize));
+        return header == END_OF_SEGMENT || (header & CONSUMED) != 0;
+    }
+
+    // ==================== 段文件管理 ====================
+
+    private MappedByteBuffer segment(long index) {
+        MappedByteBuffer buffer = segments.get(index);
+        if (buffer == null) {
+            buffer = segments.computeIfAbsent(index, this::openSegment);
+        }
+        return buffer;
+    }
+
+    /**
+     * 读取方拿到的位置可能已经过期（期间整段被确认并回收），此时返回null让调用方重读位置，
+     * 避免把已回收的段重新创建出来
+     *
+     * 已映射的段直接返回：即使它随后被回收，调用方拿着过期位置的CAS也会失败。
+     * 需要新建映射时，检查ackPos和建映射要与 recycle 在同一把锁下完成，
+     * 否则检查通过后段被回收，再建映射会从空闲池里拿走一个文件
+     */
+    private MappedByteBuffer readableSegment(long index) {
+        MappedByteBuffer buffer = segments.get(index);
+        if (buffer != null) {
+            return buffer;
+        }
+        synchronized (segments) {
+            if (index < ackPos.get() / segmentSize) {
+                return null;
+            }
+            return segment(index);
+        }
+    }
+
+    private MappedByteBuffer openSegment(long index) {
+        Path file = segmentPath(index);
+        try {
+            if (!Files.exists(file)) {
+                Path free = freeSegments.poll();
+                if (free != null) {
+                    // 复用已消费完的段文件：改名后清零，旧记录头不能被误认为已提交
+                    Files.move(free, file, StandardCopyOption.ATOMIC_MOVE);
+                    MappedByteBuffer buffer = map(file, segmentSize);
+                    zero(buffer, 0, segmentSize);
+                    return buffer;
+                }
+            }
+            return map(file, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 整段已确认：放入空闲池等待复用，池满则删除；调用前ackPos已越过该段
+     */
+    private void recycle(long index) {
+        synchronized (segments) {
+            MappedByteBuffer buffer = segments.remove(index);
+            if (buffer == null) {
+                return;
+            }
+            Path file = segmentPath(index);
+            try {
+                if (freeSegments.size() < MAX_POOLED_SEGMENTS) {
+                    Path free = directory.resolve(FREE_PREFIX + freeSequence.getAndIncrement() + SEGMENT_SUFFIX);
+                    Files.move(file, free, StandardCopyOption.ATOMIC_MOVE);
+                    freeSegments.offer(free);
+                } else {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void zero(MappedByteBuffer buffer, int from, int to) {
+        byte[] zeros = new byte[Math.min(to - from, 64 * 1024)];
+        for (int i = from; i < to; i += zeros.length) {
+            buffer.put(i, zeros, 0, Math.min(zeros.length, to - i));
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d", index) + SEGMENT_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射建立后即使关闭channel也依然有效
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    // ==================== 恢复 ====================
+
+    /**
+     * 从meta中的ackPos开始扫描：
+     * - 已提交未确认的记录重新计入队列（至少一次投递）
+     * - PENDING记录说明生产者写到一半崩溃，标记为作废跳过；已作废的记录同样跳过，不影响之后的记录
+     * - 遇到未写入的头部即为写位置；写位置之后的残留数据（占位后崩溃留下的空洞之后）全部清掉，
+     *   否则新生产者占位后、写头之前，消费者可能把残留的旧头部当成已提交记录
+     */
+    private void recover() throws IOException {
+        long magic = (long) LONG_VIEW.getAcquire(meta, META_MAGIC_OFFSET);
+        if (magic == 0) {
+            LONG_VIEW.set(meta, META_SEGMENT_SIZE_OFFSET, (long) segmentSize);
+            LONG_VIEW.setRelease(meta, META_MAGIC_OFFSET, META_MAGIC);
+        } else if (magic != META_MAGIC) {
+            throw new IOException("不是队列目录: " + directory);
+        } else if ((long) LONG_VIEW.get(meta, META_SEGMENT_SIZE_OFFSET) != segmentSize) {
+            throw new IOException("段大小不一致: 文件为" + LONG_VIEW.get(meta, META_SEGMENT_SIZE_OFFSET)
+                    + ", 参数为" + segmentSize);
+        }
+
+        long ack = (long) LONG_VIEW.getAcquire(meta, META_ACK_OFFSET);
+        long ackSegment = ack / segmentSize;
+        long lastSegment = -1;
+        long nextFree = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String number = name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+                if (name.startsWith(FREE_PREFIX)) {
+                    freeSegments.offer(file);
+                    nextFree = Math.max(nextFree, Long.parseLong(number.substring(FREE_PREFIX.length())) + 1);
+                } else {
+                    long index = Long.parseLong(number);
+                    if (index < ackSegment) {
+                        Files.deleteIfExists(file);
+                    } else {
+                        lastSegment = Math.max(lastSegment, index);
+                    }
+                }
+            }
+        }
+        freeSequence.set(nextFree);
+
+        long pos = ack;
+        long pending = 0;
+        long currentSegment = -1;
+        MappedByteBuffer buffer = null;
+        while (true) {
+            long segment = pos / segmentSize;
+            int offset = (int) (pos % segmentSize);
+            if (segment != currentSegment) {
+                if (!Files.exists(segmentPath(segment))) {
+                    break;
+                }
+                currentSegment = segment;
+                buffer = segment(segment);
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            if (header == 0) {
+                break;
+            }
+            if (header == END_OF_SEGMENT) {
+                pos = (segment + 1) * segmentSize;
+                continue;
+            }
+            if ((header & PENDING) != 0) {
+                INT_VIEW.setRelease(buffer, offset, (header & LENGTH_MASK) | CONSUMED);
+            } else if ((header & CONSUMED) == 0) {
+                pending++;
+            }
+            pos += recordSize(header & LENGTH_MASK);
+        }
+
+        long writeSegment = pos / segmentSize;
+        if (Files.exists(segmentPath(writeSegment))) {
+            zero(segment(writeSegment), (int) (pos % segmentSize), segmentSize);
+        }
+        for (long s = writeSegment + 1; s <= lastSegment; s++) {
+            Files.deleteIfExists(segmentPath(s));
+        }
+        ackPos.set(ack);
+        readPos.set(ack);
+        writePos.set(pos);
+        count.set(pending);
+    }
+
+    // ==================== 其他BlockingQueue方法 ====================
+
+    @Override
+    public byte[] peek() {
+        ensureOpen();
+        long pos = readPos.get();
+        while (pos < writePos.get()) {
+            long segment = pos / segmentSize;
+            int offset = (int) (pos % segmentSize);
+            MappedByteBuffer buffer = readableSegment(segment);
+            if (buffer == null) {
+                pos = readPos.get();
+                continue;
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            if (header == END_OF_SEGMENT) {
+                pos = (segment + 1) * segmentSize;
+            } else if (header == 0 || (header & PENDING) != 0) {
+                return null;
+            } else if ((header & CONSUMED) != 0) {
+                pos += recordSize(header & LENGTH_MASK);
+            } else {
+                byte[] data = new byte[header & LENGTH_MASK];
+                buffer.get(offset + HEADER, data);
+                return data;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, count.get()));
+    }
+
+    /**
+     * 容量按段计算而不是按元素个数，这里返回剩余空间最多还能放下多少条空记录（上界）
+     */
+    @Override
+    public int remainingCapacity() {
+        if (maxSegments == 0) {
+            return Integer.MAX_VALUE;
+        }
+        long limit = (ackPos.get() / segmentSize + maxSegments) * segmentSize;
+        long free = Math.max(0, limit - writePos.get());
+        return (int) Math.min(Integer.MAX_VALUE, free / HEADER);
+    }
+
+    @Override
+    public int drainTo(Collection<? super byte[]> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super byte[]> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        byte[] e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 弱一致迭代器：遍历创建时刻之后仍未被认领的已提交记录，不支持remove
+     */
+    @Override
+    public Iterator<byte[]> iterator() {
+        ensureOpen();
+        List<byte[]> snapshot = new ArrayList<>();
+        long pos = readPos.get();
+        long limit = writePos.get();
+        while (pos < limit) {
+            long segment = pos / segmentSize;
+            int offset = (int) (pos % segmentSize);
+            MappedByteBuffer buffer = segments.get(segment);
+            if (buffer == null) {
+                break;
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            if (header == END_OF_SEGMENT) {
+                pos = (segment + 1) * segmentSize;
+                continue;
+            }
+            if (header == 0 || (header & PENDING) != 0) {
+                break;
+            }
+            if ((header & CONSUMED) == 0) {
+                byte[] data = new byte[header & LENGTH_MASK];
+                buffer.get(offset + HEADER, data);
+                snapshot.add(data);
+            }
+            pos += recordSize(header & LENGTH_MASK);
+        }
+        Iterator<byte[]> it = snapshot.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public byte[] next() {
+                if (!it.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * 把所有段和meta刷到磁盘（进程崩溃不需要，防掉电才需要）
+     */
+    public void force() {
+        for (MappedByteBuffer buffer : segments.values()) {
+            buffer.force();
+        }
+        meta.force();
+    }
+
+    /**
+     * 当前有多少个段文件处于映射状态
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        segments.clear();
+        notEmpty.signalAll();
+        notFull.signalAll();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("队列已关闭: " + directory);
+        }
+    }
+
+    private static int recordSize(int length) {
+        return (HEADER + length + 3) & ~3;
+    }
+}
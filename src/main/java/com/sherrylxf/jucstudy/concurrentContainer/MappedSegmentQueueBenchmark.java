@@ -0,0 +1,175 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * MappedSegmentQueue 吞吐量与崩溃恢复时间测试
+ */
+public class MappedSegmentQueueBenchmark {
+
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * 并发生产-消费，返回总耗时（纳秒）
+     */
+    static long runProducerConsumer(BlockingQueue<byte[]> queue, int producers, int consumers,
+                                    int messagesPerProducer, int payloadSize) throws InterruptedException {
+        int total = producers * messagesPerProducer;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+        int[] quota = new int[consumers];
+        for (int i = 0; i < total; i++) {
+            quota[i % consumers]++;
+        }
+
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                byte[] payload = new byte[payloadSize];
+                try {
+                    start.await();
+                    for (int i = 0; i < messagesPerProducer; i++) {
+                        queue.put(payload);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int c = 0; c < consumers; c++) {
+            final int toTake = quota[c];
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < toTake; i++) {
+                        queue.take();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * 吞吐量对比：堆内 LinkedBlockingQueue vs 内存映射段队列
+     */
+    public static void demonstrateThroughput() {
+        System.out.println("\n========== MappedSegmentQueue吞吐量 ==========");
+
+        int producers = 2;
+        int consumers = 2;
+        int messagesPerProducer = 200_000;
+        int payloadSize = 64;
+        long total = (long) producers * messagesPerProducer;
+        System.out.println(producers + "个生产者, " + consumers + "个消费者, 共" + total + "条, 每条" + payloadSize + "字节");
+
+        Path dir = null;
+        try {
+            long heapNanos = runProducerConsumer(new LinkedBlockingQueue<>(), producers, consumers,
+                    messagesPerProducer, payloadSize);
+
+            dir = Files.createTempDirectory("mapped-queue");
+            long mappedNanos;
+            int segmentsInUse;
+            try (MappedSegmentQueue queue = new MappedSegmentQueue(dir, SEGMENT_SIZE)) {
+                mappedNanos = runProducerConsumer(queue, producers, consumers, messagesPerProducer, payloadSize);
+                segmentsInUse = queue.segmentCount();
+            }
+
+            System.out.printf("%-22s %12.2f Mops/s%n", "LinkedBlockingQueue", total * 1000.0 / heapNanos);
+            System.out.printf("%-22s %12.2f Mops/s%n", "MappedSegmentQueue", total * 1000.0 / mappedNanos);
+            System.out.println("消费完成后仍映射的段数: " + segmentsInUse + " (已消费完的段被回收复用)");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * 模拟崩溃：写入后只消费一半，不调用close直接丢弃实例，再重新打开同一目录
+     * 映射的页仍在页缓存中，效果等同于进程被kill
+     */
+    public static void demonstrateRecovery() {
+        System.out.println("\n========== MappedSegmentQueue崩溃恢复 ==========");
+
+        int messages = 500_000;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("mapped-queue-recovery");
+            MappedSegmentQueue crashed = new MappedSegmentQueue(dir, SEGMENT_SIZE);
+            TypedMappedQueue<Long> typed = new TypedMappedQueue<>(crashed, TypedMappedQueue.LONG);
+            long enqueueStart = System.nanoTime();
+            for (long i = 0; i < messages; i++) {
+                typed.put(i);
+            }
+            long enqueueNanos = System.nanoTime() - enqueueStart;
+            long dequeueStart = System.nanoTime();
+            for (int i = 0; i < messages / 2; i++) {
+                typed.take();
+            }
+            long dequeueNanos = System.nanoTime() - dequeueStart;
+            // 不close，模拟崩溃
+
+            long recoverStart = System.nanoTime();
+            try (TypedMappedQueue<Long> recovered =
+                         new TypedMappedQueue<>(new MappedSegmentQueue(dir, SEGMENT_SIZE), TypedMappedQueue.LONG)) {
+                long recoverNanos = System.nanoTime() - recoverStart;
+                Long first = recovered.peek();
+
+                System.out.printf("单线程入队: %.2f Mops/s%n", messages * 1000.0 / enqueueNanos);
+                System.out.printf("单线程出队: %.2f Mops/s%n", (messages / 2) * 1000.0 / dequeueNanos);
+                System.out.println("崩溃前剩余: " + (messages - messages / 2) + " 条");
+                System.out.println("恢复后剩余: " + recovered.size() + " 条, 队头元素: " + first
+                        + " (预期: " + (messages / 2) + ")");
+                System.out.printf("恢复耗时: %.2f ms%n", recoverNanos / 1_000_000.0);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deleteQuietly(dir);
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 数据不在堆里，突发积压不会引起GC压力");
+        System.out.println("  - 恢复只需从ackPos顺序扫描一遍未确认的记录头，耗时与积压量成正比");
+        System.out.println("  - 已认领未确认的记录会重新投递（至少一次），消费端需要幂等");
+    }
+
+    static void deleteQuietly(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void main(String[] args) {
+        demonstrateThroughput();
+        demonstrateRecovery();
+    }
+}
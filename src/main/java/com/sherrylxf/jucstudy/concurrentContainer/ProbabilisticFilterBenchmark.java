@@ -0,0 +1,140 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * 布隆过滤器 / Count-Min Sketch 与 ConcurrentHashMap 去重的对比：
+ * 不同线程数下的插入、查询吞吐量，以及内存占用和实际误判率
+ */
+public class ProbabilisticFilterBenchmark {
+
+    /**
+     * 把keys均分给threads个线程并发执行op，返回耗时（纳秒）
+     */
+    static long run(String[] keys, int threads, Consumer<String> op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        int chunk = (keys.length + threads - 1) / threads;
+        for (int t = 0; t < threads; t++) {
+            final int from = t * chunk;
+            final int to = Math.min(keys.length, from + chunk);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = from; i < to; i++) {
+                        op.accept(keys[i]);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== 布隆过滤器 / Count-Min Sketch vs ConcurrentHashMap ==========");
+
+        int n = 1_000_000;
+        double fpp = 0.01;
+        String[] keys = new String[n];
+        String[] absent = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = "order-" + i;
+            absent[i] = "missing-" + i;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = ContentionScalingHarness.threadCounts();
+
+        System.out.println("元素数: " + n + ", 目标误判率: " + fpp + ", CPU核数: " + cores);
+        System.out.printf("%-6s %14s %14s %14s %14s %14s%n", "线程数",
+                "Bloom put", "Bloom query", "CMS add", "CHM add", "CHM contains");
+        System.out.println("       (单位: 百万次/秒)");
+
+        try {
+            for (int threads : threadCounts) {
+                ConcurrentBloomFilter<String> bloom = ConcurrentBloomFilter.create(n, fpp);
+                ConcurrentCountMinSketch<String> cms = ConcurrentCountMinSketch.create(0.0001, 0.99);
+                Set<String> set = ConcurrentHashMap.newKeySet();
+
+                long bloomPut = run(keys, threads, bloom::put);
+                long bloomQuery = run(keys, threads, bloom::mightContain);
+                long cmsAdd = run(keys, threads, cms::add);
+                long chmAdd = run(keys, threads, set::add);
+                long chmContains = run(keys, threads, set::contains);
+
+                System.out.printf("%-6d %14.2f %14.2f %14.2f %14.2f %14.2f%n", threads,
+                        n * 1000.0 / bloomPut, n * 1000.0 / bloomQuery, n * 1000.0 / cmsAdd,
+                        n * 1000.0 / chmAdd, n * 1000.0 / chmContains);
+            }
+
+            // 内存与准确性
+            long before = usedHeap();
+            Set<String> set = ConcurrentHashMap.newKeySet();
+            for (String key : keys) {
+                set.add(key);
+            }
+            long setBytes = usedHeap() - before;
+            ConcurrentBloomFilter<String> bloom = ConcurrentBloomFilter.create(n, fpp);
+            ConcurrentCountMinSketch<String> cms = ConcurrentCountMinSketch.create(0.0001, 0.99);
+            for (String key : keys) {
+                bloom.put(key);
+                cms.add(key);
+            }
+            int falsePositives = 0;
+            for (String key : absent) {
+                if (bloom.mightContain(key)) {
+                    falsePositives++;
+                }
+            }
+            long overestimated = 0;
+            for (int i = 0; i < n; i += 100) {
+                overestimated += cms.estimate(keys[i]) - 1;
+            }
+
+            System.out.println();
+            System.out.printf("ConcurrentHashMap.newKeySet: %8.1f MB (约%.0f字节/key，不含key字符串本身)%n",
+                    setBytes / 1024.0 / 1024.0, (double) setBytes / n);
+            System.out.printf("布隆过滤器:                  %8.1f MB (%.1f位/key, k=%d)%n",
+                    bloom.memoryBytes() / 1024.0 / 1024.0, (double) bloom.bitSize() / n, bloom.hashFunctions());
+            System.out.printf("Count-Min Sketch:            %8.1f MB (%dx%d)%n",
+                    cms.memoryBytes() / 1024.0 / 1024.0, cms.depth(), cms.width());
+            System.out.printf("布隆实际误判率: %.4f (目标%.4f), 估算元素数: %d%n",
+                    (double) falsePositives / n, fpp, bloom.approximateElementCount());
+            System.out.printf("CMS平均高估: %.2f 次/key (真实值均为1)%n", overestimated / (n / 100.0));
+            set.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 1%误判率下布隆过滤器每key不到10位，比CHM小一到两个数量级");
+        System.out.println("  - 置位用CAS、查询是纯读，随线程数扩展；已置位时不写，热点元素不引起缓存行争用");
+        System.out.println("  - 能接受少量误判（再回源确认）的去重场景，可以先过布隆过滤器");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
@@ -0,0 +1,311 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点key分段计数Map
+ *
+ * 对比 map.computeIfAbsent(k, ...).incrementAndGet() 的写法：
+ * - 每个key只有一个AtomicInteger，热点key上所有线程CAS同一个内存字，失败重试、缓存行来回失效
+ * - 这里每个key先用一个普通的long（CAS更新），只有当这个key上真的出现CAS失败（竞争）时，
+ *   才懒加载一个LongAdder，把后续的更新打散到多个Cell上
+ * - 没有竞争的key不会膨胀出LongAdder，但每个key固定要一个Counter、一个Slot[2]数组和两个Slot
+ *   （两个纪元各一个），压缩指针下约110字节，比一个AtomicInteger（16字节）大得多
+ *
+ * topK 的一致性切面用纪元翻转实现：
+ * - 每个key的计数分成两半，写入者按当前纪元（epoch）写到对应的那一半
+ * - topK 翻转纪元，等进入旧纪元的写入者全部退出（entered/exited 两个只增不减的计数相等），
+ *   这时旧的那一半不会再变，把它并入 settled，各key的 settled 就是同一时刻的计数
+ * - 写入者为此多付两次LongAdder自增，都落在各线程自己的Cell上，不会在热点key上再制造争用
+ *
+ * 注意：和LongAdder一样，sum()不是原子快照，读的同时有写入时返回的是某个中间值
+ */
+public class StripedCountingMap<K> {
+
+    private final ConcurrentHashMap<K, Counter> counters = new ConcurrentHashMap<>();
+    private final int contentionThreshold;
+
+    /**
+     * 写入者当前使用的半边计数，只有 topK 翻转
+     */
+    private volatile int epoch;
+    private final LongAdder[] entered = {new LongAdder(), new LongAdder()};
+    private final LongAdder[] exited = {new LongAdder(), new LongAdder()};
+    private final Object snapshotLock = new Object();
+
+    public StripedCountingMap() {
+        this(1);
+    }
+
+    /**
+     * @param contentionThreshold 某个key累计CAS失败多少次后升级为分段计数
+     */
+    public StripedCountingMap(int contentionThreshold) {
+        if (contentionThreshold < 1) {
+            throw new IllegalArgumentException("contentionThreshold必须大于0: " + contentionThreshold);
+        }
+        this.contentionThreshold = contentionThreshold;
+    }
+
+    /**
+     * 半边计数：base + 懒加载的LongAdder
+     */
+    static final class Slot {
+        private static final VarHandle BASE;
+        private static final VarHandle STRIPED;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                BASE = lookup.findVarHandle(Slot.class, "base", long.class);
+                STRIPED = lookup.findVarHandle(Slot.class, "striped", LongAdder.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long base;
+        private volatile LongAdder striped;
+        // 只是启发式计数，允许丢失更新，所以用普通字段
+        private int contention;
+
+        void add(long x, int threshold) {
+            LongAdder s = striped;
+            if (s != null) {
+                s.add(x);
+                return;
+            }
+            long b = base;
+            if (BASE.compareAndSet(this, b, b + x)) {
+                return;
+            }
+            // CAS失败说明这个key出现了竞争
+            if (++contention >= threshold) {
+                s = inflate();
+                s.add(x);
+                return;
+            }
+            BASE.getAndAdd(this, x);
+        }
+
+        private LongAdder inflate() {
+            LongAdder s = striped;
+            if (s == null) {
+                LongAdder created = new LongAdder();
+                s = STRIPED.compareAndSet(this, null, created) ? created : striped;
+            }
+            return s;
+        }
+
+        long sum() {
+            LongAdder s = striped;
+            return s == null ? base : base + s.sum();
+        }
+
+        long sumThenReset() {
+            long sum = (long) BASE.getAndSet(this, 0L);
+            LongAdder s = striped;
+            if (s != null) {
+                sum += s.sumThenReset();
+            }
+            return sum;
+        }
+
+        boolean isStriped() {
+            return striped != null;
+        }
+    }
+
+    /**
+     * 单个key的计数器：两个纪元各一半，加上 topK 已经并入的部分
+     */
+    static final class Counter {
+        private static final VarHandle SETTLED;
+
+        static {
+            try {
+                SETTLED = MethodHandles.lookup().findVarHandle(Counter.class, "settled", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final Slot[] slots = {new Slot(), new Slot()};
+        private volatile long settled;
+
+        long sum() {
+            return settled + slots[0].sum() + slots[1].sum();
+        }
+
+        long sumThenReset() {
+            long sum = (long) SETTLED.getAndSet(this, 0L);
+            return sum + slots[0].sumThenReset() + slots[1].sumThenReset();
+        }
+
+        /**
+         * 把已经没有写入者的那一半并入 settled，返回并入后的值
+         */
+        long settle(int retired) {
+            long delta = slots[retired].sumThenReset();
+            return (long) SETTLED.getAndAdd(this, delta) + delta;
+        }
+
+        boolean isStriped() {
+            return slots[0].isStriped() || slots[1].isStriped();
+        }
+    }
+
+    private Counter counter(K key) {
+        Counter c = counters.get(key);
+        if (c == null) {
+            c = counters.computeIfAbsent(key, k -> new Counter());
+        }
+        return c;
+    }
+
+    public void increment(K key) {
+        add(key, 1L);
+    }
+
+    public void add(K key, long delta) {
+        Counter c = counter(key);
+        for (;;) {
+            int e = epoch;
+            entered[e].increment();
+            try {
+                // 登记之后纪元没变，topK 翻转后一定会等这次写入退出；变了就换到新纪元重来
+                if (epoch == e) {
+                    c.slots[e].add(delta, contentionThreshold);
+                    return;
+                }
+            } finally {
+                exited[e].increment();
+            }
+        }
+    }
+
+    /**
+     * 返回key的当前计数，不存在返回0
+     */
+    public long sum(K key) {
+        Counter c = counters.get(key);
+        return c == null ? 0L : c.sum();
+    }
+
+    /**
+     * 返回计数并清零（适合按时间窗口上报）
+     * 与sum之后再reset不同，这里每一次增量要么计入本次返回值，要么留到下一窗口，不会丢失
+     */
+    public long sumThenReset(K key) {
+        Counter c = counters.get(key);
+        return c == null ? 0L : c.sumThenReset();
+    }
+
+    /**
+     * 所有key的计数之和
+     */
+    public long sum() {
+        long total = 0;
+        for (Counter c : counters.values()) {
+            total += c.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 所有key计数求和并清零，返回每个key本窗口的计数
+     */
+    public Map<K, Long> sumThenReset() {
+        Map<K, Long> result = new HashMap<>();
+        counters.forEach((k, c) -> {
+            long v = c.sumThenReset();
+            if (v != 0) {
+                result.put(k, v);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 每个出现过的key的当前计数，计数为0的key也会返回（有正有负的增量相互抵消时，key依然存在）
+     */
+    public Map<K, Long> sums() {
+        Map<K, Long> result = new HashMap<>();
+        counters.forEach((k, c) -> result.put(k, c.sum()));
+        return result;
+    }
+
+    /**
+     * Top-K快照
+     *
+     * 一致性说明：返回的是纪元翻转那一刻所有key的计数（全局一致的切面），
+     * 翻转之前完成的写入都计入，之后开始的写入都不计入；写入者不会被阻塞，
+     * 只有 topK 自己要等翻转前已经进入的写入者退出（通常只是几次CAS的时间）。
+     * 多个 topK 之间串行；和 sumThenReset 并发时不保证切面，但计数不会丢失或重复。
+     *
+     * @return 按计数降序排列的前k个条目
+     */
+    public List<Map.Entry<K, Long>> topK(int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        Comparator<Map.Entry<K, Long>> byCount = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<K, Long>> heap = new PriorityQueue<>(k, byCount);
+        synchronized (snapshotLock) {
+            int retired = epoch;
+            epoch = retired ^ 1;
+            awaitWriters(retired);
+            counters.forEach((key, c) -> offer(heap, k, Map.entry(key, c.settle(retired))));
+        }
+        List<Map.Entry<K, Long>> result = new ArrayList<>(heap);
+        result.sort(byCount.reversed());
+        return result;
+    }
+
+    private static <K> void offer(PriorityQueue<Map.Entry<K, Long>> heap, int k, Map.Entry<K, Long> entry) {
+        if (heap.size() < k) {
+            heap.offer(entry);
+        } else if (entry.getValue() > heap.peek().getValue()) {
+            heap.poll();
+            heap.offer(entry);
+        }
+    }
+
+    /**
+     * 等待进入 retired 纪元的写入者全部退出
+     *
+     * 先读 exited 再读 entered：两个都只增不减，exited 里的每次退出对应的进入一定也被读到了，
+     * 所以两者相等时，读 entered 之前进入的写入者都已经退出
+     */
+    private void awaitWriters(int retired) {
+        while (exited[retired].sum() != entered[retired].sum()) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * 已升级为分段计数的key数量（用于观察热点）
+     */
+    public int stripedKeyCount() {
+        int n = 0;
+        for (Counter c : counters.values()) {
+            if (c.isStriped()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+}
@@ -0,0 +1,174 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * StripedCountingMap 与 computeIfAbsent(...).incrementAndGet() 写法在Zipfian流量下的对比
+ *
+ * Zipfian分布：第i个key被访问的概率正比于 1 / i^s，少数key拿走绝大部分流量，
+ * 和真实的热点统计场景（热门商品、热门接口）很接近
+ */
+public class StripedCountingMapBenchmark {
+
+    /**
+     * Zipfian key生成器：预先计算CDF，生成时二分查找
+     */
+    static class ZipfianGenerator {
+        private final double[] cdf;
+
+        ZipfianGenerator(int keyCount, double skew) {
+            cdf = new double[keyCount];
+            double sum = 0;
+            for (int i = 0; i < keyCount; i++) {
+                sum += 1.0 / Math.pow(i + 1, skew);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < keyCount; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        int next(ThreadLocalRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cdf.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * 预先为每个线程生成key序列，避免随机数生成的开销混入计时
+     */
+    static String[][] generateTraffic(int threads, int opsPerThread, int keyCount, double skew) {
+        ZipfianGenerator zipf = new ZipfianGenerator(keyCount, skew);
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key" + i;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[][] traffic = new String[threads][opsPerThread];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < opsPerThread; i++) {
+                traffic[t][i] = keys[zipf.next(random)];
+            }
+        }
+        return traffic;
+    }
+
+    /**
+     * 所有线程同时开始，返回总耗时（纳秒）
+     */
+    static long runThreads(String[][] traffic, Consumer<String> op) throws InterruptedException {
+        int threads = traffic.length;
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final String[] keys = traffic[t];
+            new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    for (String key : keys) {
+                        op.accept(key);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * 按线程数对比吞吐量
+     */
+    public static void demonstrateZipfianComparison() {
+        System.out.println("\n========== 热点key计数对比（Zipfian流量） ==========");
+
+        int keyCount = 1000;
+        double skew = 1.1;
+        int opsPerThread = 500_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        TreeSet<Integer> threadCounts = new TreeSet<>();
+        threadCounts.add(1);
+        threadCounts.add(2);
+        threadCounts.add(cores);
+        threadCounts.add(cores * 2);
+
+        System.out.println("key数量: " + keyCount + ", 倾斜度s=" + skew + ", 每线程操作数: " + opsPerThread
+                + ", CPU核数: " + cores);
+        System.out.printf("%-8s %22s %22s %12s%n", "线程数", "AtomicInteger(Mops/s)", "StripedMap(Mops/s)", "分段key数");
+
+        try {
+            for (int threads : threadCounts) {
+                String[][] traffic = generateTraffic(threads, opsPerThread, keyCount, skew);
+                long totalOps = (long) threads * opsPerThread;
+
+                // 预热一轮再计时
+                ConcurrentHashMap<String, AtomicInteger> atomicMap = new ConcurrentHashMap<>();
+                runThreads(traffic, k -> atomicMap.computeIfAbsent(k, x -> new AtomicInteger()).incrementAndGet());
+                atomicMap.clear();
+                long atomicNanos = runThreads(traffic,
+                        k -> atomicMap.computeIfAbsent(k, x -> new AtomicInteger()).incrementAndGet());
+
+                StripedCountingMap<String> stripedMap = new StripedCountingMap<>();
+                runThreads(traffic, stripedMap::increment);
+                stripedMap.sumThenReset();
+                long stripedNanos = runThreads(traffic, stripedMap::increment);
+
+                long atomicTotal = atomicMap.values().stream().mapToLong(AtomicInteger::get).sum();
+                if (atomicTotal != totalOps || stripedMap.sum() != totalOps) {
+                    throw new IllegalStateException("计数不一致: atomic=" + atomicTotal + ", striped=" + stripedMap.sum());
+                }
+
+                System.out.printf("%-8d %22.2f %22.2f %12d%n", threads,
+                        totalOps * 1000.0 / atomicNanos,
+                        totalOps * 1000.0 / stripedNanos,
+                        stripedMap.stripedKeyCount());
+
+                if (threads == threadCounts.last()) {
+                    System.out.println();
+                    System.out.println("Top-5 热点key:");
+                    for (Map.Entry<String, Long> e : stripedMap.topK(5)) {
+                        System.out.println("  " + e.getKey() + " = " + e.getValue());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 单线程时两者接近（都只有一次CAS）");
+        System.out.println("  - 线程增多后，热点key上的AtomicInteger成为瓶颈，分段计数随核数扩展");
+        System.out.println("  - 只有出现过竞争的key才会升级出LongAdder；但为了topK的纪元切面，每个key固定占一个Counter、");
+        System.out.println("    一个Slot[2]数组和两个Slot（压缩指针下约110字节），key很多又大多冷门时内存比AtomicInteger多好几倍");
+    }
+
+    public static void main(String[] args) {
+        demonstrateZipfianComparison();
+    }
+}
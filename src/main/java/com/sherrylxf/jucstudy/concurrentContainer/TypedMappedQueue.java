@@ -0,0 +1,158 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MappedSegmentQueue 之上的类型化包装
+ * 入队时用 Codec 编码成 byte[]，出队时解码，阻塞/持久化语义完全由底层队列提供
+ */
+public class TypedMappedQueue<T> extends AbstractQueue<T> implements BlockingQueue<T>, Closeable {
+
+    /**
+     * 元素与字节之间的编解码
+     */
+    public interface Codec<T> {
+        byte[] encode(T value);
+
+        T decode(byte[] bytes);
+    }
+
+    /**
+     * UTF-8字符串编解码
+     */
+    public static final Codec<String> STRING = new Codec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * long编解码（8字节大端）
+     */
+    public static final Codec<Long> LONG = new Codec<>() {
+        @Override
+        public byte[] encode(Long value) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+        }
+
+        @Override
+        public Long decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+    };
+
+    private final MappedSegmentQueue delegate;
+    private final Codec<T> codec;
+
+    public TypedMappedQueue(MappedSegmentQueue delegate, Codec<T> codec) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.codec = Objects.requireNonNull(codec);
+    }
+
+    private T decode(byte[] bytes) {
+        return bytes == null ? null : codec.decode(bytes);
+    }
+
+    @Override
+    public boolean offer(T e) {
+        return delegate.offer(codec.encode(Objects.requireNonNull(e)));
+    }
+
+    @Override
+    public void put(T e) throws InterruptedException {
+        delegate.put(codec.encode(Objects.requireNonNull(e)));
+    }
+
+    @Override
+    public boolean offer(T e, long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.offer(codec.encode(Objects.requireNonNull(e)), timeout, unit);
+    }
+
+    @Override
+    public T poll() {
+        return decode(delegate.poll());
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        return codec.decode(delegate.take());
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return decode(delegate.poll(timeout, unit));
+    }
+
+    @Override
+    public T peek() {
+        return decode(delegate.peek());
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        T e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 弱一致迭代器，语义同底层队列
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<byte[]> it = delegate.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return codec.decode(it.next());
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
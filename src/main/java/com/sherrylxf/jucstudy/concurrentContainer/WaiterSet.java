@@ -0,0 +1,89 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 挂起线程登记表
+ * 等待方：登记 -> 再检查条件 -> parkNanos -> 注销
+ * 通知方：只读一次计数，为0时什么都不做，只有确实有线程挂起时才 unpark
+ *
+ * 计数的自增和读取都是volatile操作，与被等待数据本身的volatile写/读配合，
+ * 保证"通知方看不到挂起者"和"等待方看不到新数据"不会同时发生（不会丢失唤醒）
+ *
+ * 每个登记项有状态 WAITING -> SIGNALLED / LEFT，通知方和醒来的等待方用CAS抢：
+ * signal 跳过已经醒来正在注销、或已经被别人通知过的线程，保证这次唤醒落在一个还在等的线程上
+ */
+final class WaiterSet {
+
+    private static final int WAITING = 0;
+    private static final int SIGNALLED = 1;
+    private static final int LEFT = 2;
+
+    private static final class Node {
+        final Thread thread;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Node(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Node> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    /**
+     * @param stillBlocked 登记之后再检查一次，仍然需要等待才真正park
+     */
+    void park(Object blocker, long nanos, BooleanSupplier stillBlocked) {
+        Node node = new Node(Thread.currentThread());
+        waiters.offer(node);
+        count.incrementAndGet();
+        try {
+            if (stillBlocked.getAsBoolean()) {
+                LockSupport.parkNanos(blocker, nanos);
+            }
+        } finally {
+            // 超时或提前返回：标记为LEFT，之后的signal不会再选中自己
+            node.state.compareAndSet(WAITING, LEFT);
+            count.decrementAndGet();
+            waiters.remove(node);
+        }
+    }
+
+    /**
+     * 唤醒一个挂起的线程（如果有）
+     */
+    void signal() {
+        if (count.get() > 0) {
+            for (Node node : waiters) {
+                if (node.state.compareAndSet(WAITING, SIGNALLED)) {
+                    LockSupport.unpark(node.thread);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 唤醒所有挂起的线程
+     */
+    void signalAll() {
+        if (count.get() > 0) {
+            for (Node node : waiters) {
+                if (node.state.compareAndSet(WAITING, SIGNALLED)) {
+                    LockSupport.unpark(node.thread);
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前挂起的线程数（近似值）
+     */
+    int size() {
+        return count.get();
+    }
+}
@@ -0,0 +1,285 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 ChaseLevDeque 的固定大小工作窃取调度器
+ *
+ * 结构与 ForkJoinPool 相同的思路，去掉了大部分工程细节，便于观察窃取机制：
+ * - 每个工作线程一个 ChaseLevDeque，fork() 压入当前线程自己的队列底部
+ * - 工作线程优先从自己队列底部取任务（LIFO），没有时从外部提交队列取，再没有就随机挑选受害者窃取
+ * - join() 时不阻塞：先把自己队列里的任务拿出来执行，再去窃取别人的，直到等待的任务完成；
+ *   什么都拿不到（等的任务正被别的线程执行）时同样按 IdleStrategy 退避，任务完成时被唤醒
+ * - 完全空闲时按 IdleStrategy 逐级退避，最终 park；fork/submit 只在确有线程挂起时才 unpark
+ */
+public class WorkStealingScheduler implements AutoCloseable {
+
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<Task<?>> submissions = new ConcurrentLinkedQueue<>();
+    private final WaiterSet idleWorkers = new WaiterSet();
+    private final WaiterSet externalWaiters = new WaiterSet();
+    private final WaiterSet joiners = new WaiterSet();
+    private final LongAdder steals = new LongAdder();
+    private volatile boolean running = true;
+
+    public WorkStealingScheduler(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism必须大于0: " + parallelism);
+        }
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * 可拆分的任务，用法与 RecursiveTask 类似
+     */
+    public abstract static class Task<V> {
+        private volatile boolean done;
+        private V result;
+        private Throwable exception;
+        /** 由外部线程通过invoke提交，完成时需要唤醒外部等待者 */
+        private boolean external;
+
+        /**
+         * 任务主体，在其中调用子任务的 fork()/join()
+         */
+        protected abstract V compute();
+
+        /**
+         * 把任务压入当前工作线程的队列，由自己或其他线程窃取执行
+         */
+        public final Task<V> fork() {
+            Thread current = Thread.currentThread();
+            if (!(current instanceof Worker)) {
+                throw new IllegalStateException("fork()只能在调度器的工作线程中调用");
+            }
+            ((Worker) current).push(this);
+            return this;
+        }
+
+        /**
+         * 等待任务完成并返回结果；等待期间当前工作线程会执行其他任务而不是阻塞
+         */
+        public final V join() {
+            if (!done) {
+                Thread current = Thread.currentThread();
+                if (current instanceof Worker) {
+                    ((Worker) current).helpUntilDone(this);
+                } else {
+                    throw new IllegalStateException("join()只能在工作线程中调用，外部线程请使用invoke()");
+                }
+            }
+            return reportResult();
+        }
+
+        final void run() {
+            if (done) {
+                return;
+            }
+            try {
+                result = compute();
+            } catch (Throwable ex) {
+                exception = ex;
+            }
+            done = true;
+        }
+
+        public final boolean isDone() {
+            return done;
+        }
+
+        private V reportResult() {
+            Throwable ex = exception;
+            if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 提交任务并等待结果
+     *
+     * 在本调度器的工作线程里（例如某个 compute 内部）调用时，不走外部提交队列，
+     * 而是 fork 到自己的队列再 join：否则工作线程挂起等待，parallelism为1时没人执行这个任务
+     */
+    public <V> V invoke(Task<V> task) throws InterruptedException, ExecutionException {
+        if (!running) {
+            throw new IllegalStateException("调度器已关闭");
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).owner() == this) {
+            Worker worker = (Worker) current;
+            worker.push(task);
+            worker.helpUntilDone(task);
+            if (task.exception != null) {
+                throw new ExecutionException(task.exception);
+            }
+            return task.result;
+        }
+        task.external = true;
+        submissions.offer(task);
+        idleWorkers.signal();
+        IdleStrategy strategy = IdleStrategy.backoff();
+        while (!task.isDone()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            strategy.idle(nanos -> externalWaiters.park(this, nanos, () -> !task.isDone()));
+        }
+        if (task.exception != null) {
+            throw new ExecutionException(task.exception);
+        }
+        return task.result;
+    }
+
+    /**
+     * 工作线程
+     */
+    private final class Worker extends Thread {
+        final ChaseLevDeque<Task<?>> deque = new ChaseLevDeque<>();
+        final int index;
+
+        Worker(int index) {
+            super("ws-worker-" + index);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        WorkStealingScheduler owner() {
+            return WorkStealingScheduler.this;
+        }
+
+        void push(Task<?> task) {
+            deque.push(task);
+            idleWorkers.signal();
+        }
+
+        @Override
+        public void run() {
+            IdleStrategy strategy = IdleStrategy.backoff();
+            while (running) {
+                Task<?> task = findTask();
+                if (task != null) {
+                    strategy.reset();
+                    runTask(task);
+                } else {
+                    strategy.idle(nanos -> idleWorkers.park(WorkStealingScheduler.this, nanos, this::nothingToDo));
+                }
+            }
+        }
+
+        private void runTask(Task<?> task) {
+            task.run();
+            if (task.external) {
+                externalWaiters.signalAll();
+            }
+            // 可能有工作线程在join这个任务时挂起了；没有挂起者时只是一次volatile读
+            joiners.signalAll();
+        }
+
+        /**
+         * 自己的队列 -> 外部提交队列 -> 随机窃取
+         */
+        private Task<?> findTask() {
+            Task<?> task = deque.pop();
+            if (task == null) {
+                task = submissions.poll();
+            }
+            if (task == null) {
+                task = trySteal();
+            }
+            return task;
+        }
+
+        /**
+         * 从随机位置开始，每个受害者尝试一次
+         */
+        private Task<?> trySteal() {
+            int n = workers.length;
+            if (n == 1) {
+                return null;
+            }
+            int start = ThreadLocalRandom.current().nextInt(n);
+            for (int i = 0; i < n; i++) {
+                Worker victim = workers[(start + i) % n];
+                if (victim != this) {
+                    Task<?> task = victim.deque.steal();
+                    if (task != null) {
+                        steals.increment();
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * join时"帮忙"：执行自己队列里的任务（很可能就是正在等的那个），否则去窃取；
+         * 都没有时说明等的任务正在别的线程上执行，按退避策略等待，它完成时 runTask 会唤醒这里
+         */
+        void helpUntilDone(Task<?> awaited) {
+            IdleStrategy strategy = IdleStrategy.backoff();
+            while (!awaited.isDone()) {
+                Task<?> task = deque.pop();
+                if (task == null) {
+                    task = trySteal();
+                }
+                if (task != null) {
+                    strategy.reset();
+                    runTask(task);
+                } else {
+                    strategy.idle(nanos -> joiners.park(WorkStealingScheduler.this, nanos, () -> !awaited.isDone()));
+                }
+            }
+        }
+
+        private boolean nothingToDo() {
+            if (!running || !deque.isEmpty() || !submissions.isEmpty()) {
+                return false;
+            }
+            for (Worker worker : workers) {
+                if (!worker.deque.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 累计窃取次数
+     */
+    public long getStealCount() {
+        return steals.sum();
+    }
+
+    public int getParallelism() {
+        return workers.length;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        idleWorkers.signalAll();
+        for (Worker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
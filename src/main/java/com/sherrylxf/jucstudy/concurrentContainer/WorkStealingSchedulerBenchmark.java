@@ -0,0 +1,210 @@
+package com.sherrylxf.jucstudy.concurrentContainer;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * WorkStealingScheduler 与 ForkJoinPool 在递归分治任务上的对比：
+ * - fib(n)：任务粒度很小、数量很多，考验fork/join本身的开销
+ * - 数组求和：任务粒度较大，考验窃取带来的负载均衡
+ */
+public class WorkStealingSchedulerBenchmark {
+
+    private static final int FIB_N = 30;
+    private static final int FIB_THRESHOLD = 12;
+    private static final int SUM_THRESHOLD = 10_000;
+
+    static long fibSequential(int n) {
+        return n < 2 ? n : fibSequential(n - 1) + fibSequential(n - 2);
+    }
+
+    static long sumSequential(long[] array, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    static class WsFib extends WorkStealingScheduler.Task<Long> {
+        private final int n;
+
+        WsFib(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= FIB_THRESHOLD) {
+                return fibSequential(n);
+            }
+            WsFib left = new WsFib(n - 1);
+            left.fork();
+            long right = new WsFib(n - 2).compute();
+            return left.join() + right;
+        }
+    }
+
+    static class FjFib extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+
+        FjFib(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= FIB_THRESHOLD) {
+                return fibSequential(n);
+            }
+            FjFib left = new FjFib(n - 1);
+            left.fork();
+            long right = new FjFib(n - 2).compute();
+            return left.join() + right;
+        }
+    }
+
+    static class WsSum extends WorkStealingScheduler.Task<Long> {
+        private final long[] array;
+        private final int from;
+        private final int to;
+
+        WsSum(long[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SUM_THRESHOLD) {
+                return sumSequential(array, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            WsSum left = new WsSum(array, from, mid);
+            left.fork();
+            long right = new WsSum(array, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    static class FjSum extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] array;
+        private final int from;
+        private final int to;
+
+        FjSum(long[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SUM_THRESHOLD) {
+                return sumSequential(array, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            FjSum left = new FjSum(array, from, mid);
+            left.fork();
+            long right = new FjSum(array, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== WorkStealingScheduler vs ForkJoinPool ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long[] array = new long[20_000_000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i % 1000;
+        }
+        long expectedFib = fibSequential(FIB_N);
+        long expectedSum = sumSequential(array, 0, array.length);
+        int rounds = 5;
+
+        System.out.println("CPU核数: " + cores + ", fib(" + FIB_N + ") 阈值" + FIB_THRESHOLD
+                + ", 数组求和 " + array.length + " 个元素 阈值" + SUM_THRESHOLD);
+        System.out.printf("%-6s %-10s %14s %14s %12s%n", "并行度", "负载", "自研(ms)", "ForkJoin(ms)", "自研窃取数");
+
+        for (int parallelism : ContentionScalingHarness.threadCounts()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try (WorkStealingScheduler scheduler = new WorkStealingScheduler(parallelism)) {
+                // 预热
+                for (int i = 0; i < 3; i++) {
+                    scheduler.invoke(new WsFib(FIB_N - 4));
+                    pool.invoke(new FjFib(FIB_N - 4));
+                }
+
+                long stealsBefore = scheduler.getStealCount();
+                long wsFib = Long.MAX_VALUE;
+                long fjFib = Long.MAX_VALUE;
+                for (int r = 0; r < rounds; r++) {
+                    long begin = System.nanoTime();
+                    long result = scheduler.invoke(new WsFib(FIB_N));
+                    wsFib = Math.min(wsFib, System.nanoTime() - begin);
+                    check(result, expectedFib);
+
+                    begin = System.nanoTime();
+                    result = pool.invoke(new FjFib(FIB_N));
+                    fjFib = Math.min(fjFib, System.nanoTime() - begin);
+                    check(result, expectedFib);
+                }
+                long fibSteals = (scheduler.getStealCount() - stealsBefore) / rounds;
+
+                stealsBefore = scheduler.getStealCount();
+                long wsSum = Long.MAX_VALUE;
+                long fjSum = Long.MAX_VALUE;
+                for (int r = 0; r < rounds; r++) {
+                    long begin = System.nanoTime();
+                    long result = scheduler.invoke(new WsSum(array, 0, array.length));
+                    wsSum = Math.min(wsSum, System.nanoTime() - begin);
+                    check(result, expectedSum);
+
+                    begin = System.nanoTime();
+                    result = pool.invoke(new FjSum(array, 0, array.length));
+                    fjSum = Math.min(fjSum, System.nanoTime() - begin);
+                    check(result, expectedSum);
+                }
+                long sumSteals = (scheduler.getStealCount() - stealsBefore) / rounds;
+
+                System.out.printf("%-6d %-10s %14.2f %14.2f %12d%n", parallelism, "fib",
+                        wsFib / 1e6, fjFib / 1e6, fibSteals);
+                System.out.printf("%-6d %-10s %14.2f %14.2f %12d%n", parallelism, "数组求和",
+                        wsSum / 1e6, fjSum / 1e6, sumSteals);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+                return;
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 每轮取最短耗时；窃取数远小于任务总数，说明大部分任务在所有者线程本地LIFO执行");
+        System.out.println("  - 被窃取的是队列顶部最早压入的大任务，一次窃取就能分走一大块工作");
+        System.out.println("  - ForkJoinPool 还做了补偿线程、任务队列压缩、spin/park调优等，差距主要来自这些工程细节");
+    }
+
+    private static void check(long actual, long expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("结果错误: " + actual + " != " + expected);
+        }
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
@@ -0,0 +1,30 @@
+package com.sherrylxf.jucstudy.jmm;
+
+/**
+ * VarHandle 的内存访问模式，从强到弱
+ *
+ * 单写者的统计字段、状态标志只需要"读者最终能看到、且不撕裂"，
+ * 用 volatile 写要为用不上的顺序一致性付出 StoreLoad 屏障（x86上是 lock 前缀指令）。
+ */
+public enum AccessMode {
+
+    /**
+     * setVolatile / getVolatile：顺序一致。所有线程对所有 volatile 访问看到同一个全局顺序，
+     * 能解决 SB（Dekker）问题；写之后有 StoreLoad 屏障，是最贵的写
+     */
+    VOLATILE,
+
+    /**
+     * setRelease / getAcquire：因果顺序。setRelease 之前的所有读写不会重排到它之后，
+     * getAcquire 之后的读写不会重排到它之前；读到这次写入的线程一定能看到写入之前的所有修改（MP模式）。
+     * 不保证 SB：自己写完再读别的变量，可能读到旧值。x86上写和读都是普通 mov，只禁止编译器重排
+     */
+    RELEASE_ACQUIRE,
+
+    /**
+     * setOpaque / getOpaque：只保证对这一个变量的访问不撕裂、不被编译器消除或提升出循环、
+     * 同一变量的修改顺序对所有线程一致，写入最终可见。与其他变量之间没有任何顺序保证，
+     * 适合只看数值本身的计数器、进度值，不能用来发布其他数据
+     */
+    OPAQUE
+}
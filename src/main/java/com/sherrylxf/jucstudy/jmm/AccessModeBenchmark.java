@@ -0,0 +1,145 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单写者计数器在各访问模式下的写吞吐量和读延迟
+ *
+ * - 写吞吐：单个写者连续 increment，无读者 / 有一个读者一直在读
+ * - 读开销：读者连续 get 的平均耗时
+ * - 可见延迟：两个计数器做乒乓，一方写、另一方看到后回写，往返时间的一半
+ */
+public class AccessModeBenchmark {
+
+    private static final int WRITES = 50_000_000;
+    private static final int READS = 50_000_000;
+    private static final int PING_PONG_ROUNDS = 20_000;
+    /**
+     * 读者读到的值累加到这里，最后打印出来，防止JIT把读循环当成死代码消除
+     */
+    private static final LongAdder CHECKSUM = new LongAdder();
+
+    /**
+     * 单写者连续写，返回每次写的纳秒数；withReader 为true时另有一个线程一直读
+     */
+    static double writeNanos(SingleWriterCounter counter, boolean withReader) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread reader = null;
+        if (withReader) {
+            reader = new Thread(() -> {
+                long sink = 0;
+                while (running.get()) {
+                    sink += counter.get();
+                }
+                CHECKSUM.add(sink);
+            });
+            reader.start();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            counter.increment();
+        }
+        long nanos = System.nanoTime() - begin;
+        running.set(false);
+        if (reader != null) {
+            reader.join();
+        }
+        return (double) nanos / WRITES;
+    }
+
+    static double atomicLongWriteNanos() {
+        AtomicLong counter = new AtomicLong();
+        long begin = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            counter.incrementAndGet();
+        }
+        return (double) (System.nanoTime() - begin) / WRITES;
+    }
+
+    static double readNanos(SingleWriterCounter counter) {
+        long sink = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            sink += counter.get();
+        }
+        long nanos = System.nanoTime() - begin;
+        CHECKSUM.add(sink);
+        return (double) nanos / READS;
+    }
+
+    /**
+     * 乒乓：主线程写ping，对方看到后写pong，主线程看到pong再进入下一轮；返回单程的纳秒数
+     */
+    static double pingPongNanos(AccessMode mode) throws InterruptedException {
+        SingleWriterCounter ping = new SingleWriterCounter(mode);
+        SingleWriterCounter pong = new SingleWriterCounter(mode);
+        Thread responder = new Thread(() -> {
+            for (int round = 1; round <= PING_PONG_ROUNDS; round++) {
+                awaitValue(ping, round);
+                pong.increment();
+            }
+        });
+        responder.start();
+        long begin = System.nanoTime();
+        for (int round = 1; round <= PING_PONG_ROUNDS; round++) {
+            ping.increment();
+            awaitValue(pong, round);
+        }
+        long nanos = System.nanoTime() - begin;
+        responder.join();
+        return (double) nanos / PING_PONG_ROUNDS / 2;
+    }
+
+    private static void awaitValue(SingleWriterCounter counter, long expected) {
+        int spins = 0;
+        while (counter.get() < expected) {
+            // 核数不够时对方线程得不到CPU，自旋一会儿就让出
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== 单写者计数器：volatile vs release/acquire vs opaque ==========");
+
+        System.out.println("CPU核数: " + Runtime.getRuntime().availableProcessors() + ", 写次数: " + WRITES
+                + ", 读次数: " + READS + ", 乒乓轮数: " + PING_PONG_ROUNDS);
+        System.out.printf("%-18s %14s %16s %12s %14s%n", "模式", "写(ns/次)", "有读者时写(ns/次)", "读(ns/次)", "可见延迟(ns)");
+
+        try {
+            for (AccessMode mode : AccessMode.values()) {
+                // 预热
+                writeNanos(new SingleWriterCounter(mode), false);
+                double write = writeNanos(new SingleWriterCounter(mode), false);
+                double contended = writeNanos(new SingleWriterCounter(mode), true);
+                readNanos(new SingleWriterCounter(mode));
+                double read = readNanos(new SingleWriterCounter(mode));
+                double latency = pingPongNanos(mode);
+                System.out.printf("%-18s %14.2f %16.2f %12.2f %14.0f%n", mode, write, contended, read, latency);
+            }
+            atomicLongWriteNanos();
+            System.out.printf("%-18s %14.2f %16s %12s %14s%n", "AtomicLong(对照)", atomicLongWriteNanos(), "-", "-", "-");
+            System.out.println("(校验和: " + CHECKSUM.sum() + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - volatile写后面跟着StoreLoad屏障（x86上是lock前缀指令），单写者场景下是最贵的写，和AtomicLong自增差不多");
+        System.out.println("  - release/opaque写在x86上就是普通mov，只禁止编译器重排，单写者的写快好几倍");
+        System.out.println("  - 读端在x86上三种模式都是普通load，差别主要在ARM等弱内存模型上（ldar vs ldr）");
+        System.out.println("  - 可见延迟由缓存一致性协议决定，与模式无关：弱模式不会让读者更晚看到写入");
+        System.out.println("  - 统计字段用opaque；需要发布数据（读者看到后还要读别的字段）用release/acquire；需要SB语义才用volatile");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
@@ -191,6 +191,11 @@ public class AtomicityDemo {
         System.out.println("   - 优点: 性能好，保证可见性和有序性");
         System.out.println("   - 缺点: 不能保证原子性！");
         System.out.println();
+        System.out.println("【性能对比】");
+        System.out.println("上面的\"耗时\"只有10线程 × 1000次，不到1ms，基本是线程启动时间和计时误差；");
+        System.out.println("可信的对比见 ContentionScalingHarness：扫描线程数和递增次数，预热、多轮、多fork，带误差线；");
+        System.out.println("它要启动十几个子JVM、跑几十秒，不在这里自动运行，需要时单独执行它的 main（不带参数）");
+        System.out.println();
     }
 
     /**
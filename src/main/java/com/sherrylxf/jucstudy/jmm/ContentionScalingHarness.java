@@ -0,0 +1,600 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 竞争下的计数器扩展性测试框架
+ *
+ * AtomicityDemo 里用 System.currentTimeMillis 对 10线程 × 1000次 计时，整个过程不到1ms，
+ * 测到的主要是线程启动时间和计时精度。这里改成：
+ * - 线程数从1翻倍扫到 2×核数，每线程递增次数跨几个数量级
+ * - 每个配置先预热，再测量多轮；每种实现在独立的子JVM（fork）里跑，
+ *   JIT的类型剖析、内联决策不会被上一种实现污染
+ * - 汇总所有fork的所有测量轮次，给出均值、标准差和99%置信区间（t分布）
+ * - 结果写成CSV和JSON，方便画带误差线的扩展性曲线
+ *
+ * 子JVM用当前的 java 可执行文件和 classpath 启动，入口是本类的 main，结果按行写回标准输出；
+ * 子JVM正常退出后它的结果才计入，启动失败或退出码非0的fork只报告、不计入；forks=0 时直接在当前JVM里运行。
+ */
+public class ContentionScalingHarness {
+
+    private static final String RESULT_PREFIX = "RESULT";
+
+    /**
+     * 99%双侧置信区间的t分布分位数，下标是自由度-1；自由度超过30用正态近似
+     */
+    private static final double[] T_99 = {
+            63.657, 9.925, 5.841, 4.604, 4.032, 3.707, 3.499, 3.355, 3.250, 3.169,
+            3.106, 3.055, 3.012, 2.977, 2.947, 2.921, 2.898, 2.878, 2.861, 2.845,
+            2.831, 2.819, 2.807, 2.797, 2.787, 2.779, 2.771, 2.763, 2.756, 2.750};
+
+    /**
+     * 一个被测计数器，每轮测量新建一个
+     */
+    abstract static class Counter {
+        abstract void increment();
+
+        abstract long get();
+    }
+
+    public enum Variant {
+        PLAIN("count++(无同步)") {
+            @Override
+            Counter newCounter() {
+                return new Counter() {
+                    private long count;
+
+                    @Override
+                    void increment() {
+                        count++;
+                    }
+
+                    @Override
+                    long get() {
+                        return count;
+                    }
+                };
+            }
+        },
+        VOLATILE("volatile count++") {
+            @Override
+            Counter newCounter() {
+                return new Counter() {
+                    private volatile long count;
+
+                    @Override
+                    void increment() {
+                        count++;
+                    }
+
+                    @Override
+                    long get() {
+                        return count;
+                    }
+                };
+            }
+        },
+        SYNCHRONIZED("synchronized") {
+            @Override
+            Counter newCounter() {
+                return new Counter() {
+                    private long count;
+
+                    @Override
+                    synchronized void increment() {
+                        count++;
+                    }
+
+                    @Override
+                    synchronized long get() {
+                        return count;
+                    }
+                };
+            }
+        },
+        ATOMIC_INTEGER("AtomicInteger") {
+            @Override
+            Counter newCounter() {
+                AtomicInteger count = new AtomicInteger();
+                return new Counter() {
+                    @Override
+                    void increment() {
+                        count.incrementAndGet();
+                    }
+
+                    @Override
+                    long get() {
+                        return count.get();
+                    }
+                };
+            }
+        },
+        LONG_ADDER("LongAdder") {
+            @Override
+            Counter newCounter() {
+                LongAdder count = new LongAdder();
+                return new Counter() {
+                    @Override
+                    void increment() {
+                        count.increment();
+                    }
+
+                    @Override
+                    long get() {
+                        return count.sum();
+                    }
+                };
+            }
+        },
+        VAR_HANDLE_GET_AND_ADD("VarHandle.getAndAdd") {
+            @Override
+            Counter newCounter() {
+                return new VarHandleCounter(false);
+            }
+        },
+        VAR_HANDLE_CAS_LOOP("VarHandle CAS循环") {
+            @Override
+            Counter newCounter() {
+                return new VarHandleCounter(true);
+            }
+        };
+
+        private final String label;
+
+        Variant(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        abstract Counter newCounter();
+    }
+
+    /**
+     * getAndAdd 在x86上是一条 lock xadd，不会失败；CAS循环在竞争下会失败重试
+     */
+    static final class VarHandleCounter extends Counter {
+        private static final VarHandle COUNT;
+
+        static {
+            try {
+                COUNT = MethodHandles.lookup().findVarHandle(VarHandleCounter.class, "count", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final boolean casLoop;
+        private volatile long count;
+
+        VarHandleCounter(boolean casLoop) {
+            this.casLoop = casLoop;
+        }
+
+        @Override
+        void increment() {
+            if (!casLoop) {
+                COUNT.getAndAdd(this, 1L);
+                return;
+            }
+            long current;
+            do {
+                current = (long) COUNT.getVolatile(this);
+            } while (!COUNT.compareAndSet(this, current, current + 1));
+        }
+
+        @Override
+        long get() {
+            return count;
+        }
+    }
+
+    /**
+     * 扫描参数
+     */
+    public static final class Config {
+        final int[] threadCounts;
+        final int[] incrementsPerThread;
+        final int warmupIterations;
+        final int measurementIterations;
+        final int forks;
+        final List<Variant> variants;
+
+        public Config(int[] threadCounts, int[] incrementsPerThread, int warmupIterations,
+                      int measurementIterations, int forks, List<Variant> variants) {
+            if (threadCounts.length == 0 || incrementsPerThread.length == 0 || variants.isEmpty()) {
+                throw new IllegalArgumentException("线程数、递增次数、实现都不能为空");
+            }
+            if (warmupIterations < 0 || measurementIterations <= 0 || forks < 0) {
+                throw new IllegalArgumentException("需要 warmup >= 0, iterations > 0, forks >= 0");
+            }
+            this.threadCounts = threadCounts.clone();
+            this.incrementsPerThread = incrementsPerThread.clone();
+            this.warmupIterations = warmupIterations;
+            this.measurementIterations = measurementIterations;
+            this.forks = forks;
+            this.variants = new ArrayList<>(variants);
+        }
+
+        /**
+         * 1 到 2×核数（翻倍），每线程 10^3 到 10^6 次，预热3轮、测量5轮、3个fork
+         */
+        public static Config defaults() {
+            return new Config(threadCounts(), new int[]{1_000, 10_000, 100_000, 1_000_000},
+                    3, 5, 3, Arrays.asList(Variant.values()));
+        }
+
+        /**
+         * 演示用的小配置，几十秒内跑完
+         */
+        public static Config quick() {
+            return new Config(threadCounts(), new int[]{1_000, 10_000, 100_000},
+                    1, 3, 2, Arrays.asList(Variant.values()));
+        }
+    }
+
+    /**
+     * 一个 (实现, 线程数, 每线程递增次数) 配置的所有测量样本
+     */
+    public static final class Cell {
+        private final Variant variant;
+        private final int threads;
+        private final int incrementsPerThread;
+        private final List<Double> nanosPerOp = new ArrayList<>();
+        private long lostUpdates;
+
+        Cell(Variant variant, int threads, int incrementsPerThread) {
+            this.variant = variant;
+            this.threads = threads;
+            this.incrementsPerThread = incrementsPerThread;
+        }
+
+        void add(double sample, long lost) {
+            nanosPerOp.add(sample);
+            lostUpdates += lost;
+        }
+
+        public Variant getVariant() {
+            return variant;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getIncrementsPerThread() {
+            return incrementsPerThread;
+        }
+
+        public int getSamples() {
+            return nanosPerOp.size();
+        }
+
+        /**
+         * 平均每次递增的耗时（总耗时 / 所有线程的总递增次数），即吞吐量的倒数
+         */
+        public double getMean() {
+            return nanosPerOp.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+        }
+
+        public double getStdDev() {
+            int n = nanosPerOp.size();
+            if (n < 2) {
+                return 0.0;
+            }
+            double mean = getMean();
+            double sumSquares = 0;
+            for (double sample : nanosPerOp) {
+                sumSquares += (sample - mean) * (sample - mean);
+            }
+            return Math.sqrt(sumSquares / (n - 1));
+        }
+
+        /**
+         * 99%置信区间的半宽，即误差线长度
+         */
+        public double getError() {
+            int n = nanosPerOp.size();
+            if (n < 2) {
+                return 0.0;
+            }
+            double t = n - 1 <= T_99.length ? T_99[n - 2] : 2.576;
+            return t * getStdDev() / Math.sqrt(n);
+        }
+
+        public double getMin() {
+            return nanosPerOp.stream().mapToDouble(Double::doubleValue).min().orElse(Double.NaN);
+        }
+
+        public double getMax() {
+            return nanosPerOp.stream().mapToDouble(Double::doubleValue).max().orElse(Double.NaN);
+        }
+
+        /**
+         * 百万次/秒
+         */
+        public double getThroughput() {
+            return 1000.0 / getMean();
+        }
+
+        /**
+         * 平均每轮丢失的更新占比，只有无同步和volatile会大于0
+         */
+        public double getLostRatio() {
+            return (double) lostUpdates / nanosPerOp.size() / ((long) threads * incrementsPerThread);
+        }
+    }
+
+    /**
+     * 运行一次测量：threads个线程各递增increments次，返回 {耗时纳秒, 丢失的更新数}
+     */
+    static long[] measure(Variant variant, int threads, int increments) throws InterruptedException {
+        Counter counter = variant.newCounter();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < increments; i++) {
+                        counter.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - begin;
+        return new long[]{nanos, (long) threads * increments - counter.get()};
+    }
+
+    /**
+     * 在当前JVM里跑完一种实现的所有配置，每个测量结果交给sink
+     */
+    static void runVariant(Variant variant, int[] threadCounts, int[] incrementsPerThread, int warmup,
+                           int iterations, ResultSink sink) throws InterruptedException {
+        for (int threads : threadCounts) {
+            for (int increments : incrementsPerThread) {
+                for (int i = 0; i < warmup; i++) {
+                    measure(variant, threads, increments);
+                }
+                for (int i = 0; i < iterations; i++) {
+                    long[] result = measure(variant, threads, increments);
+                    sink.accept(variant, threads, increments, (double) result[0] / ((long) threads * increments), result[1]);
+                }
+            }
+        }
+    }
+
+    interface ResultSink {
+        void accept(Variant variant, int threads, int increments, double nanosPerOp, long lost);
+    }
+
+    /**
+     * 按配置运行整个扫描，返回按 (实现, 线程数, 递增次数) 汇总的结果
+     */
+    public static List<Cell> run(Config config) throws InterruptedException {
+        Map<String, Cell> cells = new LinkedHashMap<>();
+        for (Variant variant : config.variants) {
+            for (int threads : config.threadCounts) {
+                for (int increments : config.incrementsPerThread) {
+                    cells.put(key(variant, threads, increments), new Cell(variant, threads, increments));
+                }
+            }
+        }
+        ResultSink sink = (variant, threads, increments, nanosPerOp, lost) ->
+                cells.get(key(variant, threads, increments)).add(nanosPerOp, lost);
+
+        for (Variant variant : config.variants) {
+            if (config.forks == 0) {
+                runVariant(variant, config.threadCounts, config.incrementsPerThread,
+                        config.warmupIterations, config.measurementIterations, sink);
+                continue;
+            }
+            for (int fork = 0; fork < config.forks; fork++) {
+                // 失败的fork直接丢弃，不退回到当前JVM里补跑：那样会混入父进程的JIT状态，而且可能重复计入样本
+                try {
+                    runFork(variant, config, sink);
+                } catch (IOException e) {
+                    System.out.println(variant.label() + " 第" + (fork + 1) + "个子JVM失败，结果已丢弃: " + e.getMessage());
+                }
+            }
+        }
+        return new ArrayList<>(cells.values());
+    }
+
+    private static String key(Variant variant, int threads, int increments) {
+        return variant.name() + '/' + threads + '/' + increments;
+    }
+
+    /**
+     * 用当前JVM的 java 和 classpath 启动子JVM，解析它输出的结果行
+     * 结果先缓存起来，子JVM正常退出（退出码0）后才交给sink，否则整个fork的结果都不计入
+     */
+    private static void runFork(Variant variant, Config config, ResultSink sink) throws IOException, InterruptedException {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        List<String> command = new ArrayList<>(Arrays.asList(java.toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ContentionScalingHarness.class.getName(),
+                variant.name(), join(config.threadCounts), join(config.incrementsPerThread),
+                String.valueOf(config.warmupIterations), String.valueOf(config.measurementIterations)));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String[]> results = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length == 6 && RESULT_PREFIX.equals(parts[0])) {
+                    results.add(parts);
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IOException("子JVM退出码 " + exit);
+        }
+        for (String[] parts : results) {
+            sink.accept(Variant.valueOf(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+                    Double.parseDouble(parts[4]), Long.parseLong(parts[5]));
+        }
+    }
+
+    private static String join(int[] values) {
+        return Arrays.stream(values).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static int[] parseInts(String csv) {
+        return Arrays.stream(csv.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * 各个基准共用的线程数扫描：从1倍增到 2×核数（至少到2）
+     */
+    public static int[] threadCounts() {
+        return threadCounts(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * 从1倍增到 max；max 不是2的幂时倍增会跳过它，单独补在最后
+     */
+    public static int[] threadCounts(int max) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads <= max; threads <<= 1) {
+            counts.add(threads);
+        }
+        if (counts.get(counts.size() - 1) != max) {
+            counts.add(max);
+        }
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 不带参数：运行 demonstrateScaling（父进程，会启动多个子JVM）
+     * 带参数：子JVM入口，variant threadCounts incrementsPerThread warmup iterations
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 0) {
+            demonstrateScaling();
+            return;
+        }
+        if (args.length != 5) {
+            System.err.println("用法: ContentionScalingHarness [<variant> <threads,...> <increments,...> <warmup> <iterations>]");
+            System.exit(2);
+        }
+        runVariant(Variant.valueOf(args[0]), parseInts(args[1]), parseInts(args[2]),
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                (variant, threads, increments, nanosPerOp, lost) -> System.out.println(String.join("\t",
+                        RESULT_PREFIX, variant.name(), String.valueOf(threads), String.valueOf(increments),
+                        String.valueOf(nanosPerOp), String.valueOf(lost))));
+    }
+
+    // ========== 输出 ==========
+
+    public static void writeCsv(List<Cell> cells, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("variant,threads,increments_per_thread,samples,mean_ns_per_op,stddev,error_99,"
+                    + "ci_low,ci_high,min,max,mops_per_sec,lost_ratio\n");
+            for (Cell c : cells) {
+                out.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.6f%n",
+                        c.getVariant().name(), c.getThreads(), c.getIncrementsPerThread(), c.getSamples(),
+                        c.getMean(), c.getStdDev(), c.getError(), c.getMean() - c.getError(), c.getMean() + c.getError(),
+                        c.getMin(), c.getMax(), c.getThroughput(), c.getLostRatio()));
+            }
+        }
+    }
+
+    public static void writeJson(List<Cell> cells, Config config, Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"cores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"javaVersion\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"warmupIterations\": ").append(config.warmupIterations).append(",\n");
+        sb.append("  \"measurementIterations\": ").append(config.measurementIterations).append(",\n");
+        sb.append("  \"forks\": ").append(config.forks).append(",\n");
+        sb.append("  \"unit\": \"ns/op\",\n");
+        sb.append("  \"results\": [\n");
+        for (int i = 0; i < cells.size(); i++) {
+            Cell c = cells.get(i);
+            sb.append(String.format(Locale.ROOT,
+                    "    {\"variant\": \"%s\", \"threads\": %d, \"incrementsPerThread\": %d, \"samples\": %d, "
+                            + "\"mean\": %.4f, \"stddev\": %.4f, \"error99\": %.4f, \"min\": %.4f, \"max\": %.4f, "
+                            + "\"mopsPerSec\": %.4f, \"lostRatio\": %.6f}",
+                    c.getVariant().name(), c.getThreads(), c.getIncrementsPerThread(), c.getSamples(),
+                    c.getMean(), c.getStdDev(), c.getError(), c.getMin(), c.getMax(), c.getThroughput(), c.getLostRatio()));
+            sb.append(i == cells.size() - 1 ? "\n" : ",\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void printTable(List<Cell> cells) {
+        System.out.printf("%-22s %6s %10s %20s %12s %10s%n", "实现", "线程", "每线程次数", "ns/op (±99%误差)", "百万次/秒", "丢失更新");
+        for (Cell c : cells) {
+            System.out.printf("%-22s %6d %10d %11.2f ± %-6.2f %12.2f %9.1f%%%n", c.getVariant().label(), c.getThreads(),
+                    c.getIncrementsPerThread(), c.getMean(), c.getError(), c.getThroughput(), c.getLostRatio() * 100);
+        }
+    }
+
+    public static void demonstrateScaling() {
+        System.out.println("\n========== 竞争扩展性测试 ==========");
+
+        Config config = Config.quick();
+        System.out.println("CPU核数: " + Runtime.getRuntime().availableProcessors()
+                + ", 线程数: " + Arrays.toString(config.threadCounts)
+                + ", 每线程递增: " + Arrays.toString(config.incrementsPerThread)
+                + ", 预热/测量轮数: " + config.warmupIterations + "/" + config.measurementIterations
+                + ", fork数: " + config.forks);
+
+        try {
+            List<Cell> cells = run(config);
+            printTable(cells);
+            Path dir = Paths.get("target", "contention-scaling");
+            Files.createDirectories(dir);
+            writeCsv(cells, dir.resolve("results.csv"));
+            writeJson(cells, config, dir.resolve("results.json"));
+            System.out.println("结果已写入: " + dir.toAbsolutePath().resolve("results.csv") + " / results.json");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 每线程1000次时误差线很宽，测到的主要是线程唤醒；次数加到10^5以上，结果才稳定");
+        System.out.println("  - AtomicInteger / VarHandle.getAndAdd 在竞争下所有线程争同一缓存行，线程越多每次递增越慢");
+        System.out.println("  - CAS循环在竞争下会失败重试，通常比getAndAdd（x86上一条lock xadd）慢");
+        System.out.println("  - LongAdder把竞争分散到多个Cell，多核上线程越多优势越明显");
+        System.out.println("  - 无同步的count++最快但丢更新（JIT还可能把整个循环合并成一次加法），volatile也一样丢更新");
+        System.out.println("  - 完整扫描用 Config.defaults()：10^3~10^6次，预热3轮，测量5轮，3个fork");
+    }
+}
@@ -1,5 +1,7 @@
 package com.sherrylxf.jucstudy.jmm;
 
+import java.util.Arrays;
+
 /**
  * happens-before规则演示
  * 面试重点：happens-before规则、内存可见性保证
@@ -225,6 +227,55 @@ public class HappensBeforeDemo {
         x = 0;
     }
 
+    /**
+     * 演示RCU：用volatile发布反复重建的不可变快照，旧版本在宽限期后回收
+     */
+    public static void demonstrateRcuPublication() {
+        System.out.println("\n========== RCU快照发布演示 ==========");
+        
+        RcuReference<int[]> table = new RcuReference<>(new int[]{1, 2, 3});
+        
+        Thread reader = new Thread(() -> {
+            int token = table.enter();
+            try {
+                int[] snapshot = table.read(); // 一次volatile读，拿到的数组不会再被修改
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                System.out.println("Reader: 临界区内一直使用旧版本 " + Arrays.toString(snapshot));
+            } finally {
+                table.exit(token);
+            }
+        });
+        
+        reader.start();
+        
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        long begin = System.nanoTime();
+        table.updateAndReclaim(old -> {
+            int[] copy = old.clone(); // 复制 -> 修改副本 -> CAS发布
+            copy[0] = 100;
+            return copy;
+        }, old -> System.out.println("Writer: 宽限期结束，回收旧版本 " + Arrays.toString(old)));
+        System.out.println("Writer: 等待读者离开用了 " + (System.nanoTime() - begin) / 1_000_000 + "ms");
+        System.out.println("新版本: " + Arrays.toString(table.read()));
+        
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        System.out.println("性能对比见 RcuBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 综合演示happens-before
      */
@@ -237,6 +288,7 @@ public class HappensBeforeDemo {
         demonstrateVolatileRule();
         demonstrateThreadStartRule();
         demonstrateTransitivity();
+        demonstrateRcuPublication();
     }
 }
 
@@ -0,0 +1,244 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * litmus测试的并行压力运行器
+ *
+ * OrderingDemo 每次测试都新建两个线程，线程启动的几十微秒远大于两条指令的执行时间，
+ * 两个线程几乎不可能真正同时执行那几条读写，所以什么也观察不到。这里的做法：
+ * - 每个actor是常驻线程，一批处理 batchSize 个预分配的状态对象，同一批内各actor并发遍历同一个数组，
+ *   只在批与批之间用自旋屏障同步一次，单次测试的开销只有几纳秒
+ * - 批结束后由0号actor统计结果、把状态清零复用，不分配新对象
+ * - 按核数同时运行多组actor（每组 actors() 个线程），各组的状态数组互不共享
+ *
+ * JDK没有线程绑核的API，这里用常驻线程代替jcstress里的绑核；核数少于actor数时结果会偏向"顺序执行"。
+ */
+public class LitmusStressRunner {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /**
+     * 批与批之间的屏障：先自旋，等太久再yield（线程数多于核数时必须让出CPU）
+     */
+    static final class SpinBarrier {
+        private final int parties;
+        private final AtomicInteger arrived = new AtomicInteger();
+        private volatile int phase;
+
+        SpinBarrier(int parties) {
+            this.parties = parties;
+        }
+
+        void await() {
+            int current = phase;
+            if (arrived.incrementAndGet() == parties) {
+                arrived.set(0);
+                phase = current + 1;
+                return;
+            }
+            int spins = 0;
+            while (phase == current) {
+                if (++spins < 1000) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * 一组actor线程及其状态数组
+     */
+    private static final class Group<S> {
+        private final LitmusTest<S> test;
+        private final Object[] states;
+        private final SpinBarrier barrier;
+        private final long deadline;
+        private final long[] histogram;
+        private volatile boolean stop;
+        private long iterations;
+
+        Group(LitmusTest<S> test, int batchSize, long deadline) {
+            this.test = test;
+            this.states = new Object[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                states[i] = test.newState();
+            }
+            this.barrier = new SpinBarrier(test.actors());
+            this.deadline = deadline;
+            this.histogram = new long[test.outcomeCount()];
+        }
+
+        @SuppressWarnings("unchecked")
+        void runActor(int actor) {
+            Object[] local = states;
+            while (true) {
+                barrier.await();
+                if (stop) {
+                    return;
+                }
+                for (Object state : local) {
+                    test.actor(actor, (S) state);
+                }
+                barrier.await();
+                if (actor == 0) {
+                    collect();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void collect() {
+            for (Object state : states) {
+                S s = (S) state;
+                histogram[test.outcome(s)]++;
+                test.reset(s);
+            }
+            iterations += states.length;
+            if (System.nanoTime() - deadline >= 0) {
+                stop = true;
+            }
+        }
+    }
+
+    /**
+     * 运行结果
+     */
+    public static final class Result {
+        private final LitmusTest<?> test;
+        private final long[] histogram;
+        private final long iterations;
+        private final long nanos;
+        private final int groups;
+
+        Result(LitmusTest<?> test, long[] histogram, long iterations, long nanos, int groups) {
+            this.test = test;
+            this.histogram = histogram;
+            this.iterations = iterations;
+            this.nanos = nanos;
+            this.groups = groups;
+        }
+
+        public long count(int outcome) {
+            return histogram[outcome];
+        }
+
+        public long getIterations() {
+            return iterations;
+        }
+
+        /**
+         * 观察到的 INTERESTING 结果次数
+         */
+        public long interesting() {
+            return sum(LitmusTest.Expectation.INTERESTING);
+        }
+
+        /**
+         * 观察到的 FORBIDDEN 结果次数，不为0就是JVM/硬件的bug
+         */
+        public long forbidden() {
+            return sum(LitmusTest.Expectation.FORBIDDEN);
+        }
+
+        private long sum(LitmusTest.Expectation expectation) {
+            long total = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                if (test.expectation(i) == expectation) {
+                    total += histogram[i];
+                }
+            }
+            return total;
+        }
+
+        public void print() {
+            System.out.printf("【%s】%d组 × %d线程, %,d 次, %.1f 百万次/秒%n", test.name(), groups, test.actors(),
+                    iterations, iterations * 1000.0 / nanos);
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] == 0 && test.expectation(i) == LitmusTest.Expectation.ACCEPTABLE) {
+                    continue;
+                }
+                System.out.printf("    %-28s %-12s %,15d%n", test.describe(i), test.expectation(i), histogram[i]);
+            }
+        }
+    }
+
+    /**
+     * 按核数决定并行组数，运行 duration 后返回统计结果
+     */
+    public static <S> Result run(LitmusTest<S> test, long duration, TimeUnit unit) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return run(test, Math.max(1, cores / test.actors()), DEFAULT_BATCH_SIZE, duration, unit);
+    }
+
+    public static <S> Result run(LitmusTest<S> test, int groupCount, int batchSize, long duration, TimeUnit unit)
+            throws InterruptedException {
+        long begin = System.nanoTime();
+        long deadline = begin + unit.toNanos(duration);
+        List<Group<S>> groups = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            Group<S> group = new Group<>(test, batchSize, deadline);
+            groups.add(group);
+            for (int a = 0; a < test.actors(); a++) {
+                final int actor = a;
+                Thread thread = new Thread(() -> group.runActor(actor), "litmus-" + g + "-" + a);
+                thread.setDaemon(true);
+                threads.add(thread);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long nanos = System.nanoTime() - begin;
+
+        long[] histogram = new long[test.outcomeCount()];
+        long iterations = 0;
+        for (Group<S> group : groups) {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += group.histogram[i];
+            }
+            iterations += group.iterations;
+        }
+        return new Result(test, histogram, iterations, nanos, groupCount);
+    }
+
+    public static void demonstrateLitmusTests() {
+        System.out.println("\n========== litmus测试压力运行 ==========");
+
+        long millis = 1000;
+        System.out.println("CPU核数: " + Runtime.getRuntime().availableProcessors()
+                + ", 每个测试运行 " + millis + "ms, 每批 " + DEFAULT_BATCH_SIZE + " 个状态");
+        try {
+            for (LitmusTest<?> test : LitmusTest.all()) {
+                Result result = run(test, millis, TimeUnit.MILLISECONDS);
+                result.print();
+                if (result.forbidden() > 0) {
+                    System.out.println("    ⚠️ 出现了JMM禁止的结果！");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - SB (0,0) 在x86上也能看到：store buffer 让写入晚于后面的读生效，这是x86唯一允许的重排");
+        System.out.println("  - MP、IRIW 的重排在x86（TSO）上基本看不到，要在ARM/POWER等弱内存模型的机器上才会出现；JIT重排也可能导致");
+        System.out.println("  - volatile 版本的这些结果JMM都禁止，次数应该始终为0");
+        System.out.println("  - 核数少于actor数时线程只能轮流执行，几乎观察不到任何重排，需要在多核机器上运行");
+    }
+
+    public static void main(String[] args) {
+        demonstrateLitmusTests();
+    }
+}
@@ -0,0 +1,477 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内存模型的litmus测试：几个线程（actor）对同一份小状态各执行几条读写，看最后能观察到哪些结果
+ *
+ * 状态对象由 LitmusStressRunner 预先分配成数组、每批复用，actor 方法里不分配对象；
+ * 结果编码成 [0, outcomeCount()) 的下标，runner 只需要一个 long[] 计数。
+ *
+ * @param <S> 一次测试的共享状态
+ */
+public abstract class LitmusTest<S> {
+
+    /**
+     * 结果的分类
+     */
+    public enum Expectation {
+        /** 顺序一致下就可能出现 */
+        ACCEPTABLE,
+        /** JMM允许、但只有重排序才会出现，是我们想观察的 */
+        INTERESTING,
+        /** JMM禁止，出现即是JVM的bug */
+        FORBIDDEN
+    }
+
+    public abstract String name();
+
+    public abstract int actors();
+
+    public abstract S newState();
+
+    public abstract void reset(S state);
+
+    /**
+     * 第 actor 个线程对 state 执行自己的那几条读写
+     */
+    public abstract void actor(int actor, S state);
+
+    public abstract int outcomeCount();
+
+    /**
+     * 所有actor执行完后，把结果编码成下标
+     */
+    public abstract int outcome(S state);
+
+    public abstract String describe(int outcome);
+
+    public abstract Expectation expectation(int outcome);
+
+    /**
+     * 演示用的全部测试：每种模式一个无同步版本和一个volatile版本
+     */
+    public static List<LitmusTest<?>> all() {
+        return Arrays.asList(new StoreBuffering(), new StoreBufferingVolatile(),
+                new MessagePassing(), new MessagePassingVolatile(),
+                new Iriw(), new IriwVolatile());
+    }
+
+    // ========== SB：store buffering（Dekker）==========
+
+    /**
+     * 两个线程各写一个变量再读另一个；(0, 0) 说明两个写都还在各自的store buffer里
+     */
+    abstract static class AbstractStoreBuffering<S> extends LitmusTest<S> {
+        @Override
+        public int actors() {
+            return 2;
+        }
+
+        @Override
+        public int outcomeCount() {
+            return 4;
+        }
+
+        @Override
+        public String describe(int outcome) {
+            return "r1=" + (outcome & 1) + ", r2=" + (outcome >> 1);
+        }
+
+        abstract boolean volatileAccess();
+
+        @Override
+        public Expectation expectation(int outcome) {
+            if (outcome != 0) {
+                return Expectation.ACCEPTABLE;
+            }
+            return volatileAccess() ? Expectation.FORBIDDEN : Expectation.INTERESTING;
+        }
+    }
+
+    static final class SbState {
+        int x;
+        int y;
+        int r1;
+        int r2;
+    }
+
+    static final class StoreBuffering extends AbstractStoreBuffering<SbState> {
+        @Override
+        public String name() {
+            return "SB (plain)";
+        }
+
+        @Override
+        boolean volatileAccess() {
+            return false;
+        }
+
+        @Override
+        public SbState newState() {
+            return new SbState();
+        }
+
+        @Override
+        public void reset(SbState s) {
+            s.x = 0;
+            s.y = 0;
+            s.r1 = 0;
+            s.r2 = 0;
+        }
+
+        @Override
+        public void actor(int actor, SbState s) {
+            if (actor == 0) {
+                s.x = 1;
+                s.r1 = s.y;
+            } else {
+                s.y = 1;
+                s.r2 = s.x;
+            }
+        }
+
+        @Override
+        public int outcome(SbState s) {
+            return s.r1 | s.r2 << 1;
+        }
+    }
+
+    static final class SbVolatileState {
+        volatile int x;
+        volatile int y;
+        int r1;
+        int r2;
+    }
+
+    static final class StoreBufferingVolatile extends AbstractStoreBuffering<SbVolatileState> {
+        @Override
+        public String name() {
+            return "SB (volatile)";
+        }
+
+        @Override
+        boolean volatileAccess() {
+            return true;
+        }
+
+        @Override
+        public SbVolatileState newState() {
+            return new SbVolatileState();
+        }
+
+        @Override
+        public void reset(SbVolatileState s) {
+            s.x = 0;
+            s.y = 0;
+            s.r1 = 0;
+            s.r2 = 0;
+        }
+
+        @Override
+        public void actor(int actor, SbVolatileState s) {
+            if (actor == 0) {
+                s.x = 1;
+                s.r1 = s.y;
+            } else {
+                s.y = 1;
+                s.r2 = s.x;
+            }
+        }
+
+        @Override
+        public int outcome(SbVolatileState s) {
+            return s.r1 | s.r2 << 1;
+        }
+    }
+
+    // ========== MP：message passing ==========
+
+    /**
+     * 线程1先写data再写flag，线程2先读flag再读data；r1=1, r2=0 说明看到了flag却没看到data
+     */
+    abstract static class AbstractMessagePassing<S> extends LitmusTest<S> {
+        @Override
+        public int actors() {
+            return 2;
+        }
+
+        @Override
+        public int outcomeCount() {
+            return 4;
+        }
+
+        @Override
+        public String describe(int outcome) {
+            return "flag=" + (outcome & 1) + ", data=" + (outcome >> 1);
+        }
+
+        abstract boolean volatileFlag();
+
+        @Override
+        public Expectation expectation(int outcome) {
+            if (outcome != 1) {
+                return Expectation.ACCEPTABLE;
+            }
+            return volatileFlag() ? Expectation.FORBIDDEN : Expectation.INTERESTING;
+        }
+    }
+
+    static final class MpState {
+        int data;
+        int flag;
+        int r1;
+        int r2;
+    }
+
+    static final class MessagePassing extends AbstractMessagePassing<MpState> {
+        @Override
+        public String name() {
+            return "MP (plain)";
+        }
+
+        @Override
+        boolean volatileFlag() {
+            return false;
+        }
+
+        @Override
+        public MpState newState() {
+            return new MpState();
+        }
+
+        @Override
+        public void reset(MpState s) {
+            s.data = 0;
+            s.flag = 0;
+            s.r1 = 0;
+            s.r2 = 0;
+        }
+
+        @Override
+        public void actor(int actor, MpState s) {
+            if (actor == 0) {
+                s.data = 1;
+                s.flag = 1;
+            } else {
+                s.r1 = s.flag;
+                s.r2 = s.data;
+            }
+        }
+
+        @Override
+        public int outcome(MpState s) {
+            return s.r1 | s.r2 << 1;
+        }
+    }
+
+    /**
+     * 只有flag是volatile，data仍是普通字段：volatile写/读建立的happens-before足以保证看到data
+     */
+    static final class MpVolatileState {
+        int data;
+        volatile int flag;
+        int r1;
+        int r2;
+    }
+
+    static final class MessagePassingVolatile extends AbstractMessagePassing<MpVolatileState> {
+        @Override
+        public String name() {
+            return "MP (volatile flag)";
+        }
+
+        @Override
+        boolean volatileFlag() {
+            return true;
+        }
+
+        @Override
+        public MpVolatileState newState() {
+            return new MpVolatileState();
+        }
+
+        @Override
+        public void reset(MpVolatileState s) {
+            s.data = 0;
+            s.flag = 0;
+            s.r1 = 0;
+            s.r2 = 0;
+        }
+
+        @Override
+        public void actor(int actor, MpVolatileState s) {
+            if (actor == 0) {
+                s.data = 1;
+                s.flag = 1;
+            } else {
+                s.r1 = s.flag;
+                s.r2 = s.data;
+            }
+        }
+
+        @Override
+        public int outcome(MpVolatileState s) {
+            return s.r1 | s.r2 << 1;
+        }
+    }
+
+    // ========== IRIW：independent reads of independent writes ==========
+
+    /**
+     * 两个线程分别写x、y，另两个线程按相反顺序读；
+     * r1=1,r2=0,r3=1,r4=0 说明两个读线程对两次写入的先后看法不一致（非多副本原子）
+     */
+    abstract static class AbstractIriw<S> extends LitmusTest<S> {
+        private static final int DISAGREE = 1 | 0 << 1 | 1 << 2 | 0 << 3;
+
+        @Override
+        public int actors() {
+            return 4;
+        }
+
+        @Override
+        public int outcomeCount() {
+            return 16;
+        }
+
+        @Override
+        public String describe(int outcome) {
+            return "r1=" + (outcome & 1) + ", r2=" + (outcome >> 1 & 1)
+                    + ", r3=" + (outcome >> 2 & 1) + ", r4=" + (outcome >> 3 & 1);
+        }
+
+        abstract boolean volatileAccess();
+
+        @Override
+        public Expectation expectation(int outcome) {
+            if (outcome != DISAGREE) {
+                return Expectation.ACCEPTABLE;
+            }
+            return volatileAccess() ? Expectation.FORBIDDEN : Expectation.INTERESTING;
+        }
+    }
+
+    static final class IriwState {
+        int x;
+        int y;
+        int r1;
+        int r2;
+        int r3;
+        int r4;
+    }
+
+    static final class Iriw extends AbstractIriw<IriwState> {
+        @Override
+        public String name() {
+            return "IRIW (plain)";
+        }
+
+        @Override
+        boolean volatileAccess() {
+            return false;
+        }
+
+        @Override
+        public IriwState newState() {
+            return new IriwState();
+        }
+
+        @Override
+        public void reset(IriwState s) {
+            s.x = 0;
+            s.y = 0;
+            s.r1 = 0;
+            s.r2 = 0;
+            s.r3 = 0;
+            s.r4 = 0;
+        }
+
+        @Override
+        public void actor(int actor, IriwState s) {
+            switch (actor) {
+                case 0:
+                    s.x = 1;
+                    break;
+                case 1:
+                    s.y = 1;
+                    break;
+                case 2:
+                    s.r1 = s.x;
+                    s.r2 = s.y;
+                    break;
+                default:
+                    s.r3 = s.y;
+                    s.r4 = s.x;
+                    break;
+            }
+        }
+
+        @Override
+        public int outcome(IriwState s) {
+            return s.r1 | s.r2 << 1 | s.r3 << 2 | s.r4 << 3;
+        }
+    }
+
+    static final class IriwVolatileState {
+        volatile int x;
+        volatile int y;
+        int r1;
+        int r2;
+        int r3;
+        int r4;
+    }
+
+    static final class IriwVolatile extends AbstractIriw<IriwVolatileState> {
+        @Override
+        public String name() {
+            return "IRIW (volatile)";
+        }
+
+        @Override
+        boolean volatileAccess() {
+            return true;
+        }
+
+        @Override
+        public IriwVolatileState newState() {
+            return new IriwVolatileState();
+        }
+
+        @Override
+        public void reset(IriwVolatileState s) {
+            s.x = 0;
+            s.y = 0;
+            s.r1 = 0;
+            s.r2 = 0;
+            s.r3 = 0;
+            s.r4 = 0;
+        }
+
+        @Override
+        public void actor(int actor, IriwVolatileState s) {
+            switch (actor) {
+                case 0:
+                    s.x = 1;
+                    break;
+                case 1:
+                    s.y = 1;
+                    break;
+                case 2:
+                    s.r1 = s.x;
+                    s.r2 = s.y;
+                    break;
+                default:
+                    s.r3 = s.y;
+                    s.r4 = s.x;
+                    break;
+            }
+        }
+
+        @Override
+        public int outcome(IriwVolatileState s) {
+            return s.r1 | s.r2 << 1 | s.r3 << 2 | s.r4 << 3;
+        }
+    }
+}
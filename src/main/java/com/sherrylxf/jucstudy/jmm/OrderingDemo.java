@@ -83,6 +83,15 @@ public class OrderingDemo {
             System.out.println("未检测到重排序（可能因为JVM优化或测试环境）");
             System.out.println("注意: 重排序是概率性的，不代表不存在");
         }
+        System.out.println("每次测试都新建线程，两个线程几乎不会真正同时执行，更可靠的方式见 LitmusStressRunner");
+    }
+
+    /**
+     * 用常驻线程 + 预分配状态数组压测 SB / MP / IRIW 三种litmus测试
+     */
+    public static void demonstrateLitmusTests() {
+        System.out.println("\n========== litmus测试压力运行 ==========");
+        System.out.println("见 LitmusStressRunner：每个测试压测1秒，不在这里自动运行，需要时单独执行它的 main");
     }
 
     /**
@@ -132,6 +141,7 @@ public class OrderingDemo {
         demonstrateInstructionReordering();
         demonstratePossibleReordering();
         demonstrateSingletonReordering();
+        demonstrateLitmusTests();
     }
 }
 
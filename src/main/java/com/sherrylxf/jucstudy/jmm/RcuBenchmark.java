@@ -0,0 +1,258 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 路由表读多写少场景：RcuReference vs ReentrantReadWriteLock vs StampedLock
+ *
+ * 路由表有10万个条目（key -> 节点号），读线程不断随机查询，
+ * 一个写线程每隔 REBUILD_INTERVAL_MILLIS 整体重建一次：
+ * - RCU：在新数组上重建，再发布新版本，旧表交给GC
+ * - RCU+宽限期回收：读者用 enter()/exit() 包住查询，写者用 updateAndReclaim 换表，
+ *   等宽限期结束后把旧表的数组收回来，下次重建复用，不再每次分配
+ * - 读写锁 / StampedLock：持写锁原地重写数组，读者用读锁（StampedLock先乐观读）
+ */
+public class RcuBenchmark {
+
+    private static final int ENTRIES = 100_000;
+    private static final int NODES = 64;
+    private static final long DURATION_MILLIS = 1000;
+    private static final long REBUILD_INTERVAL_MILLIS = 50;
+
+    /**
+     * 不可变的路由表版本
+     */
+    static final class RoutingTable {
+        final long version;
+        final int[] routes;
+
+        RoutingTable(long version, int[] routes) {
+            this.version = version;
+            this.routes = routes;
+        }
+
+        static RoutingTable build(long version) {
+            int[] routes = new int[ENTRIES];
+            fill(routes, version);
+            return new RoutingTable(version, routes);
+        }
+    }
+
+    static void fill(int[] routes, long version) {
+        for (int i = 0; i < routes.length; i++) {
+            routes[i] = (int) ((i + version) % NODES);
+        }
+    }
+
+    interface Router {
+        int route(int key);
+
+        void rebuild(long version);
+    }
+
+    static final class RcuRouter implements Router {
+        private final RcuReference<RoutingTable> table = new RcuReference<>(RoutingTable.build(0));
+
+        @Override
+        public int route(int key) {
+            return table.read().routes[key];
+        }
+
+        @Override
+        public void rebuild(long version) {
+            table.publish(RoutingTable.build(version));
+        }
+    }
+
+    static final class RcuReclaimRouter implements Router {
+        private final RcuReference<RoutingTable> table = new RcuReference<>(RoutingTable.build(0));
+        /**
+         * 上次宽限期后收回的数组，只有写线程访问
+         */
+        private int[] spare = new int[ENTRIES];
+
+        @Override
+        public int route(int key) {
+            int token = table.enter();
+            try {
+                return table.read().routes[key];
+            } finally {
+                table.exit(token);
+            }
+        }
+
+        @Override
+        public void rebuild(long version) {
+            // 收回的数组已经没有读者，可以直接原地填好再发布
+            int[] routes = spare;
+            fill(routes, version);
+            RoutingTable next = new RoutingTable(version, routes);
+            table.updateAndReclaim(old -> next, old -> spare = old.routes);
+        }
+    }
+
+    static final class ReadWriteLockRouter implements Router {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final int[] routes = RoutingTable.build(0).routes;
+
+        @Override
+        public int route(int key) {
+            lock.readLock().lock();
+            try {
+                return routes[key];
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void rebuild(long version) {
+            lock.writeLock().lock();
+            try {
+                fill(routes, version);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    static final class StampedLockRouter implements Router {
+        private final StampedLock lock = new StampedLock();
+        private final int[] routes = RoutingTable.build(0).routes;
+
+        @Override
+        public int route(int key) {
+            long stamp = lock.tryOptimisticRead();
+            int node = routes[key];
+            if (lock.validate(stamp)) {
+                return node;
+            }
+            stamp = lock.readLock();
+            try {
+                return routes[key];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public void rebuild(long version) {
+            long stamp = lock.writeLock();
+            try {
+                fill(routes, version);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return {查询次数, 重建次数, 最慢一次重建的纳秒数, 查询结果之和（校验和）}
+     */
+    static long[] run(Router router, int readers) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder lookups = new LongAdder();
+        LongAdder checksum = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(readers);
+        for (int i = 0; i < readers; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long n = 0;
+                    long sink = 0;
+                    while (running.get()) {
+                        sink += router.route(random.nextInt(ENTRIES));
+                        n++;
+                    }
+                    lookups.add(n);
+                    checksum.add(sink);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long[] rebuilds = new long[2];
+        Thread writer = new Thread(() -> {
+            long version = 1;
+            while (running.get()) {
+                long begin = System.nanoTime();
+                router.rebuild(version++);
+                rebuilds[1] = Math.max(rebuilds[1], System.nanoTime() - begin);
+                rebuilds[0]++;
+                try {
+                    Thread.sleep(REBUILD_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        start.countDown();
+        writer.start();
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        done.await();
+        writer.join();
+        return new long[]{lookups.sum(), rebuilds[0], rebuilds[1], checksum.sum()};
+    }
+
+    private static Router create(int k) {
+        switch (k) {
+            case 0:
+                return new RcuRouter();
+            case 1:
+                return new RcuReclaimRouter();
+            case 2:
+                return new ReadWriteLockRouter();
+            default:
+                return new StampedLockRouter();
+        }
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== 路由表：RCU vs ReentrantReadWriteLock vs StampedLock ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        String[] names = {"RcuReference", "RcuReference(宽限期回收)", "ReentrantReadWriteLock", "StampedLock(乐观读)"};
+        System.out.println("CPU核数: " + cores + ", 条目: " + ENTRIES + ", 每 " + REBUILD_INTERVAL_MILLIS
+                + "ms 重建一次, 每组运行 " + DURATION_MILLIS + "ms");
+        System.out.printf("%-6s %-24s %16s %10s %16s%n", "读线程", "实现", "查询(百万次/秒)", "重建次数", "最慢重建(ms)");
+
+        long checksum = 0;
+        try {
+            for (int readers : ContentionScalingHarness.threadCounts()) {
+                for (int k = 0; k < names.length; k++) {
+                    long[] result = run(create(k), readers);
+                    checksum += result[3];
+                    System.out.printf("%-6d %-24s %16.2f %10d %16.2f%n", readers, names[k],
+                            result[0] / 1000.0 / DURATION_MILLIS, result[1], result[2] / 1e6);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.println("(校验和: " + checksum + ")");
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - RCU读端只有一次volatile读，不写任何共享变量，读线程越多优势越明显");
+        System.out.println("  - 读写锁的读锁要CAS同一个state，读线程之间互相争缓存行；重建期间所有读者被阻塞");
+        System.out.println("  - StampedLock乐观读平时也不写共享变量，但重建期间验证失败退化为读锁，要等写锁释放");
+        System.out.println("  - RCU的代价是每次重建分配一份新表（这里约400KB），旧表交给GC");
+        System.out.println("  - 宽限期回收版读端多了 enter/exit 两次原子加减（计数按线程分散在不同缓存行），换来数组复用；");
+        System.out.println("    重建耗时里包含等待宽限期，读临界区越短、读者越少，等待越短");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
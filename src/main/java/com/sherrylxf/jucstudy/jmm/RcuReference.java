@@ -0,0 +1,136 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import com.sherrylxf.jucstudy.atomic.PaddedAtomicLongArray;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * RCU（read-copy-update）风格的不可变快照发布
+ *
+ * HappensBeforeDemo 用一次 volatile 写发布一次数据；这里把它推广到"反复重建的大对象"：
+ * - 读者：一次 volatile 读拿到当前版本，不加锁、不写共享变量，读多少次都不互相干扰
+ * - 写者：复制当前版本、在副本上修改、CAS换上去（copy-on-write），版本对象本身必须不可变
+ * - 回收：内存交给GC即可；如果旧版本持有需要显式释放的资源（堆外内存、对象池里的数组），
+ *   读者用 enter()/exit() 标出读临界区，写者在宽限期（grace period）结束、
+ *   所有可能还在读旧版本的读者都离开后再回调 reclaimer
+ *
+ * 宽限期的实现类似 SRCU：两组按线程分散的读者计数（奇偶两个阶段），
+ * 写者翻转阶段后等待旧阶段的计数归零，翻转两次保证在任何时刻进入的读者都被等到。
+ */
+public class RcuReference<T> {
+
+    private final AtomicReference<T> current;
+
+    /**
+     * 下标 parity * stripes + stripe，每个计数器单独占缓存行
+     */
+    private final PaddedAtomicLongArray readers;
+    private final int stripeMask;
+    private volatile int parity;
+    /**
+     * 宽限期之间互斥，防止两个写者交替翻转阶段导致互相等不到
+     */
+    private final ReentrantLock gracePeriodLock = new ReentrantLock();
+
+    public RcuReference(T initial) {
+        this.current = new AtomicReference<>(initial);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+        this.stripeMask = stripes - 1;
+        this.readers = new PaddedAtomicLongArray(stripes * 2);
+    }
+
+    // ========== 读端 ==========
+
+    /**
+     * 读当前版本；只依赖GC回收旧版本时，读者只需要这一个方法
+     */
+    public T read() {
+        return current.get();
+    }
+
+    /**
+     * 进入读临界区，返回的令牌传给 exit()；临界区内通过 read() 拿到的版本在 exit() 之前不会被回收
+     */
+    public int enter() {
+        int stripe = stripe();
+        int p = parity;
+        readers.incrementAndGet(p * (stripeMask + 1) + stripe);
+        return p << 16 | stripe;
+    }
+
+    public void exit(int token) {
+        readers.decrementAndGet((token >>> 16) * (stripeMask + 1) + (token & 0xFFFF));
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+
+    // ========== 写端 ==========
+
+    /**
+     * 用 updater 基于当前版本生成新版本并CAS换上；并发更新时 updater 可能被调用多次，必须无副作用
+     *
+     * @return 被替换掉的旧版本
+     */
+    public T update(UnaryOperator<T> updater) {
+        for (;;) {
+            T old = current.get();
+            T next = updater.apply(old);
+            if (current.compareAndSet(old, next)) {
+                return old;
+            }
+        }
+    }
+
+    /**
+     * 直接换成新版本（例如在别处整体重建好的表）
+     */
+    public T publish(T next) {
+        return current.getAndSet(next);
+    }
+
+    /**
+     * 更新后等待宽限期，再把旧版本交给 reclaimer 释放
+     */
+    public T updateAndReclaim(UnaryOperator<T> updater, Consumer<? super T> reclaimer) {
+        T old = update(updater);
+        synchronize();
+        reclaimer.accept(old);
+        return old;
+    }
+
+    /**
+     * 等待宽限期：调用之前已经进入读临界区的读者全部离开后返回
+     */
+    public void synchronize() {
+        gracePeriodLock.lock();
+        try {
+            flipAndDrain();
+            flipAndDrain();
+        } finally {
+            gracePeriodLock.unlock();
+        }
+    }
+
+    private void flipAndDrain() {
+        int old = parity;
+        parity = old ^ 1;
+        int base = old * (stripeMask + 1);
+        for (int s = 0; s <= stripeMask; s++) {
+            int spins = 0;
+            while (readers.get(base + s) != 0) {
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 单写者计数器：只有一个线程调用 add/increment，任意线程调用 get
+ *
+ * 只有一个写者就不需要CAS或 getAndAdd：写者用普通读取自己的上一次值，加上增量后按 AccessMode 写回。
+ * 读者按同一模式读取：
+ * - VOLATILE：与其他 volatile 访问一起全局有序
+ * - RELEASE_ACQUIRE：读到第n次写入时，写者在第n次写入之前做的所有修改都可见
+ * - OPAQUE：只保证读到的是某次完整写入的值，且同一读者读到的值不会倒退
+ *
+ * 多个线程同时调用 add 会丢失更新，这种情况请用 AtomicLong 或 LongAdder。
+ */
+public final class SingleWriterCounter {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SingleWriterCounter.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AccessMode mode;
+
+    /**
+     * 不声明为 volatile，访问语义完全由 VarHandle 的访问模式决定
+     */
+    private long value;
+
+    /**
+     * 用同一个类按模式分支，而不是每种模式一个子类：调用点保持单态，JIT能内联；
+     * 同一实例的模式不变，分支预测几乎没有开销
+     */
+    public SingleWriterCounter(AccessMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * 仅写者线程调用
+     */
+    public void add(long delta) {
+        long next = value + delta;
+        switch (mode) {
+            case VOLATILE:
+                VALUE.setVolatile(this, next);
+                break;
+            case RELEASE_ACQUIRE:
+                VALUE.setRelease(this, next);
+                break;
+            default:
+                VALUE.setOpaque(this, next);
+                break;
+        }
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * 任意线程调用
+     */
+    public long get() {
+        switch (mode) {
+            case VOLATILE:
+                return (long) VALUE.getVolatile(this);
+            case RELEASE_ACQUIRE:
+                return (long) VALUE.getAcquire(this);
+            default:
+                return (long) VALUE.getOpaque(this);
+        }
+    }
+
+    /**
+     * 写者读取自己写的值，不需要任何屏障
+     */
+    public long getPlain() {
+        return value;
+    }
+
+    public AccessMode mode() {
+        return mode;
+    }
+}
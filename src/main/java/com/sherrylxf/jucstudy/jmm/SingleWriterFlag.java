@@ -0,0 +1,64 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 单写者标志：只有一个线程调用 set，任意线程调用 isSet
+ *
+ * 典型用法是"准备好数据后置位，读者看到置位后读数据"（MP模式）：
+ * - VOLATILE、RELEASE_ACQUIRE：读者 isSet() 返回true后，一定能看到写者 set(true) 之前写的数据
+ * - OPAQUE：只保证读者最终能看到标志变化，看到后读数据仍可能是旧值，只适合"停止""暂停"这类不携带数据的信号
+ */
+public final class SingleWriterFlag {
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(SingleWriterFlag.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AccessMode mode;
+    private int state;
+
+    public SingleWriterFlag(AccessMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * 仅写者线程调用
+     */
+    public void set(boolean value) {
+        int v = value ? 1 : 0;
+        switch (mode) {
+            case VOLATILE:
+                STATE.setVolatile(this, v);
+                break;
+            case RELEASE_ACQUIRE:
+                STATE.setRelease(this, v);
+                break;
+            default:
+                STATE.setOpaque(this, v);
+                break;
+        }
+    }
+
+    public boolean isSet() {
+        switch (mode) {
+            case VOLATILE:
+                return (int) STATE.getVolatile(this) != 0;
+            case RELEASE_ACQUIRE:
+                return (int) STATE.getAcquire(this) != 0;
+            default:
+                return (int) STATE.getOpaque(this) != 0;
+        }
+    }
+
+    public AccessMode mode() {
+        return mode;
+    }
+}
@@ -1,5 +1,7 @@
 package com.sherrylxf.jucstudy.jmm;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 可见性问题演示
  * 面试重点：volatile解决可见性问题
@@ -160,6 +162,44 @@ public class VisibilityDemo {
         }
     }
 
+    /**
+     * 演示等待策略：用 WaitStrategy 代替 while (!volatileFlag) {} 空循环
+     */
+    public static void demonstrateWaitStrategies() {
+        System.out.println("\n========== 等待策略演示 ==========");
+
+        volatileFlag = false;
+        WaitStrategy.SignalingWaitStrategy strategy = WaitStrategy.signaling();
+
+        Thread thread = new Thread(() -> {
+            System.out.println("子线程开始等待volatileFlag变为true（park，不占CPU）...");
+            try {
+                strategy.await(() -> volatileFlag);
+                System.out.println("✓ 子线程被唤醒，看到volatileFlag为true");
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+
+        thread.start();
+
+        try {
+            Thread.sleep(500);
+            System.out.println("等待中的线程数: " + strategy.waiterCount() + ", 子线程状态: " + thread.getState());
+            volatileFlag = true;
+            strategy.signalAll(); // 先改条件，再唤醒
+            thread.join();
+
+            boolean ready = WaitStrategy.progressivePark().await(() -> false, 10, TimeUnit.MILLISECONDS);
+            System.out.println("progressivePark等待一个不会成立的条件10ms: " + (ready ? "成立" : "超时"));
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        volatileFlag = false;
+
+        System.out.println("性能对比见 WaitStrategyBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 综合演示可见性问题
      */
@@ -181,6 +221,7 @@ public class VisibilityDemo {
         demonstrateVolatileSolution();
         demonstrateWhySometimesWorks();
         demonstrateCountVisibility();
+        demonstrateWaitStrategies();
     }
 }
 
@@ -145,6 +145,50 @@ public class VolatileDemo {
         System.out.println();
     }
 
+    /**
+     * 演示比volatile更弱的访问模式：单写者计数器和标志
+     */
+    public static void demonstrateAccessModes() {
+        System.out.println("\n========== 单写者的访问模式 ==========");
+        
+        int[] data = new int[1];
+        SingleWriterCounter processed = new SingleWriterCounter(AccessMode.OPAQUE);
+        SingleWriterFlag ready = new SingleWriterFlag(AccessMode.RELEASE_ACQUIRE);
+        
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 1000000; i++) {
+                processed.increment(); // 只有这个线程写，不需要CAS
+            }
+            data[0] = 42;      // 普通写
+            ready.set(true);   // setRelease：之前的写不会重排到它之后
+        });
+        
+        Thread reader = new Thread(() -> {
+            while (!ready.isSet()) { // getAcquire
+                Thread.onSpinWait();
+            }
+            System.out.println("读者看到ready后读data: " + data[0] + " (release/acquire保证是42)");
+            System.out.println("读者读processed: " + processed.get());
+        });
+        
+        reader.start();
+        writer.start();
+        
+        try {
+            writer.join();
+            reader.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        System.out.println("【访问模式】");
+        System.out.println("VOLATILE:        顺序一致，写后有StoreLoad屏障");
+        System.out.println("RELEASE_ACQUIRE: 因果顺序，看到写入就能看到写入之前的所有修改");
+        System.out.println("OPAQUE:          只保证单个变量不撕裂、最终可见，不能用来发布数据");
+        
+        System.out.println("性能对比见 AccessModeBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 综合演示volatile
      */
@@ -156,6 +200,7 @@ public class VolatileDemo {
         demonstrateVolatileUseCases();
         demonstrateVolatileVsSynchronized();
         demonstrateVolatileHappensBefore();
+        demonstrateAccessModes();
     }
 }
 
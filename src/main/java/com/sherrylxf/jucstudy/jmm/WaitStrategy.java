@@ -0,0 +1,264 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * "等到某个volatile条件成立"的等待策略
+ *
+ * VisibilityDemo 里的 while (!volatileFlag) {} 延迟最低，但等待期间占满一个核。
+ * 不同的调用点对延迟和CPU的取舍不同，这里把"怎么等"抽出来：
+ * - busySpin：onSpinWait 忙等，延迟最低，一直占一个核
+ * - spinThenYield：先自旋若干次，再反复 yield，空闲时仍在调度队列里打转
+ * - progressivePark：自旋 -> yield -> parkNanos（间隔翻倍到上限），空闲时几乎不占CPU，延迟受最大间隔限制
+ * - signaling：短暂自旋后 park，修改条件的一方调用 signalAll() 精准唤醒，延迟约为一次线程唤醒
+ *
+ * condition 必须读的是 volatile（或 acquire）变量，否则循环可能被JIT提升成死循环。
+ * 除 signaling 外的策略都无状态、可共享；signaling 的实例必须由等待方和修改方共用。
+ */
+public interface WaitStrategy {
+
+    /**
+     * 等待 condition 成立，超时返回false
+     *
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    boolean await(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 一直等到 condition 成立
+     */
+    default void await(BooleanSupplier condition) throws InterruptedException {
+        await(condition, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 修改条件之后调用；只有 signaling 策略需要，其他策略靠轮询发现变化
+     */
+    default void signalAll() {
+    }
+
+    String name();
+
+    static WaitStrategy busySpin() {
+        return new BusySpin();
+    }
+
+    static WaitStrategy spinThenYield(int spins) {
+        return new SpinThenYield(spins);
+    }
+
+    /**
+     * 默认：100次自旋，10次yield，park间隔1us起翻倍到1ms
+     */
+    static WaitStrategy progressivePark() {
+        return new ProgressivePark(100, 10, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    static WaitStrategy progressivePark(int spins, int yields, long minParkNanos, long maxParkNanos) {
+        return new ProgressivePark(spins, yields, minParkNanos, maxParkNanos);
+    }
+
+    /**
+     * 默认自旋100次后park
+     */
+    static SignalingWaitStrategy signaling() {
+        return new SignalingWaitStrategy(100);
+    }
+
+    private static long deadline(long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        long now = System.nanoTime();
+        // 防止 Long.MAX_VALUE 溢出
+        return nanos >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + nanos;
+    }
+
+    private static void checkInterrupt() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Thread.onSpinWait 忙等
+     */
+    final class BusySpin implements WaitStrategy {
+        /**
+         * 每隔多少次迭代检查一次超时和中断，避免每次自旋都调用 nanoTime
+         */
+        private static final int CHECK_INTERVAL = 1024;
+
+        @Override
+        public boolean await(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = deadline(timeout, unit);
+            int iterations = 0;
+            while (!condition.getAsBoolean()) {
+                if (++iterations % CHECK_INTERVAL == 0) {
+                    checkInterrupt();
+                    if (System.nanoTime() - deadline >= 0) {
+                        return false;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+            return true;
+        }
+
+        @Override
+        public String name() {
+            return "busySpin";
+        }
+    }
+
+    /**
+     * 先自旋 spins 次，之后每次检查前 Thread.yield()
+     */
+    final class SpinThenYield implements WaitStrategy {
+        private final int spins;
+
+        SpinThenYield(int spins) {
+            if (spins < 0) {
+                throw new IllegalArgumentException("spins不能为负数: " + spins);
+            }
+            this.spins = spins;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = deadline(timeout, unit);
+            int iterations = 0;
+            while (!condition.getAsBoolean()) {
+                if (iterations < spins) {
+                    iterations++;
+                    Thread.onSpinWait();
+                    continue;
+                }
+                checkInterrupt();
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                Thread.yield();
+            }
+            return true;
+        }
+
+        @Override
+        public String name() {
+            return "spin(" + spins + ")+yield";
+        }
+    }
+
+    /**
+     * 自旋 -> yield -> parkNanos，park间隔逐次翻倍直到 maxParkNanos
+     */
+    final class ProgressivePark implements WaitStrategy {
+        private final int spins;
+        private final int yields;
+        private final long minParkNanos;
+        private final long maxParkNanos;
+
+        ProgressivePark(int spins, int yields, long minParkNanos, long maxParkNanos) {
+            if (spins < 0 || yields < 0 || minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+                throw new IllegalArgumentException("参数非法: spins=" + spins + ", yields=" + yields
+                        + ", minParkNanos=" + minParkNanos + ", maxParkNanos=" + maxParkNanos);
+            }
+            this.spins = spins;
+            this.yields = yields;
+            this.minParkNanos = minParkNanos;
+            this.maxParkNanos = maxParkNanos;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = deadline(timeout, unit);
+            int iterations = 0;
+            long parkNanos = minParkNanos;
+            while (!condition.getAsBoolean()) {
+                if (iterations < spins) {
+                    iterations++;
+                    Thread.onSpinWait();
+                    continue;
+                }
+                checkInterrupt();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (iterations < spins + yields) {
+                    iterations++;
+                    Thread.yield();
+                    continue;
+                }
+                LockSupport.parkNanos(this, Math.min(parkNanos, remaining));
+                parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+            }
+            return true;
+        }
+
+        @Override
+        public String name() {
+            return "progressivePark(" + TimeUnit.NANOSECONDS.toMicros(maxParkNanos) + "us)";
+        }
+    }
+
+    /**
+     * 基于 park/unpark 的等待：等待方登记后再检查一次条件才park，修改方先写条件再 signalAll()，
+     * 两边都是"先写后读"（条件是volatile，登记是CAS入队），不会丢失唤醒
+     */
+    final class SignalingWaitStrategy implements WaitStrategy {
+        private final int spins;
+        private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+        SignalingWaitStrategy(int spins) {
+            this.spins = spins;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException {
+            for (int i = 0; i < spins; i++) {
+                if (condition.getAsBoolean()) {
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+            long deadline = deadline(timeout, unit);
+            Thread current = Thread.currentThread();
+            waiters.add(current);
+            try {
+                while (!condition.getAsBoolean()) {
+                    checkInterrupt();
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    // 被唤醒后可能条件仍不成立（其他条件的signal或虚假唤醒），继续循环
+                    LockSupport.parkNanos(this, remaining);
+                }
+                return true;
+            } finally {
+                waiters.remove(current);
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        /**
+         * 当前登记在等的线程数（近似值）
+         */
+        public int waiterCount() {
+            return waiters.size();
+        }
+
+        @Override
+        public String name() {
+            return "signaling(park/unpark)";
+        }
+    }
+}
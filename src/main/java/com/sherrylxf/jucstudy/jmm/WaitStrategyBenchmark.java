@@ -0,0 +1,101 @@
+package com.sherrylxf.jucstudy.jmm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 等待策略的唤醒延迟 vs 等待期间CPU占用
+ *
+ * 修改线程每隔约1ms把 generation 加1，等待线程用各策略等 generation 变化，
+ * 记录从写入到等待方返回的延迟；等待线程的CPU时间 / 墙上时间 就是它等待时占用的CPU比例
+ */
+public class WaitStrategyBenchmark {
+
+    private static final int ROUNDS = 500;
+    private static final long GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static volatile long generation;
+
+    /**
+     * @return {p50, p99, max 延迟(纳秒), 等待线程CPU占用(千分比)}
+     */
+    static long[] run(WaitStrategy strategy) throws InterruptedException {
+        generation = 0;
+        long[] signalNanos = new long[ROUNDS + 1];
+        long[] latencies = new long[ROUNDS];
+        long[] cpu = new long[1];
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        Thread waiter = new Thread(() -> {
+            long cpuBegin = threadBean.getCurrentThreadCpuTime();
+            long wallBegin = System.nanoTime();
+            try {
+                for (int round = 1; round <= ROUNDS; round++) {
+                    final long target = round;
+                    strategy.await(() -> generation >= target);
+                    latencies[round - 1] = System.nanoTime() - signalNanos[round];
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long wall = System.nanoTime() - wallBegin;
+            cpu[0] = (threadBean.getCurrentThreadCpuTime() - cpuBegin) * 1000 / Math.max(1, wall);
+        });
+        waiter.start();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long wakeAt = System.nanoTime() + GAP_NANOS;
+            while (System.nanoTime() < wakeAt) {
+                Thread.sleep(0, 100_000);
+            }
+            // 先写时间戳再写volatile，等待方读到新的generation时一定能看到时间戳
+            signalNanos[round] = System.nanoTime();
+            generation = round;
+            strategy.signalAll();
+        }
+        waiter.join();
+
+        Arrays.sort(latencies);
+        return new long[]{latencies[ROUNDS / 2], latencies[ROUNDS * 99 / 100], latencies[ROUNDS - 1], cpu[0]};
+    }
+
+    public static void demonstrateComparison() {
+        System.out.println("\n========== 等待策略：唤醒延迟 vs CPU占用 ==========");
+
+        WaitStrategy[] strategies = {
+                WaitStrategy.busySpin(),
+                WaitStrategy.spinThenYield(100),
+                WaitStrategy.progressivePark(100, 10, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MICROSECONDS.toNanos(100)),
+                WaitStrategy.progressivePark(),
+                WaitStrategy.signaling()
+        };
+        System.out.println("CPU核数: " + Runtime.getRuntime().availableProcessors()
+                + ", 轮数: " + ROUNDS + ", 每轮间隔约 " + TimeUnit.NANOSECONDS.toMillis(GAP_NANOS) + "ms");
+        System.out.printf("%-28s %12s %12s %12s %14s%n", "策略", "p50(us)", "p99(us)", "max(us)", "等待方CPU占用");
+
+        try {
+            for (WaitStrategy strategy : strategies) {
+                long[] result = run(strategy);
+                System.out.printf("%-28s %12.1f %12.1f %12.1f %13.1f%%%n", strategy.name(),
+                        result[0] / 1000.0, result[1] / 1000.0, result[2] / 1000.0, result[3] / 10.0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - busySpin 延迟最低，但等待期间占满一个核；核数不够时还会抢走修改线程的CPU，反而更慢");
+        System.out.println("  - yield 只在有其他可运行线程时才让出，空闲机器上和忙等差不多一样耗CPU");
+        System.out.println("  - progressivePark 的CPU占用很低，延迟上限约等于最大park间隔，调小间隔换延迟");
+        System.out.println("  - signaling 由修改方unpark，延迟约为一次线程唤醒（几十微秒），CPU占用接近0；修改方要多调一次signalAll");
+        System.out.println("  - 延迟敏感且有独占核：busySpin；普通\"等待就绪\"：signaling 或 progressivePark");
+    }
+
+    public static void main(String[] args) {
+        demonstrateComparison();
+    }
+}
@@ -0,0 +1,314 @@
+package com.sherrylxf.jucstudy.lock;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 运行时死锁看门狗
+ *
+ * 后台线程按固定间隔调用 ThreadMXBean.findDeadlockedThreads：
+ * - 没有死锁时只有这一次调用（一次安全点操作，耗时和线程数成正比），所以间隔要按秒计
+ * - 发现死锁才去取线程的锁信息和调用栈，拆成一个个环，交给 listener
+ * - 环里每条边都是 ReentrantLock 时，选一个正在 lockInterruptibly 里等待的线程做"牺牲者"并中断它，
+ *   它抛出 InterruptedException 后释放自己持有的锁，其余线程就能继续；
+ *   synchronized 的等待和 lock() 的等待不响应中断，这样的环只报告不处理
+ *
+ * 牺牲者的选择：持有锁最少的（回滚代价小），一样多时选线程id最大的（通常是后创建的）
+ * 中断过的线程连续 RETRY_AFTER_SCANS 次扫描还在环里（吞掉了中断、或者醒来后又回去等锁），
+ * 就换环上另一个可中断的线程；没有别的可选时再中断它一次
+ */
+public class DeadlockWatchdog implements AutoCloseable {
+
+    private static final String REENTRANT_LOCK_SYNC = ReentrantLock.class.getName() + "$";
+    private static final String LOCK_INTERRUPTIBLY = "lockInterruptibly";
+    private static final int RETRY_AFTER_SCANS = 3;
+
+    /**
+     * 环中的一个线程
+     */
+    public static final class Waiter {
+        public final long threadId;
+        public final String threadName;
+        public final String waitingFor;
+        public final String ownerName;
+        public final String stack;
+        final boolean reentrantLockEdge;
+        final boolean interruptible;
+        final int locksHeld;
+
+        Waiter(ThreadInfo info, int maxFrames) {
+            this.threadId = info.getThreadId();
+            this.threadName = info.getThreadName();
+            LockInfo lock = info.getLockInfo();
+            this.waitingFor = lock == null ? "?" : lock.toString();
+            this.ownerName = info.getLockOwnerName();
+            this.reentrantLockEdge = lock != null && lock.getClassName().startsWith(REENTRANT_LOCK_SYNC);
+            boolean inLockInterruptibly = false;
+            StringBuilder sb = new StringBuilder();
+            StackTraceElement[] frames = info.getStackTrace();
+            for (int i = 0; i < frames.length; i++) {
+                if (LOCK_INTERRUPTIBLY.equals(frames[i].getMethodName())
+                        && frames[i].getClassName().equals(ReentrantLock.class.getName())) {
+                    inLockInterruptibly = true;
+                }
+                if (i < maxFrames) {
+                    sb.append("\tat ").append(frames[i]).append('\n');
+                }
+            }
+            if (frames.length > maxFrames) {
+                sb.append("\t...\n");
+            }
+            this.interruptible = reentrantLockEdge && inLockInterruptibly;
+            this.locksHeld = info.getLockedMonitors().length + info.getLockedSynchronizers().length;
+            this.stack = sb.toString();
+        }
+    }
+
+    /**
+     * 一个等待环，以及对它的处理结果
+     */
+    public static final class Cycle {
+        public final List<Waiter> waiters;
+        /**
+         * 被中断的线程名，没有处理则为null
+         */
+        public final String victim;
+        public final String note;
+
+        Cycle(List<Waiter> waiters, String victim, String note) {
+            this.waiters = waiters;
+            this.victim = victim;
+            this.note = note;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("死锁环（" + waiters.size() + "个线程）:\n");
+            for (Waiter w : waiters) {
+                sb.append("\"").append(w.threadName).append("\" 等待 ").append(w.waitingFor)
+                        .append("，持有者 \"").append(w.ownerName).append("\"\n").append(w.stack);
+            }
+            sb.append("处理: ").append(victim != null ? "中断 \"" + victim + "\"" : note);
+            return sb.toString();
+        }
+    }
+
+    private final ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+    private final long intervalMillis;
+    private final int maxFrames;
+    private final Consumer<Cycle> listener;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 中断过且上次扫描时还在环里的线程 -> 中断它时的扫描序号；
+     * 没超过 RETRY_AFTER_SCANS 次扫描时认为它还没来得及响应，不重复中断，也不另选牺牲者
+     */
+    private Map<Long, Long> recentVictims = Collections.emptyMap();
+
+    private volatile long scans;
+    private volatile long deadlocksFound;
+    private volatile long victimsInterrupted;
+    private volatile long totalScanNanos;
+    private volatile long maxScanNanos;
+    private volatile long totalScanCpuNanos;
+
+    public DeadlockWatchdog(long intervalMillis) {
+        this(intervalMillis, 12, cycle -> System.out.println("[DeadlockWatchdog] " + cycle));
+    }
+
+    /**
+     * @param maxFrames 每个线程最多记录多少帧调用栈
+     * @param listener  每发现一个死锁环调用一次，在看门狗线程上执行
+     */
+    public DeadlockWatchdog(long intervalMillis, int maxFrames, Consumer<Cycle> listener) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis必须为正数");
+        }
+        this.intervalMillis = intervalMillis;
+        this.maxFrames = maxFrames;
+        this.listener = listener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "deadlock-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                scan();
+            } catch (RuntimeException e) {
+                // 看门狗本身出错不能让调度停掉
+                e.printStackTrace();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 扫描一次；定时任务调用它，也可以手动调用
+     *
+     * @return 本次发现的死锁环，没有则为空列表
+     */
+    public synchronized List<Cycle> scan() {
+        long cpuStart = mxBean.isCurrentThreadCpuTimeSupported() ? mxBean.getCurrentThreadCpuTime() : 0;
+        long begin = System.nanoTime();
+        long[] ids = mxBean.findDeadlockedThreads();
+        List<Cycle> cycles = ids == null ? Collections.emptyList() : handle(ids);
+        long elapsed = System.nanoTime() - begin;
+
+        scans++;
+        totalScanNanos += elapsed;
+        maxScanNanos = Math.max(maxScanNanos, elapsed);
+        if (mxBean.isCurrentThreadCpuTimeSupported()) {
+            totalScanCpuNanos += mxBean.getCurrentThreadCpuTime() - cpuStart;
+        }
+        return cycles;
+    }
+
+    private List<Cycle> handle(long[] ids) {
+        ThreadInfo[] infos = mxBean.getThreadInfo(ids, true, true);
+        Map<Long, Waiter> waiters = new HashMap<>();
+        Map<Long, Long> waitsFor = new HashMap<>();
+        for (ThreadInfo info : infos) {
+            if (info != null) {
+                waiters.put(info.getThreadId(), new Waiter(info, maxFrames));
+                waitsFor.put(info.getThreadId(), info.getLockOwnerId());
+            }
+        }
+
+        // findDeadlockedThreads 还会返回"等待环中线程"但自己不在环上的线程，沿 owner 走一圈把真正的环拆出来
+        List<Cycle> cycles = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Map<Long, Long> victims = new HashMap<>();
+        for (long start : waitsFor.keySet()) {
+            List<Long> path = new ArrayList<>();
+            long current = start;
+            while (waitsFor.containsKey(current) && !visited.contains(current) && !path.contains(current)) {
+                path.add(current);
+                current = waitsFor.get(current);
+            }
+            int cycleStart = path.indexOf(current);
+            visited.addAll(path);
+            if (cycleStart < 0) {
+                continue;
+            }
+            List<Waiter> members = new ArrayList<>();
+            for (long id : path.subList(cycleStart, path.size())) {
+                members.add(waiters.get(id));
+            }
+            Cycle cycle = breakCycle(members, victims);
+            deadlocksFound++;
+            cycles.add(cycle);
+            listener.accept(cycle);
+        }
+        recentVictims = victims;
+        return cycles;
+    }
+
+    private Cycle breakCycle(List<Waiter> members, Map<Long, Long> victims) {
+        Set<Long> stalled = new HashSet<>();
+        for (Waiter w : members) {
+            Long interruptedAt = recentVictims.get(w.threadId);
+            if (interruptedAt == null) {
+                continue;
+            }
+            if (scans - interruptedAt < RETRY_AFTER_SCANS) {
+                victims.put(w.threadId, interruptedAt);
+                return new Cycle(members, null, "上次已中断 \"" + w.threadName + "\"，等待它响应");
+            }
+            stalled.add(w.threadId);
+        }
+        Waiter victim = null;
+        Waiter fallback = null;
+        for (Waiter w : members) {
+            if (!w.reentrantLockEdge) {
+                return new Cycle(members, null, "环中有非ReentrantLock的等待（synchronized等），无法中断，只报告");
+            }
+            if (!w.interruptible) {
+                continue;
+            }
+            if (stalled.contains(w.threadId)) {
+                fallback = w;
+            } else if (victim == null || w.locksHeld < victim.locksHeld
+                    || (w.locksHeld == victim.locksHeld && w.threadId > victim.threadId)) {
+                victim = w;
+            }
+        }
+        if (victim == null) {
+            victim = fallback;
+        }
+        if (victim == null) {
+            return new Cycle(members, null, "没有线程在lockInterruptibly里等待，lock()不响应中断，只报告");
+        }
+        Thread thread = findThread(victim.threadId);
+        if (thread == null) {
+            return new Cycle(members, null, "找不到线程 \"" + victim.threadName + "\"");
+        }
+        thread.interrupt();
+        victims.put(victim.threadId, scans);
+        victimsInterrupted++;
+        return new Cycle(members, victim.threadName, null);
+    }
+
+    private static Thread findThread(long id) {
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getId() == id) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    public long scans() {
+        return scans;
+    }
+
+    public long deadlocksFound() {
+        return deadlocksFound;
+    }
+
+    public long victimsInterrupted() {
+        return victimsInterrupted;
+    }
+
+    public double averageScanMicros() {
+        long n = scans;
+        return n == 0 ? 0 : totalScanNanos / 1000.0 / n;
+    }
+
+    public double maxScanMicros() {
+        return maxScanNanos / 1000.0;
+    }
+
+    public double averageScanCpuMicros() {
+        long n = scans;
+        return n == 0 ? 0 : totalScanCpuNanos / 1000.0 / n;
+    }
+
+    /**
+     * 按当前间隔估算的开销：平均每次扫描的耗时占间隔的比例（%）
+     */
+    public double overheadPercent() {
+        return averageScanMicros() / 10.0 / intervalMillis;
+    }
+}
@@ -0,0 +1,208 @@
+package com.sherrylxf.jucstudy.lock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DeadlockWatchdog 演示：自动打破 ReentrantLock 死锁、synchronized 死锁只报告、扫描开销
+ */
+public class DeadlockWatchdogBenchmark {
+
+    private static final int SCANS = 50;
+    private static final String SYNCHRONIZED_DEADLOCK = "synchronized-deadlock";
+
+    /**
+     * 先拿 first 再 lockInterruptibly 拿 second；被中断时放弃本次操作并释放 first
+     */
+    static Thread transfer(String name, ReentrantLock first, ReentrantLock second, CountDownLatch bothHoldFirst) {
+        return new Thread(() -> {
+            first.lock();
+            try {
+                bothHoldFirst.countDown();
+                bothHoldFirst.await();
+                second.lockInterruptibly();
+                try {
+                    System.out.println(name + " 拿到两把锁，完成操作");
+                } finally {
+                    second.unlock();
+                }
+            } catch (InterruptedException e) {
+                System.out.println(name + " 等锁时被看门狗中断，放弃本次操作并释放已持有的锁");
+            } finally {
+                first.unlock();
+            }
+        }, name);
+    }
+
+    /**
+     * 两个线程反序加锁形成死锁，看门狗中断其中一个，另一个得以完成
+     */
+    public static void demonstrateBreakReentrantLockDeadlock() {
+        System.out.println("\n========== 看门狗打破 ReentrantLock 死锁 ==========");
+
+        ReentrantLock accountA = new ReentrantLock();
+        ReentrantLock accountB = new ReentrantLock();
+        CountDownLatch bothHoldFirst = new CountDownLatch(2);
+        Thread t1 = transfer("转账A->B", accountA, accountB, bothHoldFirst);
+        Thread t2 = transfer("转账B->A", accountB, accountA, bothHoldFirst);
+
+        try (DeadlockWatchdog watchdog = new DeadlockWatchdog(200)) {
+            watchdog.start();
+            t1.start();
+            t2.start();
+            t1.join(5000);
+            t2.join(5000);
+            System.out.println("两个线程都已结束: " + (!t1.isAlive() && !t2.isAlive())
+                    + ", 发现死锁环: " + watchdog.deadlocksFound() + ", 中断线程: " + watchdog.victimsInterrupted());
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        System.out.println("✓ 环上都是 lockInterruptibly 的等待时，中断一个线程就能让它释放锁、解开整个环");
+    }
+
+    /**
+     * synchronized 死锁：看门狗能发现并输出调用栈，但无法打破
+     *
+     * 卡在 monitor 上的线程无法中断、也没有超时，环一旦形成就解不开；
+     * 所以在子JVM里制造死锁，子JVM扫描完就退出，当前JVM里不留下卡死的线程
+     */
+    public static void demonstrateReportSynchronizedDeadlock() {
+        System.out.println("\n========== 看门狗报告 synchronized 死锁 ==========");
+
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        ProcessBuilder builder = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                DeadlockWatchdogBenchmark.class.getName(), SYNCHRONIZED_DEADLOCK).inheritIO();
+        try {
+            Process process = builder.start();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                System.out.println("子JVM 30秒内没有结束，已强制终止");
+            }
+        } catch (IOException e) {
+            System.out.println("启动子JVM失败: " + e.getMessage());
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        System.out.println("✓ synchronized 的等待不响应中断，只能靠报告里的调用栈修代码（统一加锁顺序）");
+    }
+
+    /**
+     * 子JVM入口：两个守护线程反序进入 monitor 形成死锁，扫描一次后随 main 返回一起退出
+     */
+    private static void reportSynchronizedDeadlock() {
+        Object lock1 = new Object();
+        Object lock2 = new Object();
+        CountDownLatch bothHoldFirst = new CountDownLatch(2);
+        Thread[] threads = {
+                monitorThread("monitor-1", lock1, lock2, bothHoldFirst),
+                monitorThread("monitor-2", lock2, lock1, bothHoldFirst)
+        };
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+        try {
+            bothHoldFirst.await();
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        try (DeadlockWatchdog watchdog = new DeadlockWatchdog(1000)) {
+            List<DeadlockWatchdog.Cycle> cycles = watchdog.scan();
+            System.out.println("手动扫描一次，发现死锁环: " + cycles.size() + ", 中断线程: " + watchdog.victimsInterrupted());
+        }
+    }
+
+    private static Thread monitorThread(String name, Object first, Object second, CountDownLatch bothHoldFirst) {
+        return new Thread(() -> {
+            synchronized (first) {
+                bothHoldFirst.countDown();
+                try {
+                    bothHoldFirst.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                synchronized (second) {
+                    System.out.println(name + " 拿到两把锁");
+                }
+            }
+        }, name);
+    }
+
+    /**
+     * 没有死锁时每次扫描的耗时，随存活线程数增长
+     */
+    public static void demonstrateScanOverhead() {
+        System.out.println("\n========== 看门狗扫描开销（无死锁） ==========");
+        System.out.printf("%-10s %14s %14s %14s %16s%n", "额外线程", "平均耗时(us)", "最大耗时(us)", "平均CPU(us)", "1秒间隔开销");
+
+        for (int extra : new int[]{0, 100, 1000}) {
+            List<Thread> idle = new ArrayList<>();
+            CountDownLatch release = new CountDownLatch(1);
+            for (int i = 0; i < extra; i++) {
+                Thread t = new Thread(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                t.setDaemon(true);
+                t.start();
+                idle.add(t);
+            }
+
+            // 先用一个实例扫几次预热，不计入
+            try (DeadlockWatchdog warmup = new DeadlockWatchdog(1000)) {
+                for (int i = 0; i < 5; i++) {
+                    warmup.scan();
+                }
+            }
+            try (DeadlockWatchdog watchdog = new DeadlockWatchdog(1000)) {
+                for (int i = 0; i < SCANS; i++) {
+                    watchdog.scan();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+                }
+                System.out.printf("%-10d %14.1f %14.1f %14.1f %15.4f%%%n", extra, watchdog.averageScanMicros(),
+                        watchdog.maxScanMicros(), watchdog.averageScanCpuMicros(), watchdog.overheadPercent());
+            }
+
+            release.countDown();
+            for (Thread t : idle) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 无死锁时只调用一次 findDeadlockedThreads，是一次安全点操作，耗时和存活线程数成正比");
+        System.out.println("  - 按秒级间隔扫描，即使上千个线程开销也远低于1%；调用栈只在发现死锁后才采集");
+        System.out.println("  - 安全点会让所有线程短暂停顿，间隔不要设到毫秒级");
+    }
+
+    /**
+     * 不带参数：运行全部演示
+     * 带参数 synchronized-deadlock：demonstrateReportSynchronizedDeadlock 启动的子JVM入口
+     */
+    public static void main(String[] args) {
+        if (args.length == 1 && SYNCHRONIZED_DEADLOCK.equals(args[0])) {
+            reportSynchronizedDeadlock();
+            return;
+        }
+        demonstrateScanOverhead();
+        demonstrateBreakReentrantLockDeadlock();
+        demonstrateReportSynchronizedDeadlock();
+    }
+}
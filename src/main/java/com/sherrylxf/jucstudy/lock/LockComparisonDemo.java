@@ -1,5 +1,11 @@
 package com.sherrylxf.jucstudy.lock;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * 各种锁的对比
  * 面试重点：synchronized vs ReentrantLock、各种锁的适用场景
@@ -106,21 +112,25 @@ public class LockComparisonDemo {
         System.out.println("\n========== 锁的性能对比 ==========");
         System.out.println();
         
-        System.out.println("【性能排序（读多写少场景）】");
-        System.out.println("1. StampedLock（乐观读）: 性能最高");
-        System.out.println("2. ReadWriteLock: 性能较高");
-        System.out.println("3. ReentrantLock: 性能中等");
-        System.out.println("4. synchronized: 性能中等（JVM优化后）");
-        System.out.println();
+        // 排名来自JMH实测（src/jmh/java 下的 LockBenchmark），不同机器、JDK、场景下结果不同
+        Path report = Paths.get("target", "jmh", "lock-ranking.md");
+        if (Files.exists(report)) {
+            try {
+                System.out.println(new String(Files.readAllBytes(report), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         
-        System.out.println("【性能排序（写多场景）】");
-        System.out.println("1. synchronized: 性能最好（JVM优化）");
-        System.out.println("2. ReentrantLock: 性能较好");
-        System.out.println("3. ReadWriteLock/StampedLock: 性能较低（锁开销大）");
+        System.out.println("还没有实测数据，先运行JMH基准测试生成排名报告：");
+        System.out.println("  mvn -Pjmh package");
+        System.out.println("  java -jar target/benchmarks.jar          (完整: 2个fork, 3轮预热, 5轮测量)");
+        System.out.println("  java -jar target/benchmarks.jar --quick  (快速: 1个fork, 较短的迭代)");
         System.out.println();
-        
-        System.out.println("【注意】");
-        System.out.println("实际性能取决于具体场景，建议进行性能测试");
+        System.out.println("覆盖: synchronized / ReentrantLock / ReentrantReadWriteLock / StampedLock / AQSDemo自定义锁");
+        System.out.println("      × 写比例 0/10/50/100% × 临界区长度 × 线程数 1 到 2×核数");
+        System.out.println("报告位置: " + report.toAbsolutePath());
         System.out.println();
     }
 
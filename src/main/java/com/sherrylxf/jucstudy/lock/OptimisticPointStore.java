@@ -0,0 +1,197 @@
+package com.sherrylxf.jucstudy.lock;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 基于StampedLock乐观读的坐标点存储
+ *
+ * 按id存放多个点（x, y 两个字段），按 id 分段，每段一把 StampedLock：
+ * - 读：先 tryOptimisticRead 读出两个字段，validate 通过直接返回；失败退化为悲观读锁重读
+ * - 写：写锁
+ * - 条件更新（moveIfAt）：乐观读判断条件，条件成立再 tryConvertToWriteLock 升级，升级失败才真正加写锁
+ *
+ * 乐观读期间读到的字段可能是不一致的（x 是新值、y 是旧值），
+ * 所以在 validate 之前只能把它们拷到局部变量，不能拿去做判断以外的事
+ */
+public class OptimisticPointStore {
+
+    /**
+     * 某一时刻的点快照
+     */
+    public static final class Point {
+        public final double x;
+        public final double y;
+
+        public Point(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + ", " + y + ")";
+        }
+    }
+
+    private final double[] xs;
+    private final double[] ys;
+    private final StampedLock[] locks;
+    private final int mask;
+
+    private final LongAdder optimisticFailures = new LongAdder();
+    private final LongAdder conversionFailures = new LongAdder();
+
+    public OptimisticPointStore(int capacity) {
+        this(capacity, 64);
+    }
+
+    /**
+     * @param stripes 分段数，向上取整到2的幂
+     */
+    public OptimisticPointStore(int capacity, int stripes) {
+        if (capacity <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("capacity和stripes必须为正数");
+        }
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        int n = 1;
+        while (n < stripes) {
+            n <<= 1;
+        }
+        this.locks = new StampedLock[n];
+        for (int i = 0; i < n; i++) {
+            locks[i] = new StampedLock();
+        }
+        this.mask = n - 1;
+    }
+
+    public int capacity() {
+        return xs.length;
+    }
+
+    private StampedLock lockFor(int id) {
+        return locks[id & mask];
+    }
+
+    /**
+     * 读取一个点的完整快照，x 和 y 一定来自同一次写入
+     */
+    public Point get(int id) {
+        StampedLock lock = lockFor(id);
+        long stamp = lock.tryOptimisticRead();
+        double x = xs[id];
+        double y = ys[id];
+        if (!lock.validate(stamp)) {
+            optimisticFailures.increment();
+            stamp = lock.readLock();
+            try {
+                x = xs[id];
+                y = ys[id];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return new Point(x, y);
+    }
+
+    /**
+     * 点到 (px, py) 的距离；不分配对象，适合热路径
+     */
+    public double distanceTo(int id, double px, double py) {
+        StampedLock lock = lockFor(id);
+        long stamp = lock.tryOptimisticRead();
+        double x = xs[id];
+        double y = ys[id];
+        if (!lock.validate(stamp)) {
+            optimisticFailures.increment();
+            stamp = lock.readLock();
+            try {
+                x = xs[id];
+                y = ys[id];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        double dx = x - px;
+        double dy = y - py;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public void set(int id, double x, double y) {
+        StampedLock lock = lockFor(id);
+        long stamp = lock.writeLock();
+        try {
+            xs[id] = x;
+            ys[id] = y;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void move(int id, double dx, double dy) {
+        StampedLock lock = lockFor(id);
+        long stamp = lock.writeLock();
+        try {
+            xs[id] += dx;
+            ys[id] += dy;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 点当前在 (expectX, expectY) 时才移到 (newX, newY)
+     *
+     * 先乐观读判断条件，条件不成立时一把锁都不加；
+     * 条件成立再用 tryConvertToWriteLock 把乐观读的stamp升级为写锁，
+     * 升级失败（期间有人写过，或持有读锁时还有其他读者）就直接加写锁重新判断
+     */
+    public boolean moveIfAt(int id, double expectX, double expectY, double newX, double newY) {
+        StampedLock lock = lockFor(id);
+        long stamp = lock.tryOptimisticRead();
+        try {
+            for (;;) {
+                if (xs[id] != expectX || ys[id] != expectY) {
+                    if (StampedLock.isReadLockStamp(stamp) || StampedLock.isWriteLockStamp(stamp) || lock.validate(stamp)) {
+                        return false;
+                    }
+                    // 乐观读失败（或一开始写锁就被占着，stamp为0），读到的可能是中间状态，加读锁重新判断
+                    optimisticFailures.increment();
+                    stamp = lock.readLock();
+                    continue;
+                }
+                long ws = lock.tryConvertToWriteLock(stamp);
+                if (ws != 0L) {
+                    stamp = ws;
+                    xs[id] = newX;
+                    ys[id] = newY;
+                    return true;
+                }
+                conversionFailures.increment();
+                if (StampedLock.isReadLockStamp(stamp)) {
+                    lock.unlockRead(stamp);
+                }
+                stamp = lock.writeLock();
+            }
+        } finally {
+            if (StampedLock.isReadLockStamp(stamp) || StampedLock.isWriteLockStamp(stamp)) {
+                lock.unlock(stamp);
+            }
+        }
+    }
+
+    /**
+     * 乐观读验证失败、退化为读锁的次数
+     */
+    public long optimisticFailures() {
+        return optimisticFailures.sum();
+    }
+
+    /**
+     * tryConvertToWriteLock 失败的次数
+     */
+    public long conversionFailures() {
+        return conversionFailures.sum();
+    }
+}
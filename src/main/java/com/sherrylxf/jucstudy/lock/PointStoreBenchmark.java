@@ -0,0 +1,242 @@
+package com.sherrylxf.jucstudy.lock;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 坐标点存储：StampedLock乐观读 vs ReentrantReadWriteLock vs synchronized
+ *
+ * 三种实现用同样的分段数，区别只在每段用什么锁；
+ * 每个线程按给定的读写比例随机挑点，读是算到原点的距离（读 x、y 两个字段），写是移动一个点
+ */
+public class PointStoreBenchmark {
+
+    private static final int POINTS = 4096;
+    private static final int STRIPES = 64;
+    private static final long DURATION_MILLIS = 500;
+
+    interface PointStore {
+        double distanceTo(int id, double px, double py);
+
+        void move(int id, double dx, double dy);
+    }
+
+    static final class OptimisticStore implements PointStore {
+        final OptimisticPointStore store = new OptimisticPointStore(POINTS, STRIPES);
+
+        @Override
+        public double distanceTo(int id, double px, double py) {
+            return store.distanceTo(id, px, py);
+        }
+
+        @Override
+        public void move(int id, double dx, double dy) {
+            store.move(id, dx, dy);
+        }
+    }
+
+    static final class ReadWriteLockStore implements PointStore {
+        private final double[] xs = new double[POINTS];
+        private final double[] ys = new double[POINTS];
+        private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+
+        ReadWriteLockStore() {
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i] = new ReentrantReadWriteLock();
+            }
+        }
+
+        @Override
+        public double distanceTo(int id, double px, double py) {
+            ReentrantReadWriteLock lock = locks[id & (STRIPES - 1)];
+            lock.readLock().lock();
+            try {
+                double dx = xs[id] - px;
+                double dy = ys[id] - py;
+                return Math.sqrt(dx * dx + dy * dy);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void move(int id, double dx, double dy) {
+            ReentrantReadWriteLock lock = locks[id & (STRIPES - 1)];
+            lock.writeLock().lock();
+            try {
+                xs[id] += dx;
+                ys[id] += dy;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    static final class SynchronizedStore implements PointStore {
+        private final double[] xs = new double[POINTS];
+        private final double[] ys = new double[POINTS];
+        private final Object[] locks = new Object[STRIPES];
+
+        SynchronizedStore() {
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        @Override
+        public double distanceTo(int id, double px, double py) {
+            synchronized (locks[id & (STRIPES - 1)]) {
+                double dx = xs[id] - px;
+                double dy = ys[id] - py;
+                return Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+
+        @Override
+        public void move(int id, double dx, double dy) {
+            synchronized (locks[id & (STRIPES - 1)]) {
+                xs[id] += dx;
+                ys[id] += dy;
+            }
+        }
+    }
+
+    /**
+     * @return {读次数, 写次数, 读结果之和取整（校验和）}
+     */
+    static long[] run(PointStore store, int threads, int writePercent) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        DoubleAdder checksum = new DoubleAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long r = 0;
+                    long w = 0;
+                    double sink = 0;
+                    while (running.get()) {
+                        int id = random.nextInt(POINTS);
+                        if (random.nextInt(100) < writePercent) {
+                            store.move(id, 1.0, -1.0);
+                            w++;
+                        } else {
+                            sink += store.distanceTo(id, 0.0, 0.0);
+                            r++;
+                        }
+                    }
+                    reads.add(r);
+                    writes.add(w);
+                    checksum.add(sink);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        done.await();
+        return new long[]{reads.sum(), writes.sum(), (long) checksum.sum()};
+    }
+
+    /**
+     * 读写比例 99/1 和 90/10 下的读吞吐量
+     */
+    public static void demonstrateReadThroughput() {
+        System.out.println("\n========== 坐标点存储：乐观读 vs 读写锁 vs synchronized ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        String[] names = {"StampedLock(乐观读)", "ReentrantReadWriteLock", "synchronized"};
+        System.out.println("CPU核数: " + cores + ", 点数: " + POINTS + ", 分段: " + STRIPES
+                + ", 每组运行 " + DURATION_MILLIS + "ms");
+        System.out.printf("%-8s %-6s %-24s %16s %16s %12s%n", "读/写", "线程", "实现", "读(百万次/秒)", "写(百万次/秒)", "乐观读失败");
+
+        long checksum = 0;
+        try {
+            for (int writePercent : new int[]{1, 10}) {
+                for (int threads : ContentionScalingHarness.threadCounts()) {
+                    for (int k = 0; k < names.length; k++) {
+                        PointStore store = k == 0 ? new OptimisticStore() : k == 1 ? new ReadWriteLockStore() : new SynchronizedStore();
+                        long[] result = run(store, threads, writePercent);
+                        checksum += result[2];
+                        String failures = k == 0
+                                ? String.format("%.3f%%", 100.0 * ((OptimisticStore) store).store.optimisticFailures() / Math.max(1, result[0]))
+                                : "-";
+                        System.out.printf("%-8s %-6d %-24s %16.2f %16.2f %12s%n", (100 - writePercent) + "/" + writePercent,
+                                threads, names[k], result[0] / 1000.0 / DURATION_MILLIS, result[1] / 1000.0 / DURATION_MILLIS, failures);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.println("(校验和: " + checksum + ")");
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - 乐观读只读一次state再验证一次，不写共享变量，读线程之间没有缓存行争用");
+        System.out.println("  - 读写锁的读锁也要CAS同一个state，多核下读线程互相打架，单线程时也不比synchronized快");
+        System.out.println("  - 写比例越高、核数越多，乐观读失败越多，但失败后只是退化为一次读锁，代价有限");
+        System.out.println("  - 乐观读适合临界区短、只读几个字段的场景；读到的值在validate之前不能用来做有副作用的事");
+    }
+
+    /**
+     * 多个线程同时对同一个点做条件移动，只有一个能成功
+     */
+    public static void demonstrateConditionalMove() {
+        System.out.println("\n========== 乐观读 + tryConvertToWriteLock 条件更新 ==========");
+
+        OptimisticPointStore store = new OptimisticPointStore(16);
+        store.set(0, 0.0, 0.0);
+        int threads = 8;
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            final int target = i + 1;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    if (store.moveIfAt(0, 0.0, 0.0, target, target)) {
+                        winners.incrementAndGet();
+                        System.out.println("线程" + target + "移动成功");
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        System.out.println("成功次数: " + winners.get() + "（期望 1）, 最终位置: " + store.get(0));
+        System.out.println("锁升级失败次数: " + store.conversionFailures() + ", 乐观读失败次数: " + store.optimisticFailures());
+        System.out.println("✓ 条件不成立时不加锁直接返回，条件成立时从乐观读直接升级为写锁");
+    }
+
+    public static void main(String[] args) {
+        demonstrateConditionalMove();
+        demonstrateReadThroughput();
+    }
+}
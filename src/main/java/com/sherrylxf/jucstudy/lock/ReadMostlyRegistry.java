@@ -0,0 +1,267 @@
+package com.sherrylxf.jucstudy.lock;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 读多写少的注册表（服务名 -> 地址、配置项 -> 值 这类），底层是 HashMap，用哪种方式保护可以替换
+ *
+ * 通过 create(Guard) 选择保护方式，四种实现的语义相同，只是读写的代价不同：
+ * - READ_WRITE_LOCK：ReentrantReadWriteLock，读读并发，读锁要CAS共享的state
+ * - STAMPED_LOCK：StampedLock悲观读锁，不可重入，比读写锁少了重入计数的开销
+ * - COPY_ON_WRITE：读直接读volatile快照，写复制整张表再发布，读零开销、写O(n)
+ * - SYNCHRONIZED：读写都互斥
+ *
+ * StampedLock这里没有用乐观读：HashMap的get在并发修改时可能看到扩容到一半的桶数组，
+ * 不是"读到旧值再validate"就能兜住的；乐观读只适合 OptimisticPointStore 那样读几个普通字段的场景
+ */
+public abstract class ReadMostlyRegistry<K, V> {
+
+    public enum Guard {
+        READ_WRITE_LOCK,
+        STAMPED_LOCK,
+        COPY_ON_WRITE,
+        SYNCHRONIZED
+    }
+
+    public static <K, V> ReadMostlyRegistry<K, V> create(Guard guard) {
+        switch (guard) {
+            case READ_WRITE_LOCK:
+                return new ReadWriteLockRegistry<>();
+            case STAMPED_LOCK:
+                return new StampedLockRegistry<>();
+            case COPY_ON_WRITE:
+                return new CopyOnWriteRegistry<>();
+            case SYNCHRONIZED:
+                return new SynchronizedRegistry<>();
+            default:
+                throw new IllegalArgumentException("未知的保护方式: " + guard);
+        }
+    }
+
+    private final Guard guard;
+
+    ReadMostlyRegistry(Guard guard) {
+        this.guard = guard;
+    }
+
+    public Guard guard() {
+        return guard;
+    }
+
+    public abstract V get(K key);
+
+    /**
+     * @return 之前的值，没有则为null
+     */
+    public abstract V put(K key, V value);
+
+    public abstract V remove(K key);
+
+    public abstract int size();
+
+    /**
+     * 当前内容的不可变拷贝
+     */
+    public abstract Map<K, V> snapshot();
+
+    private static final class ReadWriteLockRegistry<K, V> extends ReadMostlyRegistry<K, V> {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<K, V> map = new HashMap<>();
+
+        ReadWriteLockRegistry() {
+            super(Guard.READ_WRITE_LOCK);
+        }
+
+        @Override
+        public V get(K key) {
+            lock.readLock().lock();
+            try {
+                return map.get(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public V put(K key, V value) {
+            lock.writeLock().lock();
+            try {
+                return map.put(key, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public V remove(K key) {
+            lock.writeLock().lock();
+            try {
+                return map.remove(key);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return map.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Map<K, V> snapshot() {
+            lock.readLock().lock();
+            try {
+                return Collections.unmodifiableMap(new HashMap<>(map));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static final class StampedLockRegistry<K, V> extends ReadMostlyRegistry<K, V> {
+        private final StampedLock lock = new StampedLock();
+        private final Map<K, V> map = new HashMap<>();
+
+        StampedLockRegistry() {
+            super(Guard.STAMPED_LOCK);
+        }
+
+        @Override
+        public V get(K key) {
+            long stamp = lock.readLock();
+            try {
+                return map.get(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public V put(K key, V value) {
+            long stamp = lock.writeLock();
+            try {
+                return map.put(key, value);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public V remove(K key) {
+            long stamp = lock.writeLock();
+            try {
+                return map.remove(key);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public int size() {
+            long stamp = lock.readLock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public Map<K, V> snapshot() {
+            long stamp = lock.readLock();
+            try {
+                return Collections.unmodifiableMap(new HashMap<>(map));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * 写者之间用 synchronized 串行，每次写复制一份新表再通过volatile发布；
+     * 发布出去的表不会再被修改，读者不需要任何锁
+     */
+    private static final class CopyOnWriteRegistry<K, V> extends ReadMostlyRegistry<K, V> {
+        private volatile Map<K, V> map = Collections.emptyMap();
+
+        CopyOnWriteRegistry() {
+            super(Guard.COPY_ON_WRITE);
+        }
+
+        @Override
+        public V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized V put(K key, V value) {
+            Map<K, V> copy = new HashMap<>(map);
+            V previous = copy.put(key, value);
+            map = copy;
+            return previous;
+        }
+
+        @Override
+        public synchronized V remove(K key) {
+            if (!map.containsKey(key)) {
+                return null;
+            }
+            Map<K, V> copy = new HashMap<>(map);
+            V previous = copy.remove(key);
+            map = copy;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Map<K, V> snapshot() {
+            return Collections.unmodifiableMap(map);
+        }
+    }
+
+    private static final class SynchronizedRegistry<K, V> extends ReadMostlyRegistry<K, V> {
+        private final Map<K, V> map = new HashMap<>();
+
+        SynchronizedRegistry() {
+            super(Guard.SYNCHRONIZED);
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized V put(K key, V value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public synchronized V remove(K key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized Map<K, V> snapshot() {
+            return Collections.unmodifiableMap(new HashMap<>(map));
+        }
+    }
+}
@@ -76,68 +76,10 @@ public class ReadWriteLockDemo {
         System.out.println();
         
         System.out.println("【性能对比】");
-        System.out.println("使用普通锁: 所有操作串行执行");
-        System.out.println("使用读写锁: 读操作可以并发执行，只有写操作才互斥");
-        System.out.println();
-        
-        data = 0;
-        long startTime = System.currentTimeMillis();
-        
-        // 10个读线程
-        Thread[] readers = new Thread[10];
-        for (int i = 0; i < 10; i++) {
-            readers[i] = new Thread(() -> {
-                readLock.lock();
-                try {
-                    int value = data; // 读取操作
-                    // 使用value避免警告
-                    if (value < 0) {
-                        // 不会执行，只是为了使用value
-                    }
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                } finally {
-                    readLock.unlock();
-                }
-            });
-        }
-        
-        // 1个写线程
-        Thread writer = new Thread(() -> {
-            writeLock.lock();
-            try {
-                data++; // 写操作
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            } finally {
-                writeLock.unlock();
-            }
-        });
-        
-        for (Thread reader : readers) {
-            reader.start();
-        }
-        writer.start();
-        
-        for (Thread reader : readers) {
-            try {
-                reader.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        
-        try {
-            writer.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        
-        long endTime = System.currentTimeMillis();
-        System.out.println("读写锁执行时间: " + (endTime - startTime) + "ms");
-        System.out.println("✓ 读操作可以并发执行，性能更好");
+        System.out.println("在锁里sleep再用currentTimeMillis计时，测到的只是sleep的时间，看不出锁本身的开销；");
+        System.out.println("这里用读多写少的注册表，在不同get/put比例下对比各种保护方式的吞吐量和延迟分位数");
+
+        System.out.println("性能对比见 RegistryLoadGenerator：耗时较长，不在这里自动运行，需要时单独执行它的 main");
     }
 
     /**
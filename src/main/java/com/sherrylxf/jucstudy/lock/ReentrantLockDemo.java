@@ -251,6 +251,14 @@ public class ReentrantLockDemo {
         System.out.println("✓ lockInterruptibly()允许在等待锁时响应中断");
     }
 
+    /**
+     * 演示死锁看门狗：定时检测死锁，中断在lockInterruptibly里等待的线程来打破死锁
+     */
+    public static void demonstrateDeadlockWatchdog() {
+        DeadlockWatchdogBenchmark.demonstrateBreakReentrantLockDeadlock();
+        System.out.println("扫描开销和synchronized死锁的报告见 DeadlockWatchdogBenchmark：不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 演示Condition条件变量
      */
@@ -318,6 +326,7 @@ public class ReentrantLockDemo {
         demonstrateFairLock();
         demonstrateInterruptibleLock();
         demonstrateCondition();
+        demonstrateDeadlockWatchdog();
     }
 }
 
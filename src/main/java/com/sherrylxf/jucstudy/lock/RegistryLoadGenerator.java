@@ -0,0 +1,232 @@
+package com.sherrylxf.jucstudy.lock;
+
+import com.sherrylxf.jucstudy.jmm.ContentionScalingHarness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReadMostlyRegistry 的负载生成器：按给定的 get/put 比例压测各种保护方式，输出吞吐量和延迟分位数
+ *
+ * 负载模型：
+ * - 注册表预先放入 KEYS 个键，put 都是覆盖已有的键（配置刷新、实例地址变更），表大小不变
+ * - 访问有热点：80% 的 get 落在 20% 的键上
+ * - 每个线程各自采样延迟（get 每 GET_SAMPLE_EVERY 次采一次，put 每次都采），结束后合并排序取分位数；
+ *   延迟里包含两次 nanoTime 的开销（几十纳秒），用于横向比较而不是绝对值
+ * - 正式测量前先跑 WARMUP_MILLIS 预热，让JIT编译完
+ */
+public class RegistryLoadGenerator {
+
+    private static final int KEYS = 10_000;
+    private static final int HOT_KEYS = KEYS / 5;
+    private static final long WARMUP_MILLIS = 200;
+    private static final long DURATION_MILLIS = 500;
+    private static final int GET_SAMPLE_EVERY = 8;
+    private static final int SAMPLES_PER_THREAD = 1 << 16;
+
+    private static final Integer[] KEY_OBJECTS = new Integer[KEYS];
+
+    static {
+        for (int i = 0; i < KEYS; i++) {
+            KEY_OBJECTS[i] = i;
+        }
+    }
+
+    /**
+     * 一组压测的结果，延迟单位纳秒
+     */
+    static class Result {
+        final long gets;
+        final long puts;
+        final long[] getLatencies;
+        final long[] putLatencies;
+        /**
+         * 所有get结果的和，打印出来防止JIT把读操作当成死代码消除
+         */
+        final long checksum;
+
+        Result(long gets, long puts, long[] getLatencies, long[] putLatencies, long checksum) {
+            this.gets = gets;
+            this.puts = puts;
+            this.getLatencies = getLatencies;
+            this.putLatencies = putLatencies;
+            this.checksum = checksum;
+        }
+
+        double opsPerSecond() {
+            return (gets + puts) * 1000.0 / DURATION_MILLIS;
+        }
+
+        static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+            return sorted[index];
+        }
+    }
+
+    /**
+     * 单个线程的计数和延迟样本；样本数组写满后循环覆盖，保留最近的样本
+     */
+    private static final class Worker {
+        long gets;
+        long puts;
+        long checksum;
+        final long[] getSamples = new long[SAMPLES_PER_THREAD];
+        final long[] putSamples = new long[SAMPLES_PER_THREAD];
+        int getSampleCount;
+        int putSampleCount;
+
+        long[] getLatencies() {
+            return Arrays.copyOf(getSamples, Math.min(getSampleCount, SAMPLES_PER_THREAD));
+        }
+
+        long[] putLatencies() {
+            return Arrays.copyOf(putSamples, Math.min(putSampleCount, SAMPLES_PER_THREAD));
+        }
+    }
+
+    static ReadMostlyRegistry<Integer, Integer> populate(ReadMostlyRegistry.Guard guard) {
+        ReadMostlyRegistry<Integer, Integer> registry = ReadMostlyRegistry.create(guard);
+        for (int i = 0; i < KEYS; i++) {
+            registry.put(KEY_OBJECTS[i], i);
+        }
+        return registry;
+    }
+
+    static Result run(ReadMostlyRegistry<Integer, Integer> registry, int threads, int putPerMille)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        List<Worker> workers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker();
+            workers.add(worker);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long sink = 0;
+                    long ops = 0;
+                    while (running.get()) {
+                        boolean measured = measuring.get();
+                        int key = random.nextInt(100) < 80 ? random.nextInt(HOT_KEYS) : random.nextInt(KEYS);
+                        if (random.nextInt(1000) < putPerMille) {
+                            long begin = System.nanoTime();
+                            registry.put(KEY_OBJECTS[key], (int) ops);
+                            long elapsed = System.nanoTime() - begin;
+                            if (measured) {
+                                worker.putSamples[worker.putSampleCount++ & (SAMPLES_PER_THREAD - 1)] = elapsed;
+                                worker.puts++;
+                            }
+                        } else if (measured && (ops % GET_SAMPLE_EVERY) == 0) {
+                            long begin = System.nanoTime();
+                            Integer value = registry.get(KEY_OBJECTS[key]);
+                            long elapsed = System.nanoTime() - begin;
+                            sink += value == null ? 0 : value;
+                            worker.getSamples[worker.getSampleCount++ & (SAMPLES_PER_THREAD - 1)] = elapsed;
+                            worker.gets++;
+                        } else {
+                            Integer value = registry.get(KEY_OBJECTS[key]);
+                            sink += value == null ? 0 : value;
+                            if (measured) {
+                                worker.gets++;
+                            }
+                        }
+                        ops++;
+                    }
+                    worker.checksum = sink;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        Thread.sleep(WARMUP_MILLIS);
+        measuring.set(true);
+        Thread.sleep(DURATION_MILLIS);
+        measuring.set(false);
+        running.set(false);
+        done.await();
+
+        long gets = 0;
+        long puts = 0;
+        long checksum = 0;
+        List<long[]> getParts = new ArrayList<>();
+        List<long[]> putParts = new ArrayList<>();
+        for (Worker worker : workers) {
+            gets += worker.gets;
+            puts += worker.puts;
+            checksum += worker.checksum;
+            getParts.add(worker.getLatencies());
+            putParts.add(worker.putLatencies());
+        }
+        return new Result(gets, puts, merge(getParts), merge(putParts), checksum);
+    }
+
+    private static long[] merge(List<long[]> parts) {
+        long[] all = parts.stream().flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return all;
+    }
+
+    /**
+     * 各保护方式在不同 get/put 比例、线程数下的吞吐量和延迟
+     */
+    public static void demonstrateGuards() {
+        System.out.println("\n========== 读多写少注册表：保护方式对比 ==========");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("CPU核数: " + cores + ", 键数: " + KEYS + "（80%的get落在" + HOT_KEYS + "个热点键上）"
+                + ", 预热 " + WARMUP_MILLIS + "ms, 每组测量 " + DURATION_MILLIS + "ms");
+        System.out.printf("%-10s %-6s %-16s %14s %10s %10s %11s %10s %10s%n", "get/put", "线程", "保护方式",
+                "吞吐(百万次/秒)", "get p50", "get p99", "get p99.9", "put p50", "put p99");
+        System.out.println("（延迟单位: ns）");
+
+        long checksum = 0;
+        try {
+            for (int putPerMille : new int[]{1, 10, 50, 100}) {
+                for (int threads : ContentionScalingHarness.threadCounts()) {
+                    for (ReadMostlyRegistry.Guard guard : ReadMostlyRegistry.Guard.values()) {
+                        Result r = run(populate(guard), threads, putPerMille);
+                        checksum += r.checksum;
+                        System.out.printf("%-10s %-6d %-16s %14.2f %10d %10d %11d %10d %10d%n",
+                                (1000 - putPerMille) / 10.0 + "/" + putPerMille / 10.0, threads, guard,
+                                r.opsPerSecond() / 1e6,
+                                Result.percentile(r.getLatencies, 0.50),
+                                Result.percentile(r.getLatencies, 0.99),
+                                Result.percentile(r.getLatencies, 0.999),
+                                Result.percentile(r.putLatencies, 0.50),
+                                Result.percentile(r.putLatencies, 0.99));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.println("(校验和: " + checksum + ")");
+
+        System.out.println();
+        System.out.println("结论:");
+        System.out.println("  - COPY_ON_WRITE 的get只有一次volatile读，不写任何共享变量；但每次put都要复制整张表（这里1万个键，");
+        System.out.println("    每次几百微秒）还产生大量垃圾，只有写极少（千分之一量级）或表很小时才划算");
+        System.out.println("  - READ_WRITE_LOCK / STAMPED_LOCK 的读锁都要CAS共享的state，多核下读线程互相争缓存行；");
+        System.out.println("    STAMPED_LOCK 不记重入次数，读锁开销略低，但不可重入");
+        System.out.println("  - SYNCHRONIZED 读写全部互斥，低并发时并不比读写锁差，读线程多了才显出劣势");
+        System.out.println("  - 各实现差距和核数、写比例、表大小都有关，选型以自己机器上跑出来的这张表为准");
+    }
+
+    public static void main(String[] args) {
+        demonstrateGuards();
+    }
+}
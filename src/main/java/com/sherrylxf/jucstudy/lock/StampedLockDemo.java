@@ -210,6 +210,14 @@ public class StampedLockDemo {
         }
     }
 
+    /**
+     * 演示把乐观读和锁转换封装成数据结构：多字段的坐标点存储
+     */
+    public static void demonstrateOptimisticPointStore() {
+        PointStoreBenchmark.demonstrateConditionalMove();
+        System.out.println("性能对比见 PointStoreBenchmark：耗时较长，不在这里自动运行，需要时单独执行它的 main");
+    }
+
     /**
      * 综合演示StampedLock
      */
@@ -221,6 +229,7 @@ public class StampedLockDemo {
         demonstratePessimisticRead();
         demonstrateOptimisticRead();
         demonstrateLockConversion();
+        demonstrateOptimisticPointStore();
     }
 }
 